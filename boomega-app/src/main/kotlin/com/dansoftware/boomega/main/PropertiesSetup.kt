@@ -39,6 +39,8 @@ object PropertiesSetup {
     private const val LOG_FILE_PATH = "log.file.path"
     private const val LOG_FILE_FULL_PATH = "log.file.path.full"
     private const val PLUGIN_DIRECTORY_PATH = "boomega.plugin.dir"
+    private const val REST_CACHE_DIRECTORY_PATH = "boomega.rest.cache.dir"
+    private const val COVER_CACHE_DIRECTORY_PATH = "boomega.cover.cache.dir"
     private const val DEFAULT_DIRECTORY_PATH = "boomega.dir.default.path"
 
     private const val APP_NAME_VALUE = "Boomega"
@@ -106,6 +108,8 @@ object PropertiesSetup {
         System.setProperty(BOOMEGA_VERSION, BOOMEGA_VERSION_VALUE)
         System.setProperty(BOOMEGA_FILE_EXTENSION, BOOMEGA_FILE_EXTENSION_VALUE)
         System.setProperty(PLUGIN_DIRECTORY_PATH, getPluginDirPath())
+        System.setProperty(REST_CACHE_DIRECTORY_PATH, getCacheDirPath("google-books"))
+        System.setProperty(COVER_CACHE_DIRECTORY_PATH, getCacheDirPath("covers"))
         System.setProperty(DEFAULT_DIRECTORY_PATH, getDefaultDirectoryFilePath())
     }
 
@@ -127,4 +131,17 @@ object PropertiesSetup {
         OsInfo.isMacOS -> "$userDirectoryPath/boomega/plugin"
         else -> "plugin"
     }
-}
\ No newline at end of file
+
+    /**
+     * Returns the path of the cache directory with the given name
+     */
+    private fun getCacheDirPath(name: String): String = when {
+        OsInfo.isWindows -> {
+            val appdata = System.getenv("APPDATA")?.takeIf { it.isNotBlank() } ?: userDirectoryPath
+            File(File(appdata), "Dansoftware\\boomega\\cache\\$name").absolutePath
+        }
+        OsInfo.isLinux -> "$userDirectoryPath/boomega/cache/$name"
+        OsInfo.isMacOS -> "$userDirectoryPath/boomega/cache/$name"
+        else -> File(tempDirectory, "boomega/cache/$name").absolutePath
+    }
+}
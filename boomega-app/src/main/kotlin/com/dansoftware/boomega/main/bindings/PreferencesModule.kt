@@ -18,8 +18,10 @@
 
 package com.dansoftware.boomega.main.bindings
 
+import com.dansoftware.boomega.config.source.ConcurrentCachingSource
 import com.dansoftware.boomega.config.source.ConfigSource
 import com.dansoftware.boomega.config.source.JsonFileSource
+import com.dansoftware.boomega.config.source.WriteBehindSource
 import com.dansoftware.boomega.util.hide
 import com.dansoftware.boomega.util.joinToFilePath
 import com.dansoftware.boomega.util.userDirectoryPath
@@ -31,15 +33,22 @@ import java.nio.file.Files
 import java.nio.file.Path
 import java.nio.file.Paths
 import javax.inject.Named
+import javax.inject.Singleton
 
 /**
  * DI-module that specifies how to and where to save the configurations.
  */
 class PreferencesModule : AbstractModule() {
-    override fun configure() {
-        bind(ConfigSource::class.java)
-            .to(JsonFileSource::class.java)
-    }
+
+    /**
+     * The configurations are kept in a JSON file; the decoded values are cached, and
+     * modifications are written back in the background shortly after they are made.
+     */
+    @Provides
+    @Singleton
+    @Suppress("unused")
+    fun provideConfigSource(fileSource: JsonFileSource): ConfigSource =
+        WriteBehindSource(ConcurrentCachingSource(fileSource))
 
     @Provides
     @Named("configFilePath")
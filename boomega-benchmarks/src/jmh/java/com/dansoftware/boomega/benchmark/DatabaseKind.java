@@ -0,0 +1,148 @@
+/*
+ * Boomega - A modern book explorer & catalog application
+ * Copyright (C) 2020-2022  Daniel Gyoerffy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.dansoftware.boomega.benchmark;
+
+import com.dansoftware.boomega.database.api.Database;
+import com.dansoftware.boomega.database.api.DatabaseMeta;
+import com.dansoftware.boomega.database.api.DatabaseProvider;
+import com.dansoftware.boomega.database.bmdb.BMDBDatabase;
+import com.dansoftware.boomega.database.bmdb.BMDBMeta;
+import com.dansoftware.boomega.database.sql.SQLDatabase;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * The database configurations the database benchmarks are executed with.
+ * <p>
+ * An embedded H2 database stands in for MySQL, so the {@link SQLDatabase} can be
+ * measured without a database server.
+ */
+public enum DatabaseKind {
+
+    BMDB_COMPRESSED {
+        @Override
+        Database open(Path directory) {
+            return bmdb(directory, true, 1024);
+        }
+    },
+
+    BMDB_UNCOMPRESSED {
+        @Override
+        Database open(Path directory) {
+            return bmdb(directory, false, 1024);
+        }
+    },
+
+    BMDB_COMPRESSED_BUFFER_64K {
+        @Override
+        Database open(Path directory) {
+            return bmdb(directory, true, 64 * 1024);
+        }
+    },
+
+    SQL_H2 {
+        @Override
+        Database open(Path directory) {
+            var url = "jdbc:h2:file:" + directory.resolve("boomega").toAbsolutePath();
+            return new SQLDatabase(new BenchmarkMeta(url), Map.of(
+                    "hibernate.connection.driver_class", "org.h2.Driver",
+                    "hibernate.dialect", "org.hibernate.dialect.H2Dialect",
+                    "hibernate.hbm2ddl.auto", "update",
+                    "hibernate.connection.url", url,
+                    "hibernate.connection.username", "sa",
+                    "hibernate.connection.password", ""
+            ));
+        }
+    };
+
+    /**
+     * Opens (or creates if it doesn't exist) the database stored in the given directory
+     */
+    abstract Database open(Path directory);
+
+    private static Database bmdb(Path directory, boolean compressed, int autoCommitBufferSize) {
+        var meta = new BMDBMeta(directory.resolve("boomega.bmdb").toFile());
+        return new BMDBDatabase(null, null, meta, compressed, autoCommitBufferSize);
+    }
+
+    static Path createDirectory() {
+        try {
+            return Files.createTempDirectory("boomega-benchmark");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    static void deleteDirectory(Path directory) {
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * The meta of the H2 database
+     */
+    private static final class BenchmarkMeta extends DatabaseMeta {
+
+        private final String uri;
+
+        BenchmarkMeta(String uri) {
+            this.uri = uri;
+        }
+
+        @NotNull
+        @Override
+        public DatabaseProvider<DatabaseMeta> getProvider() {
+            throw new UnsupportedOperationException();
+        }
+
+        @NotNull
+        @Override
+        public String getName() {
+            return "benchmark";
+        }
+
+        @NotNull
+        @Override
+        public String getUri() {
+            return uri;
+        }
+
+        @NotNull
+        @Override
+        protected Set<Action<?>> getSupportedActions() {
+            return Set.of();
+        }
+
+        @Override
+        public <T> T performAction(@NotNull Action<T> action) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
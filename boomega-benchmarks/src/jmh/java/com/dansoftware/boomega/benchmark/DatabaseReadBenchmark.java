@@ -0,0 +1,80 @@
+/*
+ * Boomega - A modern book explorer & catalog application
+ * Copyright (C) 2020-2022  Daniel Gyoerffy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.dansoftware.boomega.benchmark;
+
+import com.dansoftware.boomega.database.api.Database;
+import com.dansoftware.boomega.database.api.data.Record;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the read operations of the {@link Database} implementations over pre-populated databases.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class DatabaseReadBenchmark {
+
+    @Param({"BMDB_COMPRESSED", "BMDB_UNCOMPRESSED", "BMDB_COMPRESSED_BUFFER_64K", "SQL_H2"})
+    public DatabaseKind databaseKind;
+
+    @Param({"1000", "10000", "100000"})
+    public int recordCount;
+
+    private Path directory;
+    private Database database;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        directory = DatabaseKind.createDirectory();
+        var populated = databaseKind.open(directory);
+        populated.insertRecords(RecordGenerator.generateUnsaved(recordCount), null);
+        populated.close();
+        database = databaseKind.open(directory);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        database.close();
+        DatabaseKind.deleteDirectory(directory);
+    }
+
+    /**
+     * Opens the database (that is not opened by anything else) and reads its size
+     */
+    @Benchmark
+    public int coldOpen() {
+        database.close();
+        database = databaseKind.open(directory);
+        return database.getTotalRecordCount();
+    }
+
+    @Benchmark
+    public List<Record> loadAllRecords() {
+        return database.getRecords();
+    }
+
+    @Benchmark
+    public int totalRecordCount() {
+        return database.getTotalRecordCount();
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Boomega - A modern book explorer & catalog application
+ * Copyright (C) 2020-2022  Daniel Gyoerffy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.dansoftware.boomega.benchmark;
+
+import com.dansoftware.boomega.database.api.Database;
+import com.dansoftware.boomega.database.api.data.Record;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the batched write operations of the {@link Database} implementations.
+ * <p>
+ * Every invocation works with a batch of records; the inserted and the deleted records
+ * are prepared outside the measured code.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class DatabaseWriteBenchmark {
+
+    @Param({"BMDB_COMPRESSED", "BMDB_UNCOMPRESSED", "BMDB_COMPRESSED_BUFFER_64K", "SQL_H2"})
+    public DatabaseKind databaseKind;
+
+    @Param({"100", "1000"})
+    public int batchSize;
+
+    /**
+     * The count of records the database contains before the measurement
+     */
+    private static final int INITIAL_RECORD_COUNT = 10_000;
+
+    private Path directory;
+    private Database database;
+
+    /**
+     * The saved records that are updated by {@link #updateBatch()}
+     */
+    private List<Record> savedBatch;
+
+    /**
+     * The seed of the next generated batch, so every batch contains different records
+     */
+    private long seed;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        directory = DatabaseKind.createDirectory();
+        database = databaseKind.open(directory);
+        database.insertRecords(RecordGenerator.generateUnsaved(INITIAL_RECORD_COUNT), null);
+        savedBatch = database.records(0, batchSize);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        database.close();
+        DatabaseKind.deleteDirectory(directory);
+    }
+
+    @State(Scope.Thread)
+    public static class InsertBatch {
+        private List<Record> records;
+
+        @Setup(Level.Invocation)
+        public void setUp(DatabaseWriteBenchmark benchmark) {
+            records = RecordGenerator.generateUnsaved(benchmark.batchSize, benchmark.seed++);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class RemoveBatch {
+        private List<Record> records;
+
+        @Setup(Level.Invocation)
+        public void setUp(DatabaseWriteBenchmark benchmark) {
+            records = RecordGenerator.generateUnsaved(benchmark.batchSize, benchmark.seed++);
+            benchmark.database.insertRecords(records, null);
+        }
+    }
+
+    @Benchmark
+    public void insertBatch(InsertBatch batch) {
+        database.insertRecords(batch.records, null);
+    }
+
+    @Benchmark
+    public void updateBatch() {
+        for (Record record : savedBatch) {
+            record.setTitle(record.getTitle() + "*");
+            record.setRating((record.getRating() + 1) % 6);
+        }
+        database.updateRecords(savedBatch, null);
+    }
+
+    @Benchmark
+    public void removeBatch(RemoveBatch batch) {
+        database.removeRecords(batch.records, null);
+    }
+}
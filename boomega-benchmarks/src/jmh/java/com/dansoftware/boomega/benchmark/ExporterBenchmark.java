@@ -0,0 +1,98 @@
+/*
+ * Boomega - A modern book explorer & catalog application
+ * Copyright (C) 2020-2022  Daniel Gyoerffy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.dansoftware.boomega.benchmark;
+
+import com.dansoftware.boomega.database.api.data.Record;
+import com.dansoftware.boomega.export.api.ExportProcessObserver;
+import com.dansoftware.boomega.export.api.RecordExportConfiguration;
+import com.dansoftware.boomega.export.api.RecordExporter;
+import com.dansoftware.boomega.export.excel.ExcelExportConfiguration;
+import com.dansoftware.boomega.export.excel.ExcelExporter;
+import com.dansoftware.boomega.export.json.JsonExportConfiguration;
+import com.dansoftware.boomega.export.json.JsonExporter;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the throughput of the built-in exporters.
+ * <p>
+ * The output is discarded, so the results don't depend on the speed of the disk.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MINUTES)
+public class ExporterBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    public int recordCount;
+
+    @Param({"ALL", "MINIMAL", "NON_TEXT"})
+    public FieldSet fields;
+
+    @Param({"NONE", "TITLE"})
+    public SortField sortBy;
+
+    private List<Record> records;
+
+    private final JsonExporter jsonExporter = new JsonExporter();
+    private final ExcelExporter excelExporter = new ExcelExporter();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        records = RecordGenerator.generate(recordCount);
+    }
+
+    @Benchmark
+    public void json() {
+        var config = new JsonExportConfiguration();
+        config.setPrettyPrinting(false);
+        export(jsonExporter, config);
+    }
+
+    @Benchmark
+    public void excel() {
+        export(excelExporter, new ExcelExportConfiguration());
+    }
+
+    private <C extends RecordExportConfiguration> void export(RecordExporter<C> exporter, C config) {
+        fields.applyOn(config);
+        sortBy.applyOn(config);
+        exporter.write(records, OutputStream.nullOutputStream(), config, NoOpObserver.INSTANCE);
+    }
+
+    private static final class NoOpObserver implements ExportProcessObserver {
+
+        static final NoOpObserver INSTANCE = new NoOpObserver();
+
+        @Override
+        public void updateMessage(String message) {
+        }
+
+        @Override
+        public void updateProgress(double workDone, double max) {
+        }
+
+        @Override
+        public void updateTitle(String title) {
+        }
+    }
+}
@@ -0,0 +1,55 @@
+/*
+ * Boomega - A modern book explorer & catalog application
+ * Copyright (C) 2020-2022  Daniel Gyoerffy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.dansoftware.boomega.benchmark;
+
+import com.dansoftware.boomega.database.api.data.RecordProperty;
+import com.dansoftware.boomega.export.api.RecordExportConfiguration;
+
+import java.util.List;
+
+/**
+ * The sets of fields the exporters are benchmarked with
+ */
+public enum FieldSet {
+
+    /**
+     * All the properties of the records
+     */
+    ALL(RecordProperty.Companion.getAllProperties()),
+
+    /**
+     * A few short text properties
+     */
+    MINIMAL(List.of(RecordProperty.TITLE, RecordProperty.ISBN, RecordProperty.PUBLISHER)),
+
+    /**
+     * The properties with non-string values
+     */
+    NON_TEXT(List.of(RecordProperty.PUBLISHED_DATE, RecordProperty.LANGUAGE, RecordProperty.RATING, RecordProperty.AUTHORS));
+
+    private final List<RecordProperty<?>> properties;
+
+    FieldSet(List<? extends RecordProperty<?>> properties) {
+        this.properties = List.copyOf(properties);
+    }
+
+    void applyOn(RecordExportConfiguration config) {
+        config.setRequiredFields(properties);
+    }
+}
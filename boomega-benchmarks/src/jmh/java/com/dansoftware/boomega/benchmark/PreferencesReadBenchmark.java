@@ -0,0 +1,106 @@
+/*
+ * Boomega - A modern book explorer & catalog application
+ * Copyright (C) 2020-2022  Daniel Gyoerffy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.dansoftware.boomega.benchmark;
+
+import com.dansoftware.boomega.config.PreferenceKey;
+import com.dansoftware.boomega.config.source.ConcurrentCachingSource;
+import com.dansoftware.boomega.config.source.ConfigSource;
+import com.dansoftware.boomega.config.source.JsonFileSource;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the latency of reading typed preferences from the plain {@link JsonFileSource}
+ * (decodes the value on every read) and from a {@link ConcurrentCachingSource} wrapping it.
+ * <p>
+ * The {@code complex} key mimics the login data (a list of saved databases and a few flags); being mutable,
+ * it's decoded on every read by both sources. The {@code simple} one is an (immutable, cached) {@link Locale}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class PreferencesReadBenchmark {
+
+    private static final PreferenceKey<Profile> COMPLEX = new PreferenceKey<>("profile", Profile.class, Profile::new);
+    private static final PreferenceKey<Locale> SIMPLE = new PreferenceKey<>("locale", Locale.class, Locale::getDefault);
+
+    @Param({"file", "caching"})
+    private String sourceKind;
+
+    private File file;
+    private ConfigSource source;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        file = Files.createTempFile("bmcfg", ".json").toFile();
+        var fileSource = new JsonFileSource(file);
+        fileSource.put(COMPLEX, Profile.sample());
+        fileSource.put(SIMPLE, Locale.ENGLISH);
+        fileSource.commit();
+
+        source = switch (sourceKind) {
+            case "file" -> fileSource;
+            case "caching" -> new ConcurrentCachingSource(fileSource);
+            default -> throw new IllegalArgumentException(sourceKind);
+        };
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file.toPath());
+    }
+
+    @Benchmark
+    public Profile readComplex() {
+        return source.get(COMPLEX);
+    }
+
+    @Benchmark
+    public Locale readSimple() {
+        return source.get(SIMPLE);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Profile readComplexContended() {
+        return source.get(COMPLEX);
+    }
+
+    public static class Profile {
+        private List<String> savedDatabases = new ArrayList<>();
+        private String selectedDatabase;
+        private boolean autoLogin;
+
+        static Profile sample() {
+            var profile = new Profile();
+            for (int i = 0; i < 20; i++)
+                profile.savedDatabases.add("/home/user/libraries/library-" + i + ".bmdb");
+            profile.selectedDatabase = profile.savedDatabases.get(0);
+            profile.autoLogin = true;
+            return profile;
+        }
+    }
+}
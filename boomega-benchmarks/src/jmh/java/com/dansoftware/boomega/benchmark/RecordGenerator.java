@@ -0,0 +1,180 @@
+/*
+ * Boomega - A modern book explorer & catalog application
+ * Copyright (C) 2020-2022  Daniel Gyoerffy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.dansoftware.boomega.benchmark;
+
+import com.dansoftware.boomega.database.api.data.Record;
+import com.dansoftware.boomega.database.api.data.ServiceConnection;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Generates synthetic {@link Record}s for the benchmarks.
+ * <p>
+ * The generated data is deterministic (the same seed is used every time), so the
+ * results of different runs are comparable. The authors and the publishers follow
+ * a Zipf-like distribution: a few of them occur in many records, most of them only in a few.
+ */
+final class RecordGenerator {
+
+    private static final long SEED = 20220101L;
+
+    private static final String[] WORDS = {
+            "alma", "körte", "szilva", "barack", "book", "history", "science", "ångström",
+            "éjszaka", "çiçek", "ığdır", "şehir", "öğretmen", "über", "zebra", "apple",
+            "Mountain", "river", "Ocean", "ünnep", "Zoltán", "Ádám", "Émile", "İstanbul"
+    };
+
+    private static final Locale[] LANGUAGES = {
+            Locale.ENGLISH, Locale.GERMAN, Locale.forLanguageTag("hu"), Locale.forLanguageTag("tr")
+    };
+
+    private static final String[] FIRST_NAMES = {
+            "Anna", "Béla", "Csilla", "Dániel", "Emma", "Ferenc", "Gábor", "Hanna", "Ayşe", "Mehmet",
+            "John", "Mary", "Peter", "Sophie", "Lukas", "Zeynep", "Márton", "Ilona", "Thomas", "Olivia"
+    };
+
+    private static final String[] LAST_NAMES = {
+            "Kovács", "Nagy", "Tóth", "Szabó", "Horváth", "Yılmaz", "Kaya", "Demir", "Smith", "Johnson",
+            "Müller", "Schmidt", "Brown", "Williams", "Fischer", "Öztürk", "Varga", "Kiss", "Molnár", "Taylor"
+    };
+
+    private static final String[] PUBLISHER_SUFFIXES = {"Press", "Kiadó", "Yayınları", "Verlag", "Books", "Publishing"};
+
+    private static final ZipfPool AUTHORS = new ZipfPool(authorNames(), 1.1);
+    private static final ZipfPool PUBLISHERS = new ZipfPool(publisherNames(), 1.3);
+
+    private RecordGenerator() {
+    }
+
+    /**
+     * Generates the given count of records with ids (as if they were loaded from a database);
+     * every tenth of them is a magazine.
+     */
+    static List<Record> generate(int count) {
+        var records = generateUnsaved(count);
+        for (int i = 0; i < count; i++) {
+            records.get(i).setId((long) i);
+        }
+        return records;
+    }
+
+    /**
+     * Generates the given count of records without ids (as if they were not saved yet);
+     * every tenth of them is a magazine.
+     */
+    static List<Record> generateUnsaved(int count) {
+        return generateUnsaved(count, SEED);
+    }
+
+    /**
+     * Generates the given count of records without ids using the given seed.
+     */
+    static List<Record> generateUnsaved(int count, long seed) {
+        var random = new Random(seed);
+        var records = new ArrayList<Record>(count);
+        for (int i = 0; i < count; i++) {
+            records.add(i % 10 == 0 ? magazine(random) : book(random));
+        }
+        return records;
+    }
+
+    private static Record book(Random random) {
+        var record = new Record(Record.Type.BOOK);
+        fillCommonFields(record, random);
+        record.setSubtitle(random.nextInt(3) == 0 ? null : words(random, 4));
+        record.setIsbn(String.valueOf(9780000000000L + random.nextInt(1_000_000_000)));
+        record.setNumberOfCopies(random.nextInt(5) + 1);
+        record.setAuthors(random.nextInt(4) == 0 ? List.of(AUTHORS.next(random), AUTHORS.next(random)) : List.of(AUTHORS.next(random)));
+        record.setSubject(words(random, 1));
+        return record;
+    }
+
+    private static Record magazine(Random random) {
+        var record = new Record(Record.Type.MAGAZINE);
+        fillCommonFields(record, random);
+        record.setMagazineName(words(random, 2));
+        return record;
+    }
+
+    private static void fillCommonFields(Record record, Random random) {
+        record.setTitle(words(random, 3));
+        record.setLanguage(LANGUAGES[random.nextInt(LANGUAGES.length)]);
+        record.setPublisher(random.nextInt(4) == 0 ? null : PUBLISHERS.next(random));
+        record.setPublishedDate(LocalDate.ofEpochDay(random.nextInt(20_000)));
+        record.setNotes(random.nextInt(2) == 0 ? null : words(random, 12));
+        record.setRating(random.nextInt(6));
+        record.setServiceConnection(new ServiceConnection(Map.of("google_books_handle", Long.toHexString(random.nextLong()))));
+    }
+
+    private static String words(Random random, int count) {
+        var builder = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            if (i > 0) builder.append(' ');
+            builder.append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return builder.toString();
+    }
+
+    private static String[] authorNames() {
+        var names = new String[FIRST_NAMES.length * LAST_NAMES.length];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = FIRST_NAMES[i % FIRST_NAMES.length] + " " + LAST_NAMES[i / FIRST_NAMES.length];
+        }
+        return names;
+    }
+
+    private static String[] publisherNames() {
+        var names = new String[LAST_NAMES.length * PUBLISHER_SUFFIXES.length];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = LAST_NAMES[i % LAST_NAMES.length] + " " + PUBLISHER_SUFFIXES[i / LAST_NAMES.length];
+        }
+        return names;
+    }
+
+    /**
+     * Picks values with a Zipf distribution: the probability of the value at rank k is proportional to 1/k^s.
+     */
+    private static final class ZipfPool {
+
+        private final String[] values;
+        private final double[] cumulativeWeights;
+
+        ZipfPool(String[] values, double exponent) {
+            this.values = values;
+            this.cumulativeWeights = new double[values.length];
+            double sum = 0;
+            for (int i = 0; i < values.length; i++) {
+                sum += 1 / Math.pow(i + 1, exponent);
+                cumulativeWeights[i] = sum;
+            }
+        }
+
+        String next(Random random) {
+            double target = random.nextDouble() * cumulativeWeights[cumulativeWeights.length - 1];
+            int index = Arrays.binarySearch(cumulativeWeights, target);
+            return values[Math.min(index < 0 ? -index - 1 : index, values.length - 1)];
+        }
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * Boomega - A modern book explorer & catalog application
+ * Copyright (C) 2020-2022  Daniel Gyoerffy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.dansoftware.boomega.benchmark;
+
+import com.dansoftware.boomega.database.api.data.Record;
+import com.dansoftware.boomega.export.api.BaseExporter;
+import com.dansoftware.boomega.export.api.ConfigurationDialog;
+import com.dansoftware.boomega.export.json.JsonExportConfiguration;
+import javafx.scene.Node;
+import org.jetbrains.annotations.NotNull;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the sorting of the records before exporting ({@link BaseExporter#sortRecords}).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class SortRecordsBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    public int recordCount;
+
+    @Param({"TITLE", "PUBLISHED_DATE"})
+    public SortField sortBy;
+
+    /**
+     * The language tag of the collator ("und" for the default one)
+     */
+    @Param({"und", "hu", "tr"})
+    public String sortingAbc;
+
+    @Param({"false", "true"})
+    public boolean reverse;
+
+    private List<Record> records;
+    private JsonExportConfiguration config;
+
+    private final SortingExporter exporter = new SortingExporter();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        records = RecordGenerator.generate(recordCount);
+        config = new JsonExportConfiguration();
+        config.setSortingAbc(Locale.forLanguageTag(sortingAbc));
+        config.setReverseItems(reverse);
+        sortBy.applyOn(config);
+    }
+
+    @Benchmark
+    public List<Record> sortRecords() {
+        return exporter.sort(records, config);
+    }
+
+    /**
+     * Exposes the sorting of the {@link BaseExporter}
+     */
+    private static final class SortingExporter extends BaseExporter<JsonExportConfiguration> {
+
+        List<Record> sort(List<Record> items, JsonExportConfiguration config) {
+            return sortRecords(items, config);
+        }
+
+        @NotNull
+        @Override
+        public String getName() {
+            return "Sorting";
+        }
+
+        @NotNull
+        @Override
+        public Node getIcon() {
+            throw new UnsupportedOperationException();
+        }
+
+        @NotNull
+        @Override
+        public ConfigurationDialog<JsonExportConfiguration> getConfigurationDialog() {
+            throw new UnsupportedOperationException();
+        }
+
+        @NotNull
+        @Override
+        public String getContentType() {
+            return "";
+        }
+
+        @NotNull
+        @Override
+        public String getContentTypeDescription() {
+            return "";
+        }
+    }
+}
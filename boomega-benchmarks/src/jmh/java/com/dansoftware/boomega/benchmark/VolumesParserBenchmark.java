@@ -0,0 +1,101 @@
+/*
+ * Boomega - A modern book explorer & catalog application
+ * Copyright (C) 2020-2022  Daniel Gyoerffy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.dansoftware.boomega.benchmark;
+
+import com.dansoftware.boomega.rest.google.books.Volume;
+import com.dansoftware.boomega.rest.google.books.Volumes;
+import com.dansoftware.boomega.rest.google.books.VolumesParser;
+import com.google.gson.Gson;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the reflective (Gson) deserialization of the Google Books responses
+ * with the streaming {@link VolumesParser}.
+ * <p>
+ * The responses are read from the fixtures under {@code src/jmh/resources/google-books}:
+ * a search page with 40 volumes and a single volume lookup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class VolumesParserBenchmark {
+
+    private final Gson gson = new Gson();
+
+    private byte[] volumesResponse;
+    private byte[] volumeResponse;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        volumesResponse = fixture("volumes.json");
+        volumeResponse = fixture("volume.json");
+    }
+
+    @Benchmark
+    public Volumes volumesReflective() {
+        return gson.fromJson(reader(volumesResponse), Volumes.class);
+    }
+
+    @Benchmark
+    public Volumes volumesStreamingAll() throws IOException {
+        return VolumesParser.ALL.volumes().parse(reader(volumesResponse));
+    }
+
+    @Benchmark
+    public Volumes volumesStreamingRecord() throws IOException {
+        return VolumesParser.RECORD.volumes().parse(reader(volumesResponse));
+    }
+
+    @Benchmark
+    public Volume volumeReflective() {
+        return gson.fromJson(reader(volumeResponse), Volume.class);
+    }
+
+    @Benchmark
+    public Volume volumeStreamingAll() throws IOException {
+        return VolumesParser.ALL.volume().parse(reader(volumeResponse));
+    }
+
+    @Benchmark
+    public Volume volumeStreamingRecord() throws IOException {
+        return VolumesParser.RECORD.volume().parse(reader(volumeResponse));
+    }
+
+    private static Reader reader(byte[] response) {
+        return new InputStreamReader(new ByteArrayInputStream(response), StandardCharsets.UTF_8);
+    }
+
+    private static byte[] fixture(String name) {
+        try (InputStream input = VolumesParserBenchmark.class.getResourceAsStream("/google-books/" + name)) {
+            return Objects.requireNonNull(input, name).readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
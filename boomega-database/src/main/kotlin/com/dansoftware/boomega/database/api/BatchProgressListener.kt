@@ -0,0 +1,54 @@
+/*
+ * Boomega - A modern book explorer & catalog application
+ * Copyright (C) 2020-2022  Daniel Gyoerffy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.dansoftware.boomega.database.api
+
+/**
+ * Receives progress-updates from a batch operation of a [Database].
+ *
+ * @see Database.insertRecords
+ * @see Database.updateRecords
+ * @see Database.removeRecords
+ */
+fun interface BatchProgressListener {
+
+    /**
+     * Called whenever a part of the batch is processed.
+     *
+     * @param done the number of records processed so far
+     * @param total the total number of records in the batch
+     */
+    fun onProgress(done: Int, total: Int)
+}
+
+/**
+ * Performs the given [action] on the consecutive chunks (with the given maximum [size]) of the list
+ * and notifies the [listener] (if any) after each chunk is processed.
+ */
+internal inline fun <T> List<T>.forEachChunk(
+    size: Int,
+    listener: BatchProgressListener?,
+    action: (List<T>) -> Unit
+) {
+    var done = 0
+    chunked(size).forEach { chunk ->
+        action(chunk)
+        done += chunk.size
+        listener?.onProgress(done, this.size)
+    }
+}
@@ -39,6 +39,9 @@ interface Database {
 
     /**
      * Gives the list of [Record]s stored in the database.
+     *
+     * Note: it loads all the records into the memory; consider using
+     * [records] with an offset and a limit, or [openCursor] for large databases.
      */
     val records: List<Record>
 
@@ -54,6 +57,48 @@ interface Database {
      */
     val isClosed: Boolean
 
+    /**
+     * Gives a page of the [Record]s stored in the database.
+     *
+     * @param offset the index of the first record to be returned
+     * @param limit the maximum number of records to be returned
+     */
+    fun records(offset: Int, limit: Int): List<Record> =
+        records.asSequence().drop(offset).take(limit).toList()
+
+    /**
+     * Opens a [RecordCursor] that iterates over all the records stored in the database lazily.
+     *
+     * The returned cursor should be closed after usage.
+     */
+    fun openCursor(): RecordCursor = RecordCursor.of(records)
+
+    /**
+     * Finds the records satisfying the given [RecordQuery].
+     *
+     * The default implementation evaluates the query in memory; implementations should
+     * override it to filter, sort and page the records where the data is stored.
+     */
+    fun find(query: RecordQuery): List<Record> = useRecords(query::applyTo)
+
+    /**
+     * Gives the records having the given ids; the ids not found in the database are skipped.
+     *
+     * The default implementation iterates over all the records.
+     */
+    fun findByIds(ids: Collection<Long>): List<Record> {
+        val idSet = ids.toHashSet()
+        return useRecords { records -> records.filter { it.id in idSet }.toList() }
+    }
+
+    /**
+     * Tells whether the database can order the records by the given keys itself, without loading all
+     * of them into the memory; only in this case is paging through the sorted results of [find] cheap.
+     *
+     * The default [find] sorts in memory, so it returns `true` only if there's nothing to sort by.
+     */
+    fun canSortBy(sortKeys: List<RecordQuery.SortKey>): Boolean = sortKeys.isEmpty()
+
     /**
      * Inserts a record into the database
      */
@@ -74,6 +119,46 @@ interface Database {
      */
     fun removeRecords(records: List<Record>)
 
+    /**
+     * Inserts the given records into the database as a single batch.
+     *
+     * The listeners are notified only once, with all the inserted records.
+     *
+     * @param progressListener receives the progress of the operation; might be null
+     */
+    fun insertRecords(records: List<Record>, progressListener: BatchProgressListener? = null) {
+        records.forEachIndexed { index, record ->
+            insertRecord(record)
+            progressListener?.onProgress(index + 1, records.size)
+        }
+    }
+
+    /**
+     * Updates the given records in the database as a single batch.
+     *
+     * The listeners are notified only once, with all the updated records.
+     *
+     * @param progressListener receives the progress of the operation; might be null
+     */
+    fun updateRecords(records: List<Record>, progressListener: BatchProgressListener? = null) {
+        records.forEachIndexed { index, record ->
+            updateRecord(record)
+            progressListener?.onProgress(index + 1, records.size)
+        }
+    }
+
+    /**
+     * Deletes the given records from the database as a single batch.
+     *
+     * The listeners are notified only once, with all the deleted records.
+     *
+     * @param progressListener receives the progress of the operation; might be null
+     */
+    fun removeRecords(records: List<Record>, progressListener: BatchProgressListener?) {
+        removeRecords(records)
+        progressListener?.onProgress(records.size, records.size)
+    }
+
     /**
      * Closes the database
      */
@@ -94,4 +179,11 @@ interface Database {
      * If the given listener has not been previously registered then this method call is a no-op.
      */
     fun removeListener(listener: DatabaseChangeListener)
-}
\ No newline at end of file
+}
+
+/**
+ * Opens a [RecordCursor] on the database, passes its records to the given [action]
+ * as a lazy [Sequence] and closes the cursor afterwards.
+ */
+inline fun <R> Database.useRecords(action: (Sequence<Record>) -> R): R =
+    openCursor().use { action(it.asSequence()) }
@@ -37,6 +37,18 @@ class ReadOnlyDatabase(database: Database) : Database by database {
         throw UnsupportedOperationException("Action DELETE is not supported")
     }
 
+    override fun insertRecords(records: List<Record>, progressListener: BatchProgressListener?) {
+        throw UnsupportedOperationException("Action INSERT is not supported")
+    }
+
+    override fun updateRecords(records: List<Record>, progressListener: BatchProgressListener?) {
+        throw UnsupportedOperationException("Action UPDATE is not supported")
+    }
+
+    override fun removeRecords(records: List<Record>, progressListener: BatchProgressListener?) {
+        throw UnsupportedOperationException("Action DELETE is not supported")
+    }
+
     override fun close() {
         throw UnsupportedOperationException("Action CLOSE is not supported")
     }
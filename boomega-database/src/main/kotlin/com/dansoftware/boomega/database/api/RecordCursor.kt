@@ -0,0 +1,51 @@
+/*
+ * Boomega - A modern book explorer & catalog application
+ * Copyright (C) 2020-2022  Daniel Gyoerffy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.dansoftware.boomega.database.api
+
+import com.dansoftware.boomega.database.api.data.Record
+import java.io.Closeable
+
+/**
+ * A [RecordCursor] iterates over the [Record]s of a [Database] lazily, so
+ * the records don't have to be loaded into the memory all at once.
+ *
+ * A cursor might hold resources of the underlying data source (e.g. an open session),
+ * so it should always be closed after usage.
+ *
+ * @see Database.openCursor
+ */
+interface RecordCursor : Iterator<Record>, Closeable {
+
+    /**
+     * Releases the resources held by the cursor.
+     */
+    override fun close()
+
+    companion object {
+
+        /**
+         * Creates a [RecordCursor] that simply iterates over the given (already loaded) records.
+         */
+        @JvmStatic
+        fun of(records: Iterable<Record>): RecordCursor =
+            object : RecordCursor, Iterator<Record> by records.iterator() {
+                override fun close() {}
+            }
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * Boomega - A modern book explorer & catalog application
+ * Copyright (C) 2020-2022  Daniel Gyoerffy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.dansoftware.boomega.database.api
+
+import com.dansoftware.boomega.database.api.data.Record
+import com.dansoftware.boomega.database.api.data.RecordProperty
+import java.util.regex.Pattern
+
+/**
+ * A condition on a [Record], used by a [RecordQuery].
+ *
+ * Most of the predicates are [PropertyPredicate]s, checking one property of the record;
+ * they can be combined with [AnyOf].
+ */
+sealed class RecordPredicate {
+
+    /**
+     * Evaluates the predicate on the given record in memory.
+     */
+    abstract fun test(record: Record): Boolean
+
+    /**
+     * Satisfied if any of the given [predicates] is satisfied.
+     */
+    class AnyOf(val predicates: List<RecordPredicate>) : RecordPredicate() {
+
+        constructor(vararg predicates: RecordPredicate) : this(predicates.toList())
+
+        init {
+            require(predicates.isNotEmpty()) { "At least one predicate has to be specified!" }
+        }
+
+        override fun test(record: Record) = predicates.any { it.test(record) }
+    }
+
+    /**
+     * A condition on a particular [RecordProperty] of a [Record].
+     *
+     * If the property holds multiple values (like [RecordProperty.AUTHORS]),
+     * the predicate is satisfied if any of the values satisfies it.
+     *
+     * @property property the record property the condition applies to
+     */
+    sealed class PropertyPredicate(val property: RecordProperty<*>) : RecordPredicate() {
+
+        override fun test(record: Record): Boolean = valuesOf(record).any(::testValue)
+
+        protected abstract fun testValue(value: Any): Boolean
+
+        private fun valuesOf(record: Record): List<Any> =
+            when (val value = property.getValue(record)) {
+                null -> emptyList()
+                is Collection<*> -> value.filterNotNull()
+                else -> listOf(value)
+            }
+    }
+
+    /**
+     * Satisfied if the (string) value contains the given [text].
+     */
+    class Contains @JvmOverloads constructor(
+        property: RecordProperty<*>,
+        val text: String,
+        val ignoreCase: Boolean = true
+    ) : PropertyPredicate(property) {
+        override fun testValue(value: Any) = value.toString().contains(text, ignoreCase)
+    }
+
+    /**
+     * Satisfied if the value equals the given [value].
+     */
+    class EqualTo(property: RecordProperty<*>, val value: Any) : PropertyPredicate(property) {
+        override fun testValue(value: Any) = value == this.value
+    }
+
+    /**
+     * Satisfied if the given regular expression can be found in the (string) value.
+     */
+    class Matches @JvmOverloads constructor(
+        property: RecordProperty<*>,
+        val regex: String,
+        val ignoreCase: Boolean = false
+    ) : PropertyPredicate(property) {
+
+        val pattern: Pattern = Pattern.compile(regex, if (ignoreCase) Pattern.CASE_INSENSITIVE else 0)
+
+        override fun testValue(value: Any) = pattern.matcher(value.toString()).find()
+    }
+
+    /**
+     * Satisfied if the value is between [from] and [to] (both inclusive).
+     * A `null` bound means the range is open on that side.
+     */
+    class InRange<T : Comparable<in T>>(
+        property: RecordProperty<T>,
+        val from: T?,
+        val to: T?
+    ) : PropertyPredicate(property) {
+
+        init {
+            require(from != null || to != null) { "At least one of the bounds has to be specified!" }
+        }
+
+        @Suppress("UNCHECKED_CAST")
+        override fun testValue(value: Any): Boolean {
+            value as T
+            return (from == null || value >= from) && (to == null || value <= to)
+        }
+    }
+}
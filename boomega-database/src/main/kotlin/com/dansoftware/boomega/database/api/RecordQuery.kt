@@ -0,0 +1,127 @@
+/*
+ * Boomega - A modern book explorer & catalog application
+ * Copyright (C) 2020-2022  Daniel Gyoerffy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.dansoftware.boomega.database.api
+
+import com.dansoftware.boomega.database.api.data.Record
+import com.dansoftware.boomega.database.api.data.RecordProperty
+
+/**
+ * A provider-neutral description of a record search, executed by [Database.find].
+ *
+ * The [predicates] are combined with a logical *and*; the results are ordered
+ * by the [sortKeys] (the first key is the most significant one) and paged by the
+ * [offset] and [limit] values.
+ *
+ * The order is the same regardless of the provider: values are compared by their natural order,
+ * strings by a binary collation (the values of their characters, as [String.compareTo] does, so
+ * the order is case- and accent-sensitive and not locale-aware); `null` values come last.
+ * Locale-aware ordering has to be done by the caller (e.g. with collation keys).
+ *
+ * Usage:
+ * ```
+ * val query = RecordQuery()
+ *     .where(RecordPredicate.Contains(RecordProperty.TITLE, "java"))
+ *     .sortBy(RecordProperty.PUBLISHED_DATE, descending = true)
+ *     .sortBy(RecordProperty.TITLE)
+ *     .limit(50)
+ * val records = database.find(query)
+ * ```
+ */
+class RecordQuery {
+
+    private val _predicates: MutableList<RecordPredicate> = mutableListOf()
+    private val _sortKeys: MutableList<SortKey> = mutableListOf()
+
+    val predicates: List<RecordPredicate> get() = _predicates
+
+    val sortKeys: List<SortKey> get() = _sortKeys
+
+    var offset = 0
+        private set
+
+    /**
+     * The maximum number of records to return; `null` means no limit
+     */
+    var limit: Int? = null
+        private set
+
+    fun where(predicate: RecordPredicate) = apply {
+        _predicates.add(predicate)
+    }
+
+    @JvmOverloads
+    fun sortBy(property: RecordProperty<*>, descending: Boolean = false) = apply {
+        require(property.isSortable) { "Records can't be sorted by '${property.id}'!" }
+        _sortKeys.add(SortKey(property, descending))
+    }
+
+    fun offset(offset: Int) = apply {
+        require(offset >= 0) { "Offset can't be less than 0!" }
+        this.offset = offset
+    }
+
+    fun limit(limit: Int) = apply {
+        require(limit >= 0) { "Limit can't be less than 0!" }
+        this.limit = limit
+    }
+
+    /**
+     * Checks whether the given record satisfies all the [predicates].
+     */
+    fun test(record: Record): Boolean = _predicates.all { it.test(record) }
+
+    /**
+     * Builds a comparator that orders the records by the [sortKeys]; `null` values always come last.
+     * Returns `null` if there are no sort keys specified.
+     */
+    fun comparator(): Comparator<Record>? =
+        _sortKeys.map(SortKey::comparator).reduceOrNull(Comparator<Record>::thenComparing)
+
+    /**
+     * Executes the whole query in memory on the given records.
+     */
+    fun applyTo(records: Sequence<Record>): List<Record> =
+        page(records.filter(::test).let { filtered ->
+            comparator()?.let(filtered::sortedWith) ?: filtered
+        })
+
+    /**
+     * Applies only the [offset] and [limit] on the given records.
+     */
+    fun page(records: Sequence<Record>): List<Record> =
+        records.drop(offset).let { limit?.let(it::take) ?: it }.toList()
+
+    /**
+     * Specifies a record property to sort by; strings are compared with the binary collation
+     * described at [RecordQuery].
+     */
+    class SortKey(val property: RecordProperty<*>, val descending: Boolean) {
+
+        @Suppress("UNCHECKED_CAST")
+        internal fun comparator(): Comparator<Record> {
+            val valueComparator = nullsLast(if (descending) reverseOrder() else naturalOrder<Comparable<Any>>())
+            return Comparator { left, right ->
+                valueComparator.compare(
+                    property.getValue(left) as Comparable<Any>?,
+                    property.getValue(right) as Comparable<Any>?
+                )
+            }
+        }
+    }
+}
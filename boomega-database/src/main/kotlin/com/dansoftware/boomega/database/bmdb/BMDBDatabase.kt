@@ -36,6 +36,7 @@ class BMDBDatabase(
                 openOrCreate()
             else
                 openOrCreate(username, password)
-        },
+        }
+        .also(RecordIndexRegistry::upgrade),
     meta
 )
@@ -19,8 +19,14 @@ package com.dansoftware.boomega.database.bmdb
 
 import com.dansoftware.boomega.database.api.*
 import com.dansoftware.boomega.database.api.data.Record
+import org.dizitart.no2.FindOptions
+import org.dizitart.no2.IndexType
 import org.dizitart.no2.Nitrite
+import org.dizitart.no2.NitriteId
+import org.dizitart.no2.fulltext.TextTokenizer
+import org.dizitart.no2.objects.Cursor
 import org.dizitart.no2.objects.ObjectRepository
+import org.dizitart.no2.objects.filters.ObjectFilters
 import org.slf4j.LoggerFactory
 import java.util.Collections.unmodifiableList
 
@@ -41,12 +47,56 @@ open class NitriteDatabase(
     private val recordRepository: ObjectRepository<NitriteRecord> =
         nitriteClient.getRepository(REPOSITORY_KEY, NitriteRecord::class.java)
 
+    private val textTokenizer: TextTokenizer by lazy { nitriteClient.context.textTokenizer }
+
     override val totalRecordCount: Int
         get() = recordRepository.find().totalCount()
 
     override val records: List<Record>
         get() = recordRepository.find().map { it.toBaseRecord() }
 
+    override fun records(offset: Int, limit: Int): List<Record> {
+        // nitrite refuses offsets pointing beyond the collection
+        if (offset >= totalRecordCount) return emptyList()
+        return recordRepository.find(FindOptions.limit(offset, limit)).map { it.toBaseRecord() }
+    }
+
+    override fun openCursor(): RecordCursor = NitriteRecordCursor(recordRepository.find())
+
+    override fun find(query: RecordQuery): List<Record> {
+        val nitriteQuery = NitriteRecordQuery(query, indexTypes(), textTokenizer.stopWords())
+        if (nitriteQuery.isFullyTranslated) {
+            // Nitrite doesn't accept an offset that is out of the bounds of the results
+            if (query.limit != null && (query.limit == 0 || query.offset >= count(nitriteQuery))) return emptyList()
+            val findOptions = nitriteQuery.findOptions()
+            val cursor = when {
+                findOptions == null -> nitriteQuery.filter?.let(recordRepository::find) ?: recordRepository.find()
+                nitriteQuery.filter == null -> recordRepository.find(findOptions)
+                else -> recordRepository.find(nitriteQuery.filter, findOptions)
+            }
+            val records = cursor.asSequence().map { it.toBaseRecord() }
+            return if (query.limit == null) query.page(records) else records.toList()
+        }
+
+        val records = (nitriteQuery.filter?.let(recordRepository::find) ?: recordRepository.find())
+            .asSequence()
+            .map { it.toBaseRecord() }
+            .filter { record -> nitriteQuery.residualPredicates.all { it.test(record) } }
+        return query.page(query.comparator()?.let(records::sortedWith) ?: records)
+    }
+
+    override fun findByIds(ids: Collection<Long>): List<Record> {
+        if (ids.isEmpty()) return emptyList()
+        val nitriteIds = ids.map(NitriteId::createId).toTypedArray()
+        return recordRepository.find(ObjectFilters.`in`(ID_FIELD, *nitriteIds)).map { it.toBaseRecord() }
+    }
+
+    /**
+     * Nitrite loads and sorts all the matching documents in the memory for every sorted find
+     * (regardless of the indexes), so no sort is cheap enough for paging.
+     */
+    override fun canSortBy(sortKeys: List<RecordQuery.SortKey>): Boolean = sortKeys.isEmpty()
+
     override val isClosed: Boolean
         get() = nitriteClient.isClosed
 
@@ -70,9 +120,36 @@ open class NitriteDatabase(
         notifyListeners(DatabaseChangeType.DELETE, listOf(record))
     }
 
-    @Synchronized
     override fun removeRecords(records: List<Record>) {
-        records.map(::NitriteRecord).forEach(recordRepository::remove)
+        removeRecords(records, null)
+    }
+
+    @Synchronized
+    override fun insertRecords(records: List<Record>, progressListener: BatchProgressListener?) {
+        val nitriteRecords = records.map(::NitriteRecord)
+        nitriteRecords.forEachChunk(BATCH_SIZE, progressListener) { chunk ->
+            recordRepository.insert(chunk.toTypedArray())
+        }
+        nitriteClient.commit()
+        records.forEachIndexed { index, record -> record.id = nitriteRecords[index].id!!.idValue }
+        notifyListeners(DatabaseChangeType.INSERT, unmodifiableList(records))
+    }
+
+    @Synchronized
+    override fun updateRecords(records: List<Record>, progressListener: BatchProgressListener?) {
+        records.map(::NitriteRecord).forEachChunk(BATCH_SIZE, progressListener) { chunk ->
+            chunk.forEach(recordRepository::update)
+        }
+        nitriteClient.commit()
+        notifyListeners(DatabaseChangeType.UPDATE, unmodifiableList(records))
+    }
+
+    @Synchronized
+    override fun removeRecords(records: List<Record>, progressListener: BatchProgressListener?) {
+        records.mapNotNull { it.id?.let(NitriteId::createId) }.forEachChunk(BATCH_SIZE, progressListener) { ids ->
+            recordRepository.remove(ObjectFilters.`in`(ID_FIELD, *ids.toTypedArray()))
+        }
+        nitriteClient.commit()
         notifyListeners(DatabaseChangeType.DELETE, unmodifiableList(records))
     }
 
@@ -91,12 +168,42 @@ open class NitriteDatabase(
         listeners.remove(listener)
     }
 
+    private fun indexTypes(): Map<String, IndexType> =
+        recordRepository.listIndices().associate { it.field to it.indexType }
+
+    private fun count(nitriteQuery: NitriteRecordQuery): Int =
+        nitriteQuery.filter?.let { recordRepository.find(it).totalCount() } ?: totalRecordCount
+
     private fun notifyListeners(eventType: DatabaseChangeType, items: List<Record>) {
         listeners.forEach { it.onChange(DatabaseChangeEvent(eventType, items)) }
     }
 
+    /**
+     * A [RecordCursor] that converts the [NitriteRecord]s into base [Record]s one by one,
+     * as the underlying nitrite [Cursor] is iterated.
+     *
+     * Nitrite cursors only hold the id-set of the result, and read the documents lazily,
+     * so there is no resource to be released on [close].
+     */
+    private class NitriteRecordCursor(cursor: Cursor<NitriteRecord>) : RecordCursor {
+
+        private val iterator = cursor.iterator()
+
+        override fun hasNext(): Boolean = iterator.hasNext()
+
+        override fun next(): Record = iterator.next().toBaseRecord()
+
+        override fun close() {}
+    }
+
     companion object {
         private val logger = LoggerFactory.getLogger(NitriteDatabase::class.java)
-        private const val REPOSITORY_KEY = "BoomegaRecords"
+        internal const val REPOSITORY_KEY = "BoomegaRecords"
+        private const val ID_FIELD = "id"
+
+        /**
+         * The maximum number of records written at once in a batch operation
+         */
+        private const val BATCH_SIZE = 1000
     }
 }
\ No newline at end of file
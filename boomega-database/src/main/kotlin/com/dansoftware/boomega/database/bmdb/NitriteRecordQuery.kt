@@ -0,0 +1,194 @@
+/*
+ * Boomega - A modern book explorer & catalog application
+ * Copyright (C) 2020-2022  Daniel Gyoerffy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.dansoftware.boomega.database.bmdb
+
+import com.dansoftware.boomega.database.api.RecordPredicate
+import com.dansoftware.boomega.database.api.RecordQuery
+import com.dansoftware.boomega.database.api.data.RecordProperty
+import org.dizitart.no2.FindOptions
+import org.dizitart.no2.IndexType
+import org.dizitart.no2.NullOrder
+import org.dizitart.no2.SortOrder
+import org.dizitart.no2.objects.ObjectFilter
+import org.dizitart.no2.objects.filters.ObjectFilters
+import java.time.LocalDate
+import java.time.format.DateTimeFormatter
+import java.util.*
+import java.util.regex.Pattern
+
+/**
+ * Translates a [RecordQuery] into Nitrite [ObjectFilter]s and [FindOptions].
+ *
+ * Nitrite uses the indexes of the fields automatically for equality and range filters;
+ * the [Contains][RecordPredicate.Contains] predicates on full-text indexed fields are translated into
+ * text filters, if the result is guaranteed to be the same as the result of a plain substring search.
+ * Any other predicate on a full-text indexed field is evaluated in memory.
+ *
+ * The predicates that can't be expressed with Nitrite filters are collected into the [residualPredicates],
+ * those have to be evaluated in memory.
+ * Nitrite can sort by one field only, so the [findOptions] are only available if the query has
+ * at most one sort key and every predicate could be translated.
+ */
+internal class NitriteRecordQuery(
+    private val query: RecordQuery,
+    private val indexTypes: Map<String, IndexType> = emptyMap(),
+    private val stopWords: Set<String> = emptySet()
+) {
+
+    val filter: ObjectFilter?
+
+    val residualPredicates: List<RecordPredicate>
+
+    /**
+     * `true` if the sorting and the paging can be performed by the database
+     */
+    val isFullyTranslated: Boolean
+
+    init {
+        val filters = mutableListOf<ObjectFilter>()
+        residualPredicates = query.predicates.filter { predicate ->
+            predicate.toObjectFilter()?.let(filters::add) == null
+        }
+        filter = filters.singleOrNull() ?: filters.takeIf { it.isNotEmpty() }?.let { ObjectFilters.and(*it.toTypedArray()) }
+        isFullyTranslated = residualPredicates.isEmpty() && query.sortKeys.size <= 1
+    }
+
+    /**
+     * Builds the find options for the query;
+     * should be used only if the query [isFullyTranslated] and the requested page is not empty.
+     */
+    fun findOptions(): FindOptions? {
+        val sortKey = query.sortKeys.singleOrNull()
+        val sortOptions = sortKey?.let {
+            FindOptions.sort(it.property.id, if (it.descending) SortOrder.Descending else SortOrder.Ascending, NullOrder.Last)
+        }
+        return when (val limit = query.limit) {
+            null -> sortOptions
+            else -> sortOptions?.thenLimit(query.offset, limit) ?: FindOptions.limit(query.offset, limit)
+        }
+    }
+
+    private fun RecordPredicate.toObjectFilter(): ObjectFilter? = when (this) {
+        // a disjunction can be filtered by Nitrite only if all of its members can
+        is RecordPredicate.AnyOf -> predicates.map { it.toObjectFilter() ?: return null }
+            .let { it.singleOrNull() ?: ObjectFilters.or(*it.toTypedArray()) }
+        is RecordPredicate.PropertyPredicate -> toObjectFilter()
+    }
+
+    private fun RecordPredicate.PropertyPredicate.toObjectFilter(): ObjectFilter? {
+        if (property !in SUPPORTED_PROPERTIES) return null
+        // Nitrite answers the filters of a full-text indexed field from its index, which is keyed by
+        // the single words of the values, so only the text filter gives correct results on them
+        if (indexTypes[property.id] == IndexType.Fulltext && !(this is RecordPredicate.Contains && canUseTextIndex()))
+            return null
+        val field = if (property == RecordProperty.AUTHORS) ELEMENT_FIELD else property.id
+        val filter = when (this) {
+            is RecordPredicate.Contains -> when {
+                canUseTextIndex() -> ObjectFilters.text(field, "*${text.lowercase()}*")
+                // case-insensitive like String.contains, including the non-ASCII letters
+                property.isStoredAsString -> ObjectFilters.regex(field, regexOf(Pattern.quote(text), ignoreCase, unicodeCase = true))
+                else -> return null
+            }
+            is RecordPredicate.Matches -> when {
+                property.isStoredAsString -> ObjectFilters.regex(field, regexOf(regex, ignoreCase))
+                else -> return null
+            }
+            is RecordPredicate.EqualTo -> ObjectFilters.eq(field, toNitriteValue(value))
+            is RecordPredicate.InRange<*> -> listOfNotNull(
+                from?.let { ObjectFilters.gte(field, toNitriteValue(it)) },
+                to?.let { ObjectFilters.lte(field, toNitriteValue(it)) }
+            ).let { it.singleOrNull() ?: ObjectFilters.and(*it.toTypedArray()) }
+        }
+        return when (property) {
+            RecordProperty.AUTHORS -> ObjectFilters.elemMatch(property.id, filter)
+            else -> filter
+        }
+    }
+
+    /**
+     * The full-text index stores the lower-cased words of the value without the stop-words,
+     * so it can be used only for a case-insensitive search of a single word-fragment
+     * that can't be part of a stop-word.
+     */
+    private fun RecordPredicate.Contains.canUseTextIndex(): Boolean =
+        indexTypes[property.id] == IndexType.Fulltext &&
+                ignoreCase &&
+                text.isNotEmpty() &&
+                text.all(Char::isLetterOrDigit) &&
+                stopWords.none { it.contains(text, ignoreCase = true) }
+
+    /**
+     * `true` if the values are stored as strings (the dates in ISO format, the languages
+     * as [Locale.toString]), so they can be filtered with regular expressions
+     */
+    private val RecordProperty<*>.isStoredAsString: Boolean
+        get() = typeClassReference == String::class.java || this in STRING_STORED_PROPERTIES
+
+    private fun regexOf(regex: String, ignoreCase: Boolean, unicodeCase: Boolean = false) = when {
+        !ignoreCase -> regex
+        unicodeCase -> "(?iu)$regex"
+        else -> "(?i)$regex"
+    }
+
+    /**
+     * Converts the value into the form it's stored in the Nitrite document.
+     */
+    private fun toNitriteValue(value: Any): Any = when (value) {
+        is LocalDate -> value.format(DateTimeFormatter.ISO_LOCAL_DATE)
+        is Enum<*> -> value.name
+        is Locale -> value.toString()
+        else -> value
+    }
+
+    private companion object {
+
+        /**
+         * The field name Nitrite uses for referring to the elements of a primitive array
+         */
+        const val ELEMENT_FIELD = "$"
+
+        /**
+         * The properties that are stored in a form that can be filtered by Nitrite
+         */
+        val SUPPORTED_PROPERTIES = setOf(
+            RecordProperty.TYPE,
+            RecordProperty.TITLE,
+            RecordProperty.LANGUAGE,
+            RecordProperty.SUBTITLE,
+            RecordProperty.MAGAZINE_NAME,
+            RecordProperty.AUTHORS,
+            RecordProperty.ISBN,
+            RecordProperty.PUBLISHER,
+            RecordProperty.PUBLISHED_DATE,
+            RecordProperty.RATING,
+            RecordProperty.NUMBER_OF_COPIES,
+            RecordProperty.SUBJECT,
+            RecordProperty.NOTES
+        )
+
+        /**
+         * The non-string properties that are stored as strings
+         */
+        val STRING_STORED_PROPERTIES = setOf(
+            RecordProperty.AUTHORS,
+            RecordProperty.LANGUAGE,
+            RecordProperty.PUBLISHED_DATE
+        )
+    }
+}
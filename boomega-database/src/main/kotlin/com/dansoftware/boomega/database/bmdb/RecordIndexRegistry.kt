@@ -0,0 +1,108 @@
+/*
+ * Boomega - A modern book explorer & catalog application
+ * Copyright (C) 2020-2022  Daniel Gyoerffy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.dansoftware.boomega.database.bmdb
+
+import org.dizitart.no2.Document
+import org.dizitart.no2.IndexOptions
+import org.dizitart.no2.IndexType
+import org.dizitart.no2.Nitrite
+import org.dizitart.no2.filters.Filters
+import org.dizitart.no2.objects.ObjectRepository
+import org.slf4j.LoggerFactory
+
+/**
+ * Defines the Nitrite indexes maintained on the records of a BMDB database.
+ *
+ * The version of the definitions is stored in the database file, so whenever the [definitions]
+ * change, the [VERSION] has to be increased; the files created with an earlier version are
+ * upgraded when they are opened (see [upgrade]).
+ */
+internal object RecordIndexRegistry {
+
+    private val logger = LoggerFactory.getLogger(RecordIndexRegistry::class.java)
+
+    /**
+     * The version of the current index [definitions]
+     */
+    const val VERSION = 1
+
+    /**
+     * Maps the record fields to the type of index created on them.
+     *
+     * The isbn can't have a unique index, because a record without isbn
+     * (or several records of the same book) are allowed.
+     */
+    val definitions: Map<String, IndexType> = mapOf(
+        "isbn" to IndexType.NonUnique,
+        "publisher" to IndexType.NonUnique,
+        "subject" to IndexType.NonUnique,
+        "type" to IndexType.NonUnique,
+        "publishedDate" to IndexType.NonUnique,
+        "title" to IndexType.Fulltext,
+        "notes" to IndexType.Fulltext
+    )
+
+    private const val ID_FIELD = "id"
+    private const val META_COLLECTION = "BoomegaMeta"
+    private const val KEY = "key"
+    private const val VALUE = "value"
+    private const val INDEX_VERSION_KEY = "recordIndexVersion"
+
+    /**
+     * Brings the indexes of the records stored in the given database up to date with the [definitions],
+     * if they were created with an earlier version.
+     */
+    fun upgrade(nitrite: Nitrite) {
+        upgrade(nitrite, nitrite.getRepository(NitriteDatabase.REPOSITORY_KEY, NitriteRecord::class.java))
+    }
+
+    /**
+     * Brings the indexes of the given repository up to date with the [definitions],
+     * if they were created with an earlier version.
+     */
+    private fun upgrade(nitrite: Nitrite, repository: ObjectRepository<*>) {
+        val metaCollection = nitrite.getCollection(META_COLLECTION)
+        val versionDocument = metaCollection.find(Filters.eq(KEY, INDEX_VERSION_KEY)).firstOrDefault()
+        val storedVersion = versionDocument?.get(VALUE) as? Int ?: 0
+        if (storedVersion >= VERSION) return
+
+        logger.info("Upgrading record indexes from version {} to {}...", storedVersion, VERSION)
+        val existingIndexes = repository.listIndices()
+            .filter { it.field != ID_FIELD } // the unique index of the NitriteIds is maintained by Nitrite
+            .associate { it.field to it.indexType }
+        existingIndexes.forEach { (field, type) ->
+            if (definitions[field] != type) {
+                logger.debug("Dropping index on '{}'", field)
+                repository.dropIndex(field)
+            }
+        }
+        definitions.forEach { (field, type) ->
+            if (existingIndexes[field] != type) {
+                logger.debug("Creating {} index on '{}'", type, field)
+                repository.createIndex(field, IndexOptions.indexOptions(type))
+            }
+        }
+
+        when (versionDocument) {
+            null -> metaCollection.insert(Document.createDocument(KEY, INDEX_VERSION_KEY).put(VALUE, VERSION))
+            else -> metaCollection.update(versionDocument.put(VALUE, VERSION))
+        }
+        nitrite.commit()
+    }
+}
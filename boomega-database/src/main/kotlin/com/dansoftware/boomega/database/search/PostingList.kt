@@ -0,0 +1,96 @@
+/*
+ * Boomega - A modern book explorer & catalog application
+ * Copyright (C) 2020-2022  Daniel Gyoerffy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.dansoftware.boomega.database.search
+
+/**
+ * A sorted list of document ids backed by a primitive [IntArray].
+ *
+ * The ids are expected to be added in increasing order, so adding is an amortized
+ * constant time operation; removing needs a binary search and a shift.
+ */
+internal class PostingList {
+
+    private var ids = IntArray(INITIAL_CAPACITY)
+
+    var size: Int = 0
+        private set
+
+    fun isEmpty(): Boolean = size == 0
+
+    fun add(id: Int) {
+        if (size > 0 && ids[size - 1] >= id) {
+            if (contains(id)) return
+            insertSorted(id)
+            return
+        }
+        ensureCapacity(size + 1)
+        ids[size++] = id
+    }
+
+    fun remove(id: Int) {
+        val index = ids.binarySearch(id, 0, size)
+        if (index < 0) return
+        System.arraycopy(ids, index + 1, ids, index, size - index - 1)
+        size--
+    }
+
+    operator fun contains(id: Int): Boolean = ids.binarySearch(id, 0, size) >= 0
+
+    fun toIntArray(): IntArray = ids.copyOf(size)
+
+    /**
+     * Keeps only those ids of the given sorted [candidates] array that are in this list.
+     *
+     * @return the count of the retained ids; they are moved to the beginning of the array
+     */
+    fun retainIn(candidates: IntArray, count: Int): Int {
+        var retained = 0
+        var i = 0
+        var j = 0
+        while (i < count && j < size) {
+            when {
+                candidates[i] < ids[j] -> i++
+                candidates[i] > ids[j] -> j++
+                else -> {
+                    candidates[retained++] = candidates[i]
+                    i++
+                    j++
+                }
+            }
+        }
+        return retained
+    }
+
+    private fun insertSorted(id: Int) {
+        val index = -(ids.binarySearch(id, 0, size) + 1)
+        ensureCapacity(size + 1)
+        System.arraycopy(ids, index, ids, index + 1, size - index)
+        ids[index] = id
+        size++
+    }
+
+    private fun ensureCapacity(capacity: Int) {
+        if (capacity > ids.size)
+            ids = ids.copyOf(maxOf(capacity, ids.size + (ids.size shr 1)))
+    }
+
+    private companion object {
+        const val INITIAL_CAPACITY = 4
+    }
+}
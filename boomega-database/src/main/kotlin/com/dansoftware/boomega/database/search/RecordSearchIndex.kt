@@ -0,0 +1,259 @@
+/*
+ * Boomega - A modern book explorer & catalog application
+ * Copyright (C) 2020-2022  Daniel Gyoerffy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.dansoftware.boomega.database.search
+
+import com.dansoftware.boomega.database.api.*
+import com.dansoftware.boomega.database.api.data.Record
+import org.slf4j.LoggerFactory
+import java.io.Closeable
+import java.util.concurrent.locks.ReentrantReadWriteLock
+import kotlin.concurrent.read
+import kotlin.concurrent.write
+
+/**
+ * An in-memory inverted index over the [values][Record.values] of the records stored in a [Database].
+ *
+ * Every value is split into trigrams (after folding the case of its characters), and each trigram
+ * is mapped to the [PostingList] of the records containing it. A search only checks those records
+ * that have all the trigrams of the searched text; texts shorter than a trigram are checked against
+ * every record.
+ *
+ * The index is [built][build] once, and then maintained incrementally from the [DatabaseChangeEvent]s
+ * of the database, so it should be [closed][close] when it's not needed anymore.
+ */
+class RecordSearchIndex(private val database: Database) : DatabaseChangeListener, Closeable {
+
+    private val lock = ReentrantReadWriteLock()
+
+    private var documents = arrayOfNulls<Document>(INITIAL_CAPACITY)
+    private var documentsEnd = 0
+    private var removedDocuments = 0
+    private val documentIds = HashMap<Long, Int>()
+    private val postings = HashMap<Long, PostingList>()
+
+    /**
+     * `true` if the index is built, so it can answer the searches
+     */
+    @Volatile
+    var isBuilt: Boolean = false
+        private set
+
+    /**
+     * The count of the indexed records
+     */
+    val size: Int
+        get() = lock.read { documentIds.size }
+
+    init {
+        database.addListener(this)
+    }
+
+    /**
+     * (Re)builds the index from all the records of the database.
+     *
+     * The changes made in the meantime are applied after the index is built.
+     */
+    fun build() {
+        lock.write {
+            val start = System.currentTimeMillis()
+            clear()
+            database.useRecords { it.forEach(::add) }
+            isBuilt = true
+            logger.debug(
+                "Search index built for {} records, {} trigrams in {} ms",
+                documentIds.size, postings.size, System.currentTimeMillis() - start
+            )
+        }
+    }
+
+    /**
+     * Finds the indexed records having a value that matches the given [text].
+     *
+     * @param mode how the values should be matched against the text
+     * @param ignoreCase `true` if the case of the characters should be ignored
+     */
+    fun search(text: String, mode: MatchMode, ignoreCase: Boolean): List<Record> =
+        lock.read {
+            val result = ArrayList<Record>()
+            if (text.length < TRIGRAM_LENGTH) {
+                for (documentId in 0 until documentsEnd)
+                    documents[documentId]?.takeIf { it.matches(text, mode, ignoreCase) }?.let { result.add(it.record) }
+            } else {
+                val candidates = candidates(text)
+                for (documentId in candidates)
+                    documents[documentId]!!.takeIf { it.matches(text, mode, ignoreCase) }?.let { result.add(it.record) }
+            }
+            result
+        }
+
+    override fun onChange(event: DatabaseChangeEvent) {
+        lock.write {
+            // the records changed before the build are read by the build anyway
+            if (!isBuilt) return
+            when (event.type) {
+                DatabaseChangeType.INSERT, DatabaseChangeType.UPDATE -> event.records.forEach(::add)
+                DatabaseChangeType.DELETE -> event.records.forEach(::remove)
+            }
+            compactIfNeeded()
+        }
+    }
+
+    /**
+     * Stops listening to the database and releases the index.
+     */
+    override fun close() {
+        database.removeListener(this)
+        lock.write {
+            clear()
+            isBuilt = false
+        }
+    }
+
+    /**
+     * Gives the (sorted) ids of the documents having all the trigrams of the text.
+     */
+    private fun candidates(text: String): IntArray {
+        val lists = ArrayList<PostingList>()
+        forEachTrigram(text) { trigram ->
+            lists.add(postings[trigram] ?: return IntArray(0))
+        }
+        lists.sortBy(PostingList::size)
+
+        val candidates = lists[0].toIntArray()
+        var count = candidates.size
+        for (i in 1 until lists.size) {
+            if (count == 0) break
+            count = lists[i].retainIn(candidates, count)
+        }
+        return candidates.copyOf(count)
+    }
+
+    private fun add(record: Record) {
+        val id = record.id ?: return
+        removeDocument(id)
+        val documentId = documentsEnd++
+        if (documentId == documents.size)
+            documents = documents.copyOf(documents.size * 2)
+        Document(record, record.values()).also { document ->
+            documents[documentId] = document
+            document.values.forEach { value ->
+                forEachTrigram(value) { postings.getOrPut(it, ::PostingList).add(documentId) }
+            }
+        }
+        documentIds[id] = documentId
+    }
+
+    private fun remove(record: Record) {
+        record.id?.let(::removeDocument)
+    }
+
+    private fun removeDocument(id: Long) {
+        val documentId = documentIds.remove(id) ?: return
+        documents[documentId]!!.values.forEach { value ->
+            forEachTrigram(value) { trigram ->
+                postings[trigram]?.let {
+                    it.remove(documentId)
+                    if (it.isEmpty()) postings.remove(trigram)
+                }
+            }
+        }
+        documents[documentId] = null
+        removedDocuments++
+    }
+
+    /**
+     * Re-numbers the documents if most of the document ids are taken by removed (or updated) records,
+     * so the document array doesn't grow endlessly.
+     */
+    private fun compactIfNeeded() {
+        if (removedDocuments < COMPACTION_THRESHOLD || removedDocuments < documentIds.size) return
+        val records = (0 until documentsEnd).mapNotNull { documents[it]?.record }
+        clear()
+        records.forEach(::add)
+    }
+
+    private fun clear() {
+        documents = arrayOfNulls(INITIAL_CAPACITY)
+        documentsEnd = 0
+        removedDocuments = 0
+        documentIds.clear()
+        postings.clear()
+    }
+
+    /**
+     * Defines how a record value is matched against the searched text
+     */
+    enum class MatchMode {
+
+        /**
+         * The value contains the text
+         */
+        CONTAINS {
+            override fun matches(value: String, text: String, ignoreCase: Boolean) =
+                value.contains(text, ignoreCase)
+        },
+
+        /**
+         * The value starts with the text
+         */
+        PREFIX {
+            override fun matches(value: String, text: String, ignoreCase: Boolean) =
+                value.startsWith(text, ignoreCase)
+        },
+
+        /**
+         * The value equals to the text
+         */
+        EXACT {
+            override fun matches(value: String, text: String, ignoreCase: Boolean) =
+                value.equals(text, ignoreCase)
+        };
+
+        internal abstract fun matches(value: String, text: String, ignoreCase: Boolean): Boolean
+    }
+
+    /**
+     * An indexed record with the values it was indexed by
+     */
+    private class Document(val record: Record, val values: List<String>) {
+        fun matches(text: String, mode: MatchMode, ignoreCase: Boolean) =
+            values.any { mode.matches(it, text, ignoreCase) }
+    }
+
+    private companion object {
+
+        val logger = LoggerFactory.getLogger(RecordSearchIndex::class.java)
+
+        const val TRIGRAM_LENGTH = 3
+        const val INITIAL_CAPACITY = 256
+        const val COMPACTION_THRESHOLD = 1024
+
+        /**
+         * Folds the case of the character the same way as the case-insensitive comparison
+         * of [String.contains] does, so the index gives a superset of the matching records
+         * regardless of the case sensitivity of the search.
+         */
+        fun fold(char: Char): Long = Character.toLowerCase(Character.toUpperCase(char)).code.toLong()
+
+        inline fun forEachTrigram(value: String, action: (Long) -> Unit) {
+            for (i in 0..value.length - TRIGRAM_LENGTH)
+                action((fold(value[i]) shl 32) or (fold(value[i + 1]) shl 16) or fold(value[i + 2]))
+        }
+    }
+}
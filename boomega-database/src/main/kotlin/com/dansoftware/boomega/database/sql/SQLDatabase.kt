@@ -24,6 +24,9 @@ import org.hibernate.Session
 import org.hibernate.boot.Metadata
 import org.hibernate.boot.MetadataSources
 import org.hibernate.boot.registry.StandardServiceRegistryBuilder
+import org.hibernate.dialect.Dialect
+import org.hibernate.engine.spi.SessionFactoryImplementor
+import org.hibernate.mapping.Column
 import org.hibernate.service.ServiceRegistry
 import javax.persistence.criteria.CriteriaQuery
 
@@ -40,7 +43,7 @@ class SQLDatabase(
     private val listeners: MutableSet<DatabaseChangeListener> = HashSet()
 
     private val serviceRegistry: ServiceRegistry = StandardServiceRegistryBuilder()
-        .applySettings(hibernateOptions)
+        .applySettings(DEFAULT_OPTIONS + hibernateOptions)
         .build()
 
     private val metadata: Metadata = MetadataSources(serviceRegistry)
@@ -49,19 +52,78 @@ class SQLDatabase(
 
     private val sessionFactory = metadata.buildSessionFactory()
 
+    private val dialect: Dialect = (sessionFactory as SessionFactoryImplementor).jdbcServices.dialect
+
+    /**
+     * The table and the key column holding the authors of the records
+     * (they have to be deleted manually before bulk-deleting the records)
+     */
+    private val authorsTable: Pair<String, String> =
+        metadata.getCollectionBinding("${SQLRecord::class.java.name}.authors").let { binding ->
+            binding.collectionTable.quotedName to (binding.key.columnIterator.next() as Column).quotedName
+        }
+
     override val records: List<Record>
         get() {
             return transaction { session ->
-                val cq: CriteriaQuery<SQLRecord> = session.criteriaBuilder
-                    .createQuery(SQLRecord::class.java)
-                val query: CriteriaQuery<SQLRecord> = cq.select(cq.from(SQLRecord::class.java))
-                session.createQuery(query).resultList.map { it.toBaseRecord() }
+                session.createQuery(selectAllQuery(session)).resultList.map { it.toBaseRecord() }
             }
         }
 
+    override fun records(offset: Int, limit: Int): List<Record> {
+        return transaction { session ->
+            session.createQuery(selectAllQuery(session))
+                .setFirstResult(offset)
+                .setMaxResults(limit)
+                .resultList.map { it.toBaseRecord() }
+        }
+    }
+
+    override fun openCursor(): RecordCursor {
+        val session = sessionFactory.openSession()
+        return try {
+            SQLRecordCursor(session, selectAllQuery(session))
+        } catch (e: RuntimeException) {
+            session.close()
+            throw e
+        }
+    }
+
+    override fun find(query: RecordQuery): List<Record> = transaction { session ->
+        val sqlQuery = SQLRecordQuery(query, session.criteriaBuilder, dialect)
+        val typedQuery = session.createQuery(sqlQuery.criteriaQuery)
+        when {
+            query.limit == 0 -> emptyList()
+            sqlQuery.residualPredicates.isEmpty() -> {
+                typedQuery.firstResult = query.offset
+                query.limit?.let { typedQuery.maxResults = it }
+                typedQuery.resultList.map { it.toBaseRecord() }
+            }
+            else -> query.page(
+                typedQuery.resultList.asSequence()
+                    .map { it.toBaseRecord() }
+                    .filter { record -> sqlQuery.residualPredicates.all { it.test(record) } }
+            )
+        }
+    }
+
+    override fun findByIds(ids: Collection<Long>): List<Record> = transaction { session ->
+        session.byMultipleIds(SQLRecord::class.java)
+            .multiLoad(ids.toList())
+            .filterNotNull()
+            .map { it.toBaseRecord() }
+    }
+
+    /**
+     * Any sort keys are translated into the ORDER BY clause.
+     */
+    override fun canSortBy(sortKeys: List<RecordQuery.SortKey>): Boolean = true
+
     override val totalRecordCount: Int
         get() = transaction { session ->
-            session.createQuery("SELECT COUNT(*) FROM BoomegaRecords;").singleResult as Int
+            val cb = session.criteriaBuilder
+            val cq: CriteriaQuery<Long> = cb.createQuery(Long::class.javaObjectType)
+            session.createQuery(cq.select(cb.count(cq.from(SQLRecord::class.java)))).singleResult.toInt()
         }
 
     override val isClosed: Boolean
@@ -82,15 +144,48 @@ class SQLDatabase(
     }
 
     override fun removeRecord(record: Record) {
-        transaction {
-            it.remove(SQLRecord(record))
-        }
-        notifyListeners(DatabaseChangeType.DELETE, listOf(record))
+        removeRecords(listOf(record), null)
     }
 
     override fun removeRecords(records: List<Record>) {
-        transaction {
-            records.forEach(::removeRecord)
+        removeRecords(records, null)
+    }
+
+    override fun insertRecords(records: List<Record>, progressListener: BatchProgressListener?) {
+        val sqlRecords = records.map(::SQLRecord)
+        transaction { session ->
+            sqlRecords.forEachChunk(BATCH_SIZE, progressListener) { chunk ->
+                chunk.forEach(session::save)
+                session.flush()
+                session.clear()
+            }
+        }
+        records.forEachIndexed { index, record -> record.id = sqlRecords[index].id }
+        notifyListeners(DatabaseChangeType.INSERT, records.toList())
+    }
+
+    override fun updateRecords(records: List<Record>, progressListener: BatchProgressListener?) {
+        transaction { session ->
+            records.map(::SQLRecord).forEachChunk(BATCH_SIZE, progressListener) { chunk ->
+                chunk.forEach(session::update)
+                session.flush()
+                session.clear()
+            }
+        }
+        notifyListeners(DatabaseChangeType.UPDATE, records.toList())
+    }
+
+    override fun removeRecords(records: List<Record>, progressListener: BatchProgressListener?) {
+        val (collectionTable, keyColumn) = authorsTable
+        transaction { session ->
+            records.mapNotNull { it.id }.forEachChunk(BATCH_SIZE, progressListener) { ids ->
+                session.createNativeQuery("DELETE FROM $collectionTable WHERE $keyColumn IN (:ids)")
+                    .setParameterList("ids", ids)
+                    .executeUpdate()
+                session.createQuery("DELETE FROM SQLRecord WHERE id IN (:ids)")
+                    .setParameterList("ids", ids)
+                    .executeUpdate()
+            }
         }
         notifyListeners(DatabaseChangeType.DELETE, records.toList())
     }
@@ -112,6 +207,16 @@ class SQLDatabase(
         listeners.forEach { it.onChange(DatabaseChangeEvent(eventType, items)) }
     }
 
+    /**
+     * Builds a query that selects all the records ordered by their ids,
+     * so the results can be paged consistently.
+     */
+    private fun selectAllQuery(session: Session): CriteriaQuery<SQLRecord> {
+        val cq: CriteriaQuery<SQLRecord> = session.criteriaBuilder.createQuery(SQLRecord::class.java)
+        val root = cq.from(SQLRecord::class.java)
+        return cq.select(root).orderBy(session.criteriaBuilder.asc(root.get<Long>("id")))
+    }
+
     private inline fun <T> transaction(action: (Session) -> T): T {
         sessionFactory.openSession().use {
             with(it.beginTransaction()) {
@@ -121,4 +226,21 @@ class SQLDatabase(
             }
         }
     }
-}
\ No newline at end of file
+
+    private companion object {
+
+        /**
+         * The maximum number of records handled in one round-trip by a batch operation
+         */
+        const val BATCH_SIZE = 1000
+
+        /**
+         * Options enabling JDBC batching; can be overridden by the provider's options
+         */
+        val DEFAULT_OPTIONS = mapOf(
+            "hibernate.jdbc.batch_size" to "50",
+            "hibernate.order_inserts" to "true",
+            "hibernate.order_updates" to "true"
+        )
+    }
+}
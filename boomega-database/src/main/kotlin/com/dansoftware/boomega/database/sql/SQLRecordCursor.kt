@@ -0,0 +1,92 @@
+/*
+ * Boomega - A modern book explorer & catalog application
+ * Copyright (C) 2020-2022  Daniel Gyoerffy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.dansoftware.boomega.database.sql
+
+import com.dansoftware.boomega.database.api.RecordCursor
+import com.dansoftware.boomega.database.api.data.Record
+import org.hibernate.Hibernate
+import org.hibernate.ScrollMode
+import org.hibernate.ScrollableResults
+import org.hibernate.Session
+import org.hibernate.Transaction
+import javax.persistence.criteria.CriteriaQuery
+
+/**
+ * A [RecordCursor] implementation that scrolls through the results of a Hibernate query.
+ *
+ * The rows are fetched from the database server in chunks of [fetchSize], and the
+ * persistence-context of the session is cleared after each chunk, so the memory usage
+ * doesn't grow with the number of records iterated.
+ *
+ * The scrolling happens inside a transaction, so the connection (and the results it holds)
+ * is kept until the cursor is closed. Closing the cursor releases the [ScrollableResults]
+ * and the [Session] as well.
+ */
+internal class SQLRecordCursor(
+    private val session: Session,
+    query: CriteriaQuery<SQLRecord>,
+    private val fetchSize: Int = DEFAULT_FETCH_SIZE
+) : RecordCursor {
+
+    private val transaction: Transaction = session.beginTransaction()
+
+    private val results: ScrollableResults = session.createQuery(query)
+        .setReadOnly(true)
+        .setFetchSize(fetchSize)
+        .scroll(ScrollMode.FORWARD_ONLY)
+
+    private var nextRecord: Record? = null
+    private var fetchedCount = 0
+    private var isExhausted = false
+
+    override fun hasNext(): Boolean {
+        if (nextRecord == null && !isExhausted)
+            nextRecord = fetchNext()
+        return nextRecord != null
+    }
+
+    override fun next(): Record {
+        if (!hasNext()) throw NoSuchElementException()
+        return nextRecord!!.also { nextRecord = null }
+    }
+
+    private fun fetchNext(): Record? {
+        if (!results.next()) {
+            isExhausted = true
+            return null
+        }
+        val sqlRecord = results.get(0) as SQLRecord
+        // eager collections are not initialized automatically when scrolling
+        Hibernate.initialize(sqlRecord.authors)
+        val record = sqlRecord.toBaseRecord()
+        if (++fetchedCount % fetchSize == 0) session.clear()
+        return record
+    }
+
+    override fun close() {
+        session.use {
+            results.close()
+            transaction.commit()
+        }
+    }
+
+    private companion object {
+        const val DEFAULT_FETCH_SIZE = 500
+    }
+}
@@ -0,0 +1,148 @@
+/*
+ * Boomega - A modern book explorer & catalog application
+ * Copyright (C) 2020-2022  Daniel Gyoerffy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.dansoftware.boomega.database.sql
+
+import com.dansoftware.boomega.database.api.RecordPredicate
+import com.dansoftware.boomega.database.api.RecordQuery
+import com.dansoftware.boomega.database.api.data.RecordProperty
+import org.hibernate.dialect.Dialect
+import org.hibernate.dialect.MySQLDialect
+import javax.persistence.criteria.CriteriaBuilder
+import javax.persistence.criteria.CriteriaQuery
+import javax.persistence.criteria.Expression
+import javax.persistence.criteria.Order
+import javax.persistence.criteria.Predicate
+import javax.persistence.criteria.Root
+
+/**
+ * Translates a [RecordQuery] into a JPA [CriteriaQuery].
+ *
+ * Regular expressions can't be expressed in a portable way with JPA, so those predicates (along with
+ * the ones that can't be applied on the stored form of the property) are collected into the
+ * [residualPredicates]; they have to be evaluated in memory.
+ *
+ * The strings are ordered with the binary collation defined by [RecordQuery]: MySQL compares
+ * the `BINARY` form of the values, other databases (like H2) are expected to compare strings
+ * by their code points by default.
+ */
+internal class SQLRecordQuery(
+    query: RecordQuery,
+    private val cb: CriteriaBuilder,
+    private val dialect: Dialect
+) {
+
+    val criteriaQuery: CriteriaQuery<SQLRecord> = cb.createQuery(SQLRecord::class.java)
+
+    private val root: Root<SQLRecord> = criteriaQuery.from(SQLRecord::class.java)
+
+    val residualPredicates: List<RecordPredicate>
+
+    init {
+        val predicates = mutableListOf<Predicate>()
+        residualPredicates = query.predicates.filter { predicate ->
+            predicate.toPredicate()?.let(predicates::add) == null
+        }
+        criteriaQuery.select(root)
+            .where(*predicates.toTypedArray())
+            .orderBy(query.sortKeys.flatMap { it.toOrders() } + cb.asc(root.get<Long>(ID_FIELD)))
+    }
+
+    private fun RecordQuery.SortKey.toOrders(): List<Order> {
+        val path = root.get<Any>(property.id)
+        // null values come last regardless of the database's default null ordering
+        val nullsLast = cb.selectCase<Int>().`when`(cb.isNull(path), 1).otherwise(0)
+        val value = if (property.typeClassReference == String::class.java) binaryCollated(path) else path
+        return listOf(cb.asc(nullsLast), if (descending) cb.desc(value) else cb.asc(value))
+    }
+
+    private fun binaryCollated(path: Expression<*>): Expression<*> =
+        when (dialect) {
+            is MySQLDialect -> cb.function("BINARY", ByteArray::class.java, path)
+            else -> path
+        }
+
+    private fun RecordPredicate.toPredicate(): Predicate? = when (this) {
+        // a disjunction can be expressed in SQL only if all of its members can
+        is RecordPredicate.AnyOf -> cb.or(*predicates.map { it.toPredicate() ?: return null }.toTypedArray())
+        is RecordPredicate.PropertyPredicate -> toPredicate()
+    }
+
+    @Suppress("UNCHECKED_CAST")
+    private fun RecordPredicate.PropertyPredicate.toPredicate(): Predicate? {
+        if (property == RecordProperty.SERVICE_CONNECTION) return null
+        return when (this) {
+            is RecordPredicate.Contains -> when {
+                property.isTextual -> valuePredicate { cb.like(cased(it as Expression<String>, ignoreCase), likePattern(text, ignoreCase), ESCAPE_CHAR) }
+                // the string forms of the dates (ISO) and the locales (Locale.toString) are the same in the database
+                property in STRING_CONVERTIBLE_PROPERTIES -> valuePredicate {
+                    cb.like(cased(it.`as`(String::class.java), ignoreCase), likePattern(text, ignoreCase), ESCAPE_CHAR)
+                }
+                else -> null
+            }
+            is RecordPredicate.EqualTo -> valuePredicate { cb.equal(it, value) }
+            is RecordPredicate.InRange<*> -> valuePredicate { path ->
+                path as Expression<Comparable<Any>>
+                cb.and(*listOfNotNull(
+                    from?.let { cb.greaterThanOrEqualTo(path, it as Comparable<Any>) },
+                    to?.let { cb.lessThanOrEqualTo(path, it as Comparable<Any>) }
+                ).toTypedArray())
+            }
+            is RecordPredicate.Matches -> null
+        }
+    }
+
+    /**
+     * Builds the predicate for the property's value;
+     * in case of the authors, it's satisfied if any of the authors satisfies the condition.
+     */
+    private fun RecordPredicate.PropertyPredicate.valuePredicate(condition: (Expression<*>) -> Predicate): Predicate =
+        when (property) {
+            RecordProperty.AUTHORS -> {
+                val subquery = criteriaQuery.subquery(Long::class.javaObjectType)
+                val subRoot = subquery.from(SQLRecord::class.java)
+                subquery.select(subRoot.get(ID_FIELD)).where(condition(subRoot.join<SQLRecord, String>(property.id)))
+                root.get<Long>(ID_FIELD).`in`(subquery)
+            }
+            else -> condition(root.get<Any>(property.id))
+        }
+
+    private fun cased(expression: Expression<String>, ignoreCase: Boolean) =
+        if (ignoreCase) cb.lower(expression) else expression
+
+    private fun likePattern(text: String, ignoreCase: Boolean): String {
+        val escaped = text
+            .replace("$ESCAPE_CHAR", "$ESCAPE_CHAR$ESCAPE_CHAR")
+            .replace("%", "$ESCAPE_CHAR%")
+            .replace("_", "${ESCAPE_CHAR}_")
+        return "%${if (ignoreCase) escaped.lowercase() else escaped}%"
+    }
+
+    private val RecordProperty<*>.isTextual: Boolean
+        get() = typeClassReference == String::class.java || this == RecordProperty.AUTHORS
+
+    private companion object {
+        const val ID_FIELD = "id"
+        const val ESCAPE_CHAR = '\\'
+
+        /**
+         * The non-string properties that are converted to strings for a [RecordPredicate.Contains]
+         */
+        val STRING_CONVERTIBLE_PROPERTIES = setOf(RecordProperty.LANGUAGE, RecordProperty.PUBLISHED_DATE)
+    }
+}
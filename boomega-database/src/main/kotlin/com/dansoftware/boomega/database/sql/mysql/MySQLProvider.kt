@@ -112,7 +112,9 @@ object MySQLProvider : DatabaseProvider<MySQLMeta> {
                     "hibernate.hbm2ddl.auto" to "update",
                     "hibernate.connection.url" to "jdbc:mysql://${meta.uri}",
                     "hibernate.connection.username" to credentials[USERNAME_FIELD].toString(),
-                    "hibernate.connection.password" to credentials[PASSWORD_FIELD].toString()
+                    "hibernate.connection.password" to credentials[PASSWORD_FIELD].toString(),
+                    // allows the record cursors to fetch the rows in chunks instead of reading the whole result
+                    "hibernate.connection.useCursorFetch" to "true"
                 )
             )
         } catch(e: HibernateException) {
@@ -0,0 +1,430 @@
+/*
+ * Boomega - A modern book explorer & catalog application
+ * Copyright (C) 2020-2022  Daniel Gyoerffy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.dansoftware.boomega.database.api;
+
+import com.dansoftware.boomega.database.api.data.Record;
+import com.dansoftware.boomega.database.api.data.RecordProperty;
+import com.dansoftware.boomega.database.bmdb.BMDBDatabase;
+import com.dansoftware.boomega.database.bmdb.BMDBMeta;
+import com.dansoftware.boomega.database.sql.SQLDatabase;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Runs the same queries against every database implementation and compares the results
+ * with the in-memory evaluation of the query.
+ */
+public class RecordQueryTest {
+
+    @TempDir
+    Path tempDir;
+
+    private Database database;
+
+    @AfterEach
+    void close() {
+        if (database != null)
+            database.close();
+    }
+
+    @ParameterizedTest
+    @EnumSource(Backend.class)
+    void itShouldFilterByContainsIgnoringCase(Backend backend) {
+        //given
+        List<Record> records = open(backend);
+        RecordQuery query = new RecordQuery()
+                .where(new RecordPredicate.Contains(RecordProperty.PUBLISHER, "éditions"));
+
+        //when
+        List<Record> result = database.find(query);
+
+        //then
+        assertThat(result).containsExactlyInAnyOrderElementsOf(query.applyTo(records))
+                .extracting(Record::getPublisher)
+                .containsExactlyInAnyOrder("Éditions Nathan", "éditions Gallimard");
+    }
+
+    @ParameterizedTest
+    @EnumSource(Backend.class)
+    void itShouldFilterByContainsCaseSensitively(Backend backend) {
+        //given
+        List<Record> records = open(backend);
+        RecordQuery query = new RecordQuery()
+                .where(new RecordPredicate.Contains(RecordProperty.TITLE, "an", false));
+
+        //when
+        List<Record> result = database.find(query);
+
+        //then
+        assertThat(result).containsExactlyInAnyOrderElementsOf(query.applyTo(records))
+                .extracting(Record::getTitle)
+                .containsExactly("Banana");
+    }
+
+    @ParameterizedTest
+    @EnumSource(Backend.class)
+    void itShouldFilterByContainsOnTheAuthors(Backend backend) {
+        //given
+        List<Record> records = open(backend);
+        RecordQuery query = new RecordQuery()
+                .where(new RecordPredicate.Contains(RecordProperty.AUTHORS, "SMITH"));
+
+        //when
+        List<Record> result = database.find(query);
+
+        //then
+        assertThat(result).containsExactlyInAnyOrderElementsOf(query.applyTo(records)).hasSize(2);
+    }
+
+    @ParameterizedTest
+    @EnumSource(Backend.class)
+    void itShouldFilterByEqualTo(Backend backend) {
+        //given
+        List<Record> records = open(backend);
+        RecordQuery query = new RecordQuery()
+                .where(new RecordPredicate.EqualTo(RecordProperty.TYPE, Record.Type.MAGAZINE))
+                .where(new RecordPredicate.EqualTo(RecordProperty.RATING, 3));
+
+        //when
+        List<Record> result = database.find(query);
+
+        //then
+        assertThat(result).containsExactlyInAnyOrderElementsOf(query.applyTo(records))
+                .extracting(Record::getTitle)
+                .containsExactly("cherry");
+    }
+
+    @ParameterizedTest
+    @EnumSource(Backend.class)
+    void itShouldFilterByEqualToOnMultiWordValues(Backend backend) {
+        //given
+        List<Record> records = openWithMultiWordValues(backend);
+        RecordQuery byTitle = new RecordQuery()
+                .where(new RecordPredicate.EqualTo(RecordProperty.TITLE, "The Lord of the Rings"));
+        RecordQuery byNotes = new RecordQuery()
+                .where(new RecordPredicate.EqualTo(RecordProperty.NOTES, "Read it twice"));
+
+        //when
+        List<Record> titleResult = database.find(byTitle);
+        List<Record> notesResult = database.find(byNotes);
+
+        //then
+        assertThat(titleResult).containsExactlyInAnyOrderElementsOf(byTitle.applyTo(records))
+                .extracting(Record::getTitle)
+                .containsExactly("The Lord of the Rings");
+        assertThat(notesResult).containsExactlyInAnyOrderElementsOf(byNotes.applyTo(records))
+                .extracting(Record::getNotes)
+                .containsExactly("Read it twice");
+    }
+
+    @ParameterizedTest
+    @EnumSource(Backend.class)
+    void itShouldFilterByInRangeOnMultiWordValues(Backend backend) {
+        //given
+        List<Record> records = openWithMultiWordValues(backend);
+        RecordQuery byTitle = new RecordQuery()
+                .where(new RecordPredicate.InRange<>(RecordProperty.TITLE, "The Lord", "The Lord of the Rings"));
+        RecordQuery byNotes = new RecordQuery()
+                .where(new RecordPredicate.InRange<>(RecordProperty.NOTES, "Read", "Read it twice"));
+
+        //when
+        List<Record> titleResult = database.find(byTitle);
+        List<Record> notesResult = database.find(byNotes);
+
+        //then
+        assertThat(titleResult).containsExactlyInAnyOrderElementsOf(byTitle.applyTo(records))
+                .extracting(Record::getTitle)
+                .containsExactlyInAnyOrder("The Lord", "The Lord of the Rings");
+        assertThat(notesResult).containsExactlyInAnyOrderElementsOf(byNotes.applyTo(records))
+                .extracting(Record::getNotes)
+                .containsExactlyInAnyOrder("Read", "Read it twice");
+    }
+
+    @ParameterizedTest
+    @EnumSource(Backend.class)
+    void itShouldFilterByMatches(Backend backend) {
+        //given
+        List<Record> records = open(backend);
+        RecordQuery query = new RecordQuery()
+                .where(new RecordPredicate.Matches(RecordProperty.TITLE, "^[a-c]"));
+
+        //when
+        List<Record> result = database.find(query);
+
+        //then
+        assertThat(result).containsExactlyInAnyOrderElementsOf(query.applyTo(records))
+                .extracting(Record::getTitle)
+                .containsExactlyInAnyOrder("apple", "cherry");
+    }
+
+    @ParameterizedTest
+    @EnumSource(Backend.class)
+    void itShouldFilterByInRange(Backend backend) {
+        //given
+        List<Record> records = open(backend);
+        RecordQuery query = new RecordQuery()
+                .where(new RecordPredicate.InRange<>(RecordProperty.PUBLISHED_DATE, LocalDate.of(2000, 1, 1), LocalDate.of(2010, 12, 31)))
+                .where(new RecordPredicate.InRange<>(RecordProperty.RATING, 2, null));
+
+        //when
+        List<Record> result = database.find(query);
+
+        //then
+        assertThat(result).containsExactlyInAnyOrderElementsOf(query.applyTo(records))
+                .extracting(Record::getTitle)
+                .containsExactlyInAnyOrder("Banana", "cherry");
+    }
+
+    @ParameterizedTest
+    @EnumSource(Backend.class)
+    void itShouldFilterByAnyOf(Backend backend) {
+        //given
+        List<Record> records = open(backend);
+        RecordQuery query = new RecordQuery()
+                .where(new RecordPredicate.AnyOf(
+                        new RecordPredicate.Contains(RecordProperty.TITLE, "zeb"),
+                        new RecordPredicate.EqualTo(RecordProperty.RATING, 5),
+                        new RecordPredicate.Contains(RecordProperty.PUBLISHED_DATE, "2008")
+                ));
+
+        //when
+        List<Record> result = database.find(query);
+
+        //then
+        assertThat(result).containsExactlyInAnyOrderElementsOf(query.applyTo(records))
+                .extracting(Record::getTitle)
+                .containsExactlyInAnyOrder("Zebra", "Éclair", "cherry");
+    }
+
+    @ParameterizedTest
+    @EnumSource(Backend.class)
+    void itShouldFilterByAnyOfWithPredicatesEvaluatedInMemory(Backend backend) {
+        //given
+        List<Record> records = open(backend);
+        RecordQuery query = new RecordQuery()
+                .where(new RecordPredicate.AnyOf(
+                        new RecordPredicate.Matches(RecordProperty.TITLE, "^a"),
+                        new RecordPredicate.EqualTo(RecordProperty.RATING, 5)
+                ))
+                .where(new RecordPredicate.EqualTo(RecordProperty.TYPE, Record.Type.BOOK));
+
+        //when
+        List<Record> result = database.find(query);
+
+        //then
+        assertThat(result).containsExactlyInAnyOrderElementsOf(query.applyTo(records))
+                .extracting(Record::getTitle)
+                .containsExactlyInAnyOrder("apple", "Éclair");
+    }
+
+    @ParameterizedTest
+    @EnumSource(Backend.class)
+    void itShouldFilterByContainsOnTheLanguage(Backend backend) {
+        //given
+        List<Record> records = open(backend);
+        Record hungarian = record(Record.Type.BOOK, "Alma", null, null, null);
+        hungarian.setLanguage(new Locale("hu"));
+        Record english = record(Record.Type.BOOK, "Apple", null, null, null);
+        english.setLanguage(Locale.US);
+        database.insertRecords(List.of(hungarian, english), null);
+        records.addAll(List.of(hungarian, english));
+        RecordQuery query = new RecordQuery()
+                .where(new RecordPredicate.AnyOf(
+                        new RecordPredicate.Contains(RecordProperty.LANGUAGE, "HU"),
+                        new RecordPredicate.Contains(RecordProperty.LANGUAGE, "US", false)
+                ));
+
+        //when
+        List<Record> result = database.find(query);
+
+        //then
+        assertThat(result).containsExactlyInAnyOrderElementsOf(query.applyTo(records))
+                .extracting(Record::getTitle)
+                .containsExactlyInAnyOrder("Alma", "Apple");
+    }
+
+    @ParameterizedTest
+    @EnumSource(Backend.class)
+    void itShouldSortStringsByTheBinaryCollation(Backend backend) {
+        //given
+        List<Record> records = open(backend);
+        RecordQuery query = new RecordQuery().sortBy(RecordProperty.TITLE);
+
+        //when
+        List<Record> result = database.find(query);
+
+        //then
+        assertThat(result).extracting(Record::getTitle)
+                .containsExactly("Banana", "Zebra", "apple", "cherry", "Éclair", null)
+                .containsExactlyElementsOf(titlesOf(query.applyTo(records)));
+    }
+
+    @ParameterizedTest
+    @EnumSource(Backend.class)
+    void itShouldSortDescendingWithNullsLast(Backend backend) {
+        //given
+        List<Record> records = open(backend);
+        RecordQuery query = new RecordQuery().sortBy(RecordProperty.RATING, true);
+
+        //when
+        List<Record> result = database.find(query);
+
+        //then
+        assertThat(result).extracting(Record::getRating)
+                .containsExactly(5, 3, 3, 2, 1, null)
+                .containsExactlyElementsOf(valuesOf(query.applyTo(records), Record::getRating));
+    }
+
+    @ParameterizedTest
+    @EnumSource(Backend.class)
+    void itShouldSortByMultipleKeys(Backend backend) {
+        //given
+        List<Record> records = open(backend);
+        RecordQuery query = new RecordQuery()
+                .sortBy(RecordProperty.TYPE)
+                .sortBy(RecordProperty.PUBLISHED_DATE, true);
+
+        //when
+        List<Record> result = database.find(query);
+
+        //then
+        assertThat(valuesOf(result, it -> it.getType() + " " + it.getPublishedDate()))
+                .containsExactlyElementsOf(valuesOf(query.applyTo(records), it -> it.getType() + " " + it.getPublishedDate()));
+        assertThat(result).extracting(Record::getTitle).startsWith("Zebra", "Éclair");
+    }
+
+    @ParameterizedTest
+    @EnumSource(Backend.class)
+    void itShouldPageFilteredAndSortedRecords(Backend backend) {
+        //given
+        List<Record> records = open(backend);
+        RecordQuery query = new RecordQuery()
+                .where(new RecordPredicate.InRange<>(RecordProperty.RATING, 1, 5))
+                .sortBy(RecordProperty.TITLE)
+                .offset(1)
+                .limit(2);
+
+        //when
+        List<Record> result = database.find(query);
+
+        //then
+        assertThat(result).extracting(Record::getTitle)
+                .containsExactly("apple", "cherry")
+                .containsExactlyElementsOf(titlesOf(query.applyTo(records)));
+    }
+
+    private List<Record> open(Backend backend) {
+        database = backend.open(tempDir);
+        List<Record> records = testRecords();
+        database.insertRecords(records, null);
+        return records;
+    }
+
+    /**
+     * Opens the database with the test records and some records having multi-word titles and notes
+     * (those are full-text indexed in BMDB databases)
+     */
+    private List<Record> openWithMultiWordValues(Backend backend) {
+        List<Record> records = open(backend);
+        Record lord = record(Record.Type.BOOK, "The Lord of the Rings", null, null, null);
+        lord.setNotes("Read it twice");
+        Record shortLord = record(Record.Type.BOOK, "The Lord", null, null, null);
+        shortLord.setNotes("read");
+        Record rings = record(Record.Type.BOOK, "Rings", null, null, null);
+        rings.setNotes("Read");
+        List<Record> additional = List.of(lord, shortLord, rings);
+        database.insertRecords(additional, null);
+        records.addAll(additional);
+        return records;
+    }
+
+    private static List<Record> testRecords() {
+        return new ArrayList<>(List.of(
+                record(Record.Type.BOOK, "apple", "Éditions Nathan", LocalDate.of(1999, 5, 1), 1, "John Smith"),
+                record(Record.Type.BOOK, "Banana", "Penguin", LocalDate.of(2005, 2, 10), 3, "Jane Smith", "Bob Stone"),
+                record(Record.Type.MAGAZINE, "cherry", "éditions Gallimard", LocalDate.of(2008, 11, 3), 3),
+                record(Record.Type.BOOK, "Éclair", "penguin", LocalDate.of(2015, 7, 20), 5, "Émile Zola"),
+                record(Record.Type.BOOK, "Zebra", null, LocalDate.of(2020, 1, 1), null),
+                record(Record.Type.MAGAZINE, null, "Penguin", null, 2)
+        ));
+    }
+
+    private static Record record(Record.Type type, String title, String publisher, LocalDate publishedDate,
+                                 Integer rating, String... authors) {
+        Record record = new Record(type);
+        record.setTitle(title);
+        record.setPublisher(publisher);
+        record.setPublishedDate(publishedDate);
+        record.setRating(rating);
+        if (authors.length > 0)
+            record.setAuthors(Arrays.asList(authors));
+        return record;
+    }
+
+    private static List<String> titlesOf(List<Record> records) {
+        return valuesOf(records, Record::getTitle);
+    }
+
+    private static <T> List<T> valuesOf(List<Record> records, Function<Record, T> mapper) {
+        List<T> values = new ArrayList<>();
+        records.forEach(it -> values.add(mapper.apply(it)));
+        return values;
+    }
+
+    enum Backend {
+
+        BMDB {
+            @Override
+            Database open(Path dir) {
+                return new BMDBDatabase(null, null, new BMDBMeta(dir.resolve("test.bmdb").toFile()), false, 1024);
+            }
+        },
+
+        SQL {
+            @Override
+            Database open(Path dir) {
+                return new SQLDatabase(mock(DatabaseMeta.class), Map.of(
+                        "hibernate.connection.driver_class", "org.h2.Driver",
+                        "hibernate.dialect", "org.hibernate.dialect.H2Dialect",
+                        "hibernate.hbm2ddl.auto", "create-drop",
+                        "hibernate.connection.url", "jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1",
+                        "hibernate.connection.username", "sa",
+                        "hibernate.connection.password", ""
+                ));
+            }
+        };
+
+        abstract Database open(Path dir);
+    }
+}
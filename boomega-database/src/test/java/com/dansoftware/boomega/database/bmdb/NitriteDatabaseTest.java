@@ -18,10 +18,16 @@
 
 package com.dansoftware.boomega.database.bmdb;
 
+import com.dansoftware.boomega.database.api.DatabaseChangeEvent;
+import com.dansoftware.boomega.database.api.DatabaseChangeType;
 import com.dansoftware.boomega.database.api.DatabaseMeta;
+import com.dansoftware.boomega.database.api.RecordCursor;
 import com.dansoftware.boomega.database.api.data.Record;
+import org.dizitart.no2.FindOptions;
 import org.dizitart.no2.Nitrite;
+import org.dizitart.no2.NitriteId;
 import org.dizitart.no2.objects.Cursor;
+import org.dizitart.no2.objects.ObjectFilter;
 import org.dizitart.no2.objects.ObjectRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -29,26 +35,30 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 
-import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
 @ExtendWith(MockitoExtension.class)
 public class NitriteDatabaseTest {
 
     @Mock private Nitrite nitriteClient;
-    @Mock private ObjectRepository<Record> recordRepository;
+    @Mock private ObjectRepository<NitriteRecord> recordRepository;
     private NitriteDatabase underTest;
 
     @BeforeEach
     void initialize() {
-        given(nitriteClient.getRepository(any(), eq(Record.class))).willReturn(recordRepository);
+        given(nitriteClient.getRepository(any(), eq(NitriteRecord.class))).willReturn(recordRepository);
         underTest = new NitriteDatabase(nitriteClient, mock(DatabaseMeta.class));
     }
 
@@ -56,9 +66,8 @@ public class NitriteDatabaseTest {
     @Test
     void itShouldGetRecords() {
         //given
-        Cursor<Record> mockCursor = mock(Cursor.class);
-        List<Record> expected = Collections.emptyList();
-        given(mockCursor.toList()).willReturn(expected);
+        Cursor<NitriteRecord> mockCursor = mock(Cursor.class);
+        given(mockCursor.iterator()).willReturn(List.of(new NitriteRecord(new Record(Record.Type.BOOK))).iterator());
         given(recordRepository.find()).willReturn(mockCursor);
 
         //when
@@ -66,20 +75,80 @@ public class NitriteDatabaseTest {
 
         //then
         verify(recordRepository).find();
-        verify(mockCursor).toList();
-        assertThat(result == expected).isTrue();
+        assertThat(result).hasSize(1);
+        assertThat(result.get(0).getType()).isEqualTo(Record.Type.BOOK);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    void itShouldGetPageOfRecords() {
+        //given
+        Cursor<NitriteRecord> allCursor = mock(Cursor.class);
+        given(allCursor.totalCount()).willReturn(20);
+        given(recordRepository.find()).willReturn(allCursor);
+
+        Cursor<NitriteRecord> pageCursor = mock(Cursor.class);
+        given(pageCursor.iterator()).willReturn(Collections.emptyIterator());
+        given(recordRepository.find(any(FindOptions.class))).willReturn(pageCursor);
+
+        //when
+        List<Record> result = underTest.records(10, 5);
+
+        //then
+        verify(recordRepository).find(argThat((FindOptions it) -> it.getOffset() == 10 && it.getSize() == 5));
+        assertThat(result).isEmpty();
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    void itShouldNotQueryPageBeyondTheRecords() {
+        //given
+        Cursor<NitriteRecord> allCursor = mock(Cursor.class);
+        given(allCursor.totalCount()).willReturn(5);
+        given(recordRepository.find()).willReturn(allCursor);
+
+        //when
+        List<Record> result = underTest.records(10, 5);
+
+        //then
+        verify(recordRepository, never()).find(any(FindOptions.class));
+        assertThat(result).isEmpty();
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    void itShouldIterateRecordsThroughCursor() {
+        //given
+        Record record = new Record(Record.Type.MAGAZINE);
+        record.setId(1L);
+        Cursor<NitriteRecord> mockCursor = mock(Cursor.class);
+        given(mockCursor.iterator()).willReturn(List.of(new NitriteRecord(record)).iterator());
+        given(recordRepository.find()).willReturn(mockCursor);
+
+        //when
+        try (RecordCursor cursor = underTest.openCursor()) {
+            //then
+            assertThat(cursor.hasNext()).isTrue();
+            assertThat(cursor.next()).isEqualTo(record);
+            assertThat(cursor.hasNext()).isFalse();
+        }
     }
 
     @Test
     void itShouldInsertRecord() {
         //given
         Record record = new Record(Record.Type.BOOK);
+        given(recordRepository.insert(any(NitriteRecord.class))).willAnswer(invocation -> {
+            invocation.<NitriteRecord>getArgument(0).setId(NitriteId.createId(1L));
+            return null;
+        });
 
         //when
         underTest.insertRecord(record);
 
         //then
-        verify(recordRepository).insert(record);
+        verify(recordRepository).insert(new NitriteRecord(record));
+        assertThat(record.getId()).isEqualTo(1L);
     }
 
     @Test
@@ -91,7 +160,7 @@ public class NitriteDatabaseTest {
         underTest.updateRecord(record);
 
         //then
-        verify(recordRepository).update(record);
+        verify(recordRepository).update(new NitriteRecord(record));
     }
 
     @SuppressWarnings("unchecked")
@@ -104,14 +173,69 @@ public class NitriteDatabaseTest {
         underTest.removeRecord(record);
 
         //then
-        verify(recordRepository).remove(record);
+        verify(recordRepository).remove(new NitriteRecord(record));
+    }
+
+    @Test
+    void itShouldInsertRecordsInOneBatch() {
+        //given
+        List<Record> records = List.of(new Record(Record.Type.BOOK), new Record(Record.Type.MAGAZINE));
+        given(recordRepository.insert(any(NitriteRecord[].class))).willAnswer(invocation -> {
+            NitriteRecord[] nitriteRecords = invocation.getArgument(0);
+            for (int i = 0; i < nitriteRecords.length; i++)
+                nitriteRecords[i].setId(NitriteId.createId((long) i + 1));
+            return null;
+        });
+        List<DatabaseChangeEvent> events = new ArrayList<>();
+        underTest.addListener(events::add);
+
+        //when
+        underTest.insertRecords(records, null);
+
+        //then
+        verify(recordRepository).insert(any(NitriteRecord[].class));
+        verify(nitriteClient).commit();
+        assertThat(records).extracting(Record::getId).containsExactly(1L, 2L);
+        assertThat(events).hasSize(1);
+        assertThat(events.get(0).getType()).isEqualTo(DatabaseChangeType.INSERT);
+        assertThat(events.get(0).getRecords()).hasSize(2);
+    }
+
+    @Test
+    void itShouldReportBatchProgress() {
+        //given
+        List<Record> records = List.of(new Record(Record.Type.BOOK), new Record(Record.Type.BOOK));
+        List<Integer> progress = new ArrayList<>();
+
+        //when
+        underTest.updateRecords(records, (done, total) -> progress.add(done));
+
+        //then
+        verify(recordRepository, times(2)).update(any(NitriteRecord.class));
+        assertThat(progress).containsExactly(2);
+    }
+
+    @Test
+    void itShouldRemoveRecordsWithOneFilter() {
+        //given
+        Record first = new Record(Record.Type.BOOK);
+        first.setId(1L);
+        Record second = new Record(Record.Type.BOOK);
+        second.setId(2L);
+
+        //when
+        underTest.removeRecords(List.of(first, second));
+
+        //then
+        verify(recordRepository).remove(any(ObjectFilter.class));
+        verify(nitriteClient).commit();
     }
 
     @SuppressWarnings("unchecked")
     @Test
     void itShouldGetTotalCount() {
         //given
-        Cursor<Record> mockCursor = mock(Cursor.class);
+        Cursor<NitriteRecord> mockCursor = mock(Cursor.class);
         given(recordRepository.find()).willReturn(mockCursor);
 
         //when
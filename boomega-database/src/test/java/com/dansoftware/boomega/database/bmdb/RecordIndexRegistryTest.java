@@ -0,0 +1,117 @@
+/*
+ * Boomega - A modern book explorer & catalog application
+ * Copyright (C) 2020-2022  Daniel Gyoerffy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.dansoftware.boomega.database.bmdb;
+
+import com.dansoftware.boomega.database.api.data.Record;
+import org.dizitart.no2.Document;
+import org.dizitart.no2.Index;
+import org.dizitart.no2.IndexOptions;
+import org.dizitart.no2.IndexType;
+import org.dizitart.no2.Nitrite;
+import org.dizitart.no2.NitriteCollection;
+import org.dizitart.no2.filters.Filters;
+import org.dizitart.no2.objects.ObjectRepository;
+import org.dizitart.no2.objects.filters.ObjectFilters;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class RecordIndexRegistryTest {
+
+    private static final String META_COLLECTION = "BoomegaMeta";
+    private static final String VERSION_KEY = "recordIndexVersion";
+
+    private Nitrite nitrite;
+    private ObjectRepository<NitriteRecord> repository;
+
+    @BeforeEach
+    void open() {
+        nitrite = Nitrite.builder().openOrCreate();
+        repository = nitrite.getRepository(NitriteDatabase.REPOSITORY_KEY, NitriteRecord.class);
+    }
+
+    @AfterEach
+    void close() {
+        nitrite.close();
+    }
+
+    @Test
+    void itShouldCreateTheIndexesOfANewDatabase() {
+        //when
+        RecordIndexRegistry.INSTANCE.upgrade(nitrite);
+
+        //then
+        assertThat(indexes()).containsAllEntriesOf(RecordIndexRegistry.INSTANCE.getDefinitions());
+        assertThat(storedVersion()).isEqualTo(RecordIndexRegistry.VERSION);
+    }
+
+    @Test
+    void itShouldRebuildTheIndexesIfTheStoredVersionIsOutdated() {
+        //given
+        Record record = new Record(Record.Type.BOOK);
+        record.setTitle("The Lord of the Rings");
+        repository.insert(new NitriteRecord(record));
+        repository.createIndex("title", IndexOptions.indexOptions(IndexType.NonUnique));
+        repository.createIndex("rating", IndexOptions.indexOptions(IndexType.NonUnique));
+        meta().insert(Document.createDocument("key", VERSION_KEY).put("value", RecordIndexRegistry.VERSION - 1));
+
+        //when
+        RecordIndexRegistry.INSTANCE.upgrade(nitrite);
+
+        //then
+        assertThat(indexes())
+                .containsEntry("title", IndexType.Fulltext)
+                .containsEntry("notes", IndexType.Fulltext)
+                .doesNotContainKey("rating");
+        assertThat(repository.find(ObjectFilters.text("title", "lord")).totalCount()).isEqualTo(1);
+        assertThat(storedVersion()).isEqualTo(RecordIndexRegistry.VERSION);
+    }
+
+    @Test
+    void itShouldNotTouchTheIndexesIfTheStoredVersionIsCurrent() {
+        //given
+        repository.createIndex("rating", IndexOptions.indexOptions(IndexType.NonUnique));
+        meta().insert(Document.createDocument("key", VERSION_KEY).put("value", RecordIndexRegistry.VERSION));
+
+        //when
+        RecordIndexRegistry.INSTANCE.upgrade(nitrite);
+
+        //then
+        assertThat(indexes()).containsOnlyKeys("rating");
+    }
+
+    private Map<String, IndexType> indexes() {
+        return repository.listIndices().stream()
+                .filter(it -> !it.getField().equals("id"))
+                .collect(Collectors.toMap(Index::getField, Index::getIndexType));
+    }
+
+    private NitriteCollection meta() {
+        return nitrite.getCollection(META_COLLECTION);
+    }
+
+    private Object storedVersion() {
+        return meta().find(Filters.eq("key", VERSION_KEY)).firstOrDefault().get("value");
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * Boomega - A modern book explorer & catalog application
+ * Copyright (C) 2020-2022  Daniel Gyoerffy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.dansoftware.boomega.database.search;
+
+import com.dansoftware.boomega.database.api.Database;
+import com.dansoftware.boomega.database.api.DatabaseChangeEvent;
+import com.dansoftware.boomega.database.api.DatabaseChangeType;
+import com.dansoftware.boomega.database.api.RecordCursor;
+import com.dansoftware.boomega.database.api.data.Record;
+import com.dansoftware.boomega.database.search.RecordSearchIndex.MatchMode;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+public class RecordSearchIndexTest {
+
+    @Mock private Database database;
+    private RecordSearchIndex underTest;
+
+    private final Record hobbit = record(1L, "The Hobbit", "Allen & Unwin");
+    private final Record dune = record(2L, "Dune", "Chilton Books");
+
+    @BeforeEach
+    void initialize() {
+        given(database.openCursor()).willReturn(RecordCursor.of(List.of(hobbit, dune)));
+        underTest = new RecordSearchIndex(database);
+        underTest.build();
+    }
+
+    @Test
+    void itShouldRegisterAsListener() {
+        verify(database).addListener(underTest);
+        assertThat(underTest.isBuilt()).isTrue();
+        assertThat(underTest.getSize()).isEqualTo(2);
+    }
+
+    @Test
+    void itShouldFindContainedText() {
+        assertThat(underTest.search("HOBB", MatchMode.CONTAINS, true)).containsExactly(hobbit);
+        assertThat(underTest.search("HOBB", MatchMode.CONTAINS, false)).isEmpty();
+        assertThat(underTest.search("books", MatchMode.CONTAINS, true)).containsExactly(dune);
+        assertThat(underTest.search("xyz", MatchMode.CONTAINS, true)).isEmpty();
+    }
+
+    @Test
+    void itShouldFindShortText() {
+        assertThat(underTest.search("un", MatchMode.CONTAINS, true)).containsExactly(hobbit, dune);
+        assertThat(underTest.search("", MatchMode.CONTAINS, true)).containsExactly(hobbit, dune);
+    }
+
+    @Test
+    void itShouldFindByPrefixAndExactValue() {
+        assertThat(underTest.search("the h", MatchMode.PREFIX, true)).containsExactly(hobbit);
+        assertThat(underTest.search("Hobbit", MatchMode.PREFIX, true)).isEmpty();
+        assertThat(underTest.search("dune", MatchMode.EXACT, true)).containsExactly(dune);
+        assertThat(underTest.search("dun", MatchMode.EXACT, true)).isEmpty();
+    }
+
+    @Test
+    void itShouldFollowDatabaseChanges() {
+        //given
+        Record silmarillion = record(3L, "The Silmarillion", "Allen & Unwin");
+        dune.setTitle("Dune Messiah");
+
+        //when
+        underTest.onChange(new DatabaseChangeEvent(DatabaseChangeType.INSERT, List.of(silmarillion)));
+        underTest.onChange(new DatabaseChangeEvent(DatabaseChangeType.UPDATE, List.of(dune)));
+        underTest.onChange(new DatabaseChangeEvent(DatabaseChangeType.DELETE, List.of(hobbit)));
+
+        //then
+        assertThat(underTest.search("unwin", MatchMode.CONTAINS, true)).containsExactly(silmarillion);
+        assertThat(underTest.search("messiah", MatchMode.CONTAINS, true)).containsExactly(dune);
+        assertThat(underTest.getSize()).isEqualTo(2);
+    }
+
+    @Test
+    void itShouldDetachOnClose() {
+        //when
+        underTest.close();
+
+        //then
+        verify(database).removeListener(underTest);
+        assertThat(underTest.isBuilt()).isFalse();
+    }
+
+    private static Record record(long id, String title, String publisher) {
+        Record record = new Record(Record.Type.BOOK);
+        record.setId(id);
+        record.setTitle(title);
+        record.setPublisher(publisher);
+        return record;
+    }
+}
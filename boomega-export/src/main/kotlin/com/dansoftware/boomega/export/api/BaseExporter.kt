@@ -19,22 +19,84 @@
 package com.dansoftware.boomega.export.api
 
 import com.dansoftware.boomega.database.api.data.Record
-import com.dansoftware.boomega.i18n.api.I18N
+import com.dansoftware.boomega.database.api.data.RecordProperty
+import com.dansoftware.boomega.i18n.api.CollationKeyCache
+import java.io.OutputStream
+import java.util.*
+
 @RecordExportAPI
 abstract class BaseExporter<C : RecordExportConfiguration> : RecordExporter<C> {
+
+    override fun write(items: List<Record>, output: OutputStream, config: C, observer: ExportProcessObserver) {
+        write(RecordSource.of(items), output, config, observer)
+    }
+
+    /**
+     * Passes the records of the given source, sorted and reversed as the configuration requires,
+     * to the given [action] as a lazy [Sequence].
+     *
+     * If the records don't fit into the memory, they are sorted with an external merge-sort
+     * through temporary files.
+     */
+    protected fun <R> useSortedRecords(source: RecordSource, config: C, action: (Sequence<Record>) -> R): R {
+        val field = config.fieldToSortBy
+        if (field == null && !config.reverseItems)
+            return source.useRecords(action)
+
+        val collationKeys = CollationKeyCache.of(config.sortingAbc)
+        val isString = field?.typeClassReference == String::class.java
+        val sorter = ExternalRecordSorter(
+            sortChunk = { sortRecords(it, config) },
+            keyOf = { record ->
+                field?.getValue(record).let { if (isString) collationKeys.computeKey(it as String?) else it }
+            },
+            reverse = config.reverseItems
+        )
+        return sorter.use { action(source.useRecords(it::sort)) }
+    }
+
     protected fun sortRecords(items: List<Record>, config: C): List<Record> {
         val sortedItems = config.fieldToSortBy?.let { field ->
-            val abcCollator = I18N.getABCCollator(config.sortingAbc).orElse(null)
-            @Suppress("UNCHECKED_CAST")
-            items.sortedWith { o1, o2 ->
-                val o1Value = field.getValue(o1)
-                val o2Value = field.getValue(o2)
-
-                if ((o1Value is String || o2Value is String) && abcCollator != null)
-                    abcCollator.compare(o1Value, o2Value)
-                else o2Value?.let { (o1Value as? Comparable<Comparable<*>>)?.compareTo(it) } ?: 0
-            }
+            sortRecords(items, field, CollationKeyCache.of(config.sortingAbc))
         } ?: items
         return if (config.reverseItems) sortedItems.asReversed() else sortedItems
     }
-}
\ No newline at end of file
+
+    /**
+     * Sorts the records by the sort-keys of their values computed once per sort,
+     * so the collation keys of the strings are not computed on every comparison.
+     */
+    private fun sortRecords(
+        items: List<Record>,
+        field: RecordProperty<Comparable<*>>,
+        collationKeys: CollationKeyCache
+    ): List<Record> {
+        val isString = field.typeClassReference == String::class.java
+        val entries = Array(items.size) {
+            val value = field.getValue(items[it])
+            SortEntry(items[it], if (isString) collationKeys.computeKey(value as String?) else value)
+        }
+        if (entries.size >= PARALLEL_SORT_THRESHOLD)
+            Arrays.parallelSort(entries)
+        else
+            Arrays.sort(entries)
+        return entries.map(SortEntry::record)
+    }
+
+    /**
+     * A record with its sort-key; the records without a value come last
+     */
+    private class SortEntry(val record: Record, val key: Comparable<*>?) : Comparable<SortEntry> {
+        @Suppress("UNCHECKED_CAST")
+        override fun compareTo(other: SortEntry): Int =
+            nullsLast<Comparable<Any>>().compare(key as Comparable<Any>?, other.key as Comparable<Any>?)
+    }
+
+    private companion object {
+
+        /**
+         * The minimum count of records that are sorted in parallel
+         */
+        const val PARALLEL_SORT_THRESHOLD = 10_000
+    }
+}
@@ -26,4 +26,18 @@ interface ExportProcessObserver {
     fun updateMessage(message: String?)
     fun updateProgress(workDone: Double, max: Double)
     fun updateTitle(title: String?)
+
+    /**
+     * Gives `true` if the export should be stopped as soon as possible
+     */
+    val isCancelled: Boolean get() = false
+
+    /**
+     * Receives the statistics of the running export.
+     *
+     * @param rowsWritten the count of the records written so far
+     * @param bytesWritten the count of the bytes written into the output so far
+     * @param rowsPerSecond the average count of records written per second
+     */
+    fun updateStatistics(rowsWritten: Long, bytesWritten: Long, rowsPerSecond: Double) {}
 }
\ No newline at end of file
@@ -0,0 +1,115 @@
+/*
+ * Boomega - A modern book explorer & catalog application
+ * Copyright (C) 2020-2022  Daniel Gyoerffy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.dansoftware.boomega.export.api
+
+import java.io.FilterOutputStream
+import java.io.OutputStream
+import java.util.concurrent.CancellationException
+import java.util.concurrent.TimeUnit
+
+/**
+ * Tracks the progress of an export: counts the records and the bytes written, reports them
+ * to the [ExportProcessObserver] periodically and stops the export if it's cancelled.
+ *
+ * The exporter should write into the [output] of the progress (so the written bytes are counted)
+ * and call [rowWritten] after every record.
+ *
+ * @param output the output the exporter writes to
+ * @param totalRows the count of the records to be exported; `null` if it's unknown
+ */
+@RecordExportAPI
+class ExportProgress(
+    output: OutputStream,
+    private val totalRows: Int?,
+    private val observer: ExportProcessObserver
+) {
+
+    private val countingOutput = CountingOutputStream(output)
+
+    private val startTime = System.nanoTime()
+    private var lastReportTime = startTime
+
+    /**
+     * The output stream counting the bytes written into the original output
+     */
+    val output: OutputStream
+        get() = countingOutput
+
+    /**
+     * The count of the records written so far
+     */
+    var rowsWritten = 0L
+        private set
+
+    /**
+     * Registers a written record.
+     *
+     * @throws CancellationException if the export is cancelled
+     */
+    fun rowWritten() {
+        rowsWritten++
+        if (observer.isCancelled)
+            throw CancellationException("The export is cancelled")
+        val now = System.nanoTime()
+        if (now - lastReportTime >= REPORT_INTERVAL) {
+            lastReportTime = now
+            report(now)
+        }
+    }
+
+    /**
+     * Reports the final statistics; should be called when all the records are written
+     */
+    fun finish() {
+        report(System.nanoTime())
+        observer.updateProgress(1.0, 1.0)
+    }
+
+    private fun report(now: Long) {
+        val elapsedSeconds = (now - startTime) / TimeUnit.SECONDS.toNanos(1).toDouble()
+        val rowsPerSecond = if (elapsedSeconds > 0) rowsWritten / elapsedSeconds else 0.0
+        // -1 makes the progress indeterminate if the count of records is unknown
+        observer.updateProgress(rowsWritten.toDouble(), totalRows?.toDouble() ?: -1.0)
+        observer.updateStatistics(rowsWritten, countingOutput.count, rowsPerSecond)
+    }
+
+    private class CountingOutputStream(output: OutputStream) : FilterOutputStream(output) {
+
+        var count = 0L
+            private set
+
+        override fun write(b: Int) {
+            out.write(b)
+            count++
+        }
+
+        override fun write(b: ByteArray, off: Int, len: Int) {
+            out.write(b, off, len)
+            count += len
+        }
+    }
+
+    private companion object {
+
+        /**
+         * The minimum time (in nanoseconds) between two reports
+         */
+        val REPORT_INTERVAL = TimeUnit.MILLISECONDS.toNanos(250)
+    }
+}
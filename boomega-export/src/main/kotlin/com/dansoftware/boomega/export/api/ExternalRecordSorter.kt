@@ -0,0 +1,251 @@
+/*
+ * Boomega - A modern book explorer & catalog application
+ * Copyright (C) 2020-2022  Daniel Gyoerffy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.dansoftware.boomega.export.api
+
+import com.dansoftware.boomega.database.api.data.Record
+import com.dansoftware.boomega.database.api.data.ServiceConnection
+import java.io.*
+import java.nio.file.Files
+import java.nio.file.Path
+import java.time.LocalDate
+import java.util.*
+
+/**
+ * Sorts a sequence of [Record]s that might not fit into the memory.
+ *
+ * The records are read in chunks of [chunkSize]; if all of them fit into a single chunk, they
+ * are simply sorted in the memory. Otherwise, every sorted chunk is spilled into a temporary file
+ * and the files are merged when the sorted records are read.
+ *
+ * The temporary files are deleted when the sorter is closed, so the sequence given by [sort]
+ * should be consumed before that.
+ *
+ * @param sortChunk sorts a chunk of records (in a stable way)
+ * @param keyOf gives the sort-key of a record, consistent with [sortChunk]
+ * @param reverse `true` if [sortChunk] gives the records in reversed order
+ */
+internal class ExternalRecordSorter(
+    private val sortChunk: (List<Record>) -> List<Record>,
+    private val keyOf: (Record) -> Comparable<*>?,
+    private val reverse: Boolean,
+    private val chunkSize: Int = DEFAULT_CHUNK_SIZE
+) : Closeable {
+
+    private val runs = mutableListOf<Run>()
+
+    fun sort(records: Sequence<Record>): Sequence<Record> {
+        val iterator = records.iterator()
+        var chunk = readChunk(iterator)
+        if (!iterator.hasNext())
+            return sortChunk(chunk).asSequence()
+
+        while (chunk.isNotEmpty()) {
+            spill(sortChunk(chunk))
+            chunk = readChunk(iterator)
+        }
+        return merge()
+    }
+
+    private fun readChunk(iterator: Iterator<Record>): List<Record> {
+        val chunk = ArrayList<Record>(chunkSize)
+        while (chunk.size < chunkSize && iterator.hasNext())
+            chunk.add(iterator.next())
+        return chunk
+    }
+
+    private fun spill(sortedChunk: List<Record>) {
+        val file = Files.createTempFile("boomega-export", ".run")
+        runs.add(Run(runs.size, file, sortedChunk.size))
+        DataOutputStream(Files.newOutputStream(file).buffered()).use { output ->
+            sortedChunk.forEach { RecordCodec.write(output, it) }
+        }
+    }
+
+    private fun merge(): Sequence<Record> = sequence {
+        // the records with equal keys are taken from the earlier chunk first (or the later one if reversed)
+        @Suppress("UNCHECKED_CAST")
+        val comparator = compareBy<Run, Comparable<Any>?>(nullsLast<Comparable<Any>>()) { it.key as Comparable<Any>? }
+            .thenComparingInt(Run::index)
+            .let { if (reverse) it.reversed() else it }
+
+        val queue = PriorityQueue(runs.size, comparator)
+        runs.filter(Run::advance).forEach(queue::add)
+        while (queue.isNotEmpty()) {
+            val run = queue.poll()
+            yield(run.head!!)
+            if (run.advance()) queue.add(run)
+        }
+    }
+
+    override fun close() {
+        runs.forEach(Run::close)
+        runs.clear()
+    }
+
+    /**
+     * A sorted chunk of records spilled into a temporary file
+     */
+    private inner class Run(val index: Int, private val file: Path, private var remaining: Int) : Closeable {
+
+        private var input: DataInputStream? = null
+
+        var head: Record? = null
+            private set
+
+        var key: Comparable<*>? = null
+            private set
+
+        /**
+         * Reads the next record of the run.
+         *
+         * @return `false` if the run is exhausted
+         */
+        fun advance(): Boolean {
+            if (remaining == 0) {
+                head = null
+                return false
+            }
+            remaining--
+            val reader = input ?: DataInputStream(Files.newInputStream(file).buffered()).also { input = it }
+            head = RecordCodec.read(reader).also { key = keyOf(it) }
+            return true
+        }
+
+        override fun close() {
+            input?.close()
+            Files.deleteIfExists(file)
+        }
+    }
+
+    /**
+     * Writes and reads the [Record]s into/from the temporary files.
+     *
+     * The values of [ServiceConnection]s are preserved if they are strings, numbers or booleans,
+     * any other value is written as a string.
+     */
+    private object RecordCodec {
+
+        fun write(output: DataOutputStream, record: Record) {
+            output.writeNullable(record.id, DataOutputStream::writeLong)
+            output.writeByte(record.type.ordinal)
+            output.writeNullable(record.title, DataOutputStream::writeString)
+            output.writeNullable(record.language?.toLanguageTag(), DataOutputStream::writeString)
+            output.writeNullable(record.publisher, DataOutputStream::writeString)
+            output.writeNullable(record.publishedDate?.toEpochDay(), DataOutputStream::writeLong)
+            output.writeNullable(record.notes, DataOutputStream::writeString)
+            output.writeNullable(record.rating, DataOutputStream::writeInt)
+            output.writeNullable(record.subtitle, DataOutputStream::writeString)
+            output.writeNullable(record.isbn, DataOutputStream::writeString)
+            output.writeNullable(record.numberOfCopies, DataOutputStream::writeInt)
+            output.writeNullable(record.authors) { authors ->
+                writeInt(authors.size)
+                authors.forEach { writeString(it) }
+            }
+            output.writeNullable(record.subject, DataOutputStream::writeString)
+            output.writeNullable(record.magazineName, DataOutputStream::writeString)
+            output.writeNullable(record.serviceConnection) { serviceConnection ->
+                writeInt(serviceConnection.size)
+                serviceConnection.forEach { (key, value) ->
+                    writeString(key)
+                    writeValue(value)
+                }
+            }
+        }
+
+        fun read(input: DataInputStream) = Record(
+            id = input.readNullable(DataInputStream::readLong),
+            type = Record.Type.values()[input.readByte().toInt()],
+            title = input.readNullable(DataInputStream::readString),
+            language = input.readNullable(DataInputStream::readString)?.let(Locale::forLanguageTag),
+            publisher = input.readNullable(DataInputStream::readString),
+            publishedDate = input.readNullable(DataInputStream::readLong)?.let(LocalDate::ofEpochDay),
+            notes = input.readNullable(DataInputStream::readString),
+            rating = input.readNullable(DataInputStream::readInt),
+            subtitle = input.readNullable(DataInputStream::readString),
+            isbn = input.readNullable(DataInputStream::readString),
+            numberOfCopies = input.readNullable(DataInputStream::readInt),
+            authors = input.readNullable { List(readInt()) { readString() } },
+            subject = input.readNullable(DataInputStream::readString),
+            magazineName = input.readNullable(DataInputStream::readString),
+            serviceConnection = input.readNullable {
+                ServiceConnection(HashMap<String, Any?>().also { map ->
+                    repeat(readInt()) { map[readString()] = readValue() }
+                })
+            }
+        )
+
+        private inline fun <T> DataOutputStream.writeNullable(value: T?, write: DataOutputStream.(T) -> Unit) {
+            writeBoolean(value != null)
+            value?.let { write(it) }
+        }
+
+        private inline fun <T> DataInputStream.readNullable(read: DataInputStream.() -> T): T? =
+            if (readBoolean()) read() else null
+
+        /**
+         * Writes the string with its length as an int; unlike [DataOutputStream.writeUTF],
+         * it's not limited to 64K bytes.
+         */
+        private fun DataOutputStream.writeString(value: String) {
+            val bytes = value.toByteArray(Charsets.UTF_8)
+            writeInt(bytes.size)
+            write(bytes)
+        }
+
+        private fun DataInputStream.readString(): String =
+            String(ByteArray(readInt()).also(::readFully), Charsets.UTF_8)
+
+        private fun DataOutputStream.writeValue(value: Any?) {
+            when (value) {
+                null -> writeByte(NULL)
+                is Int -> writeByte(INT).also { writeInt(value) }
+                is Long -> writeByte(LONG).also { writeLong(value) }
+                is Double -> writeByte(DOUBLE).also { writeDouble(value) }
+                is Boolean -> writeByte(BOOLEAN).also { writeBoolean(value) }
+                else -> writeByte(STRING).also { writeString(value.toString()) }
+            }
+        }
+
+        private fun DataInputStream.readValue(): Any? =
+            when (val tag = readByte().toInt()) {
+                NULL -> null
+                INT -> readInt()
+                LONG -> readLong()
+                DOUBLE -> readDouble()
+                BOOLEAN -> readBoolean()
+                STRING -> readString()
+                else -> throw IOException("Unknown value tag: $tag")
+            }
+
+        private const val NULL = 0
+        private const val INT = 1
+        private const val LONG = 2
+        private const val DOUBLE = 3
+        private const val BOOLEAN = 4
+        private const val STRING = 5
+    }
+
+    private companion object {
+
+        /**
+         * The maximum count of records sorted in the memory at once
+         */
+        const val DEFAULT_CHUNK_SIZE = 50_000
+    }
+}
@@ -19,9 +19,12 @@
 package com.dansoftware.boomega.export.api
 
 import com.dansoftware.boomega.database.api.data.Record
+import com.dansoftware.boomega.i18n.api.i18n
+import com.dansoftware.boomega.util.byteCountToDisplaySize
 import javafx.concurrent.Task
 import javafx.scene.Node
 import java.io.OutputStream
+import kotlin.math.roundToLong
 
 /**
  * A [RecordExporter] allows to export [Record]s into a particular format.
@@ -72,6 +75,21 @@ interface RecordExporter<C : RecordExportConfiguration> {
      */
     fun write(items: List<Record>, output: OutputStream, config: C, observer: ExportProcessObserver)
 
+    /**
+     * Exports the records provided by the given [RecordSource].
+     *
+     * The default implementation loads all the records into the memory and passes them to
+     * the list-based [write]; exporters that can write the records one by one should override it.
+     *
+     * @param source the source of the records the exporter should export
+     * @param output the [OutputStream] the exporter should write the result to.
+     * @param config the configuration-object required by the exporter
+     * @param observer the observer for handling the progress, messages etc...
+     */
+    fun write(source: RecordSource, output: OutputStream, config: C, observer: ExportProcessObserver) {
+        write(source.useRecords { it.toList() }, output, config, observer)
+    }
+
     /**
      * Builds a [Task] for the exporting-process
      *
@@ -79,13 +97,36 @@ interface RecordExporter<C : RecordExportConfiguration> {
      * @param config the configuration-object required by the exporter
      */
     fun task(items: List<Record>, out: OutputStream, config: C): Task<Unit> =
+        task(RecordSource.of(items), out, config)
+
+    /**
+     * Builds a [Task] for the exporting-process.
+     *
+     * The task reports the progress and the statistics of the export in its message;
+     * cancelling it stops the export.
+     *
+     * @param source the source of the records the task should export
+     * @param config the configuration-object required by the exporter
+     */
+    fun task(source: RecordSource, out: OutputStream, config: C): Task<Unit> =
         object : Task<Unit>() {
             override fun call() {
                 let { taskObj ->
-                    write(items, out, config, object : ExportProcessObserver {
+                    updateTitle(i18n("record.export.progress.title", name))
+                    write(source, out, config, object : ExportProcessObserver {
                         override fun updateMessage(message: String?) = taskObj.updateMessage(message)
                         override fun updateProgress(workDone: Double, max: Double) = taskObj.updateProgress(workDone, max)
                         override fun updateTitle(title: String?) = taskObj.updateTitle(title)
+                        override val isCancelled: Boolean get() = taskObj.isCancelled
+                        override fun updateStatistics(rowsWritten: Long, bytesWritten: Long, rowsPerSecond: Double) =
+                            taskObj.updateMessage(
+                                i18n(
+                                    "record.export.progress.msg",
+                                    rowsWritten,
+                                    byteCountToDisplaySize(bytesWritten),
+                                    rowsPerSecond.roundToLong()
+                                )
+                            )
                     })
                 }
             }
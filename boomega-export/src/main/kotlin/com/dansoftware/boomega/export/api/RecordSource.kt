@@ -0,0 +1,77 @@
+/*
+ * Boomega - A modern book explorer & catalog application
+ * Copyright (C) 2020-2022  Daniel Gyoerffy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.dansoftware.boomega.export.api
+
+import com.dansoftware.boomega.database.api.Database
+import com.dansoftware.boomega.database.api.RecordCursor
+import com.dansoftware.boomega.database.api.data.Record
+
+/**
+ * A [RecordSource] provides the [Record]s to be exported through a [RecordCursor],
+ * so the exporters don't need all the records to be loaded into the memory.
+ *
+ * @see RecordExporter.write
+ */
+@RecordExportAPI
+interface RecordSource {
+
+    /**
+     * The count of the records provided by the source; `null` if it's not known up-front
+     */
+    val size: Int?
+
+    /**
+     * Opens a new [RecordCursor] over the records.
+     *
+     * The returned cursor should be closed after usage.
+     */
+    fun openCursor(): RecordCursor
+
+    companion object {
+
+        /**
+         * Creates a [RecordSource] that provides the given (already loaded) records.
+         */
+        @JvmStatic
+        fun of(records: List<Record>): RecordSource =
+            object : RecordSource {
+                override val size: Int get() = records.size
+                override fun openCursor(): RecordCursor = RecordCursor.of(records)
+            }
+
+        /**
+         * Creates a [RecordSource] that provides all the records stored in the given [Database],
+         * reading them lazily through [Database.openCursor].
+         */
+        @JvmStatic
+        fun of(database: Database): RecordSource =
+            object : RecordSource {
+                override val size: Int get() = database.totalRecordCount
+                override fun openCursor(): RecordCursor = database.openCursor()
+            }
+    }
+}
+
+/**
+ * Opens a [RecordCursor] on the source, passes its records to the given [action]
+ * as a lazy [Sequence] and closes the cursor afterwards.
+ */
+@RecordExportAPI
+inline fun <R> RecordSource.useRecords(action: (Sequence<Record>) -> R): R =
+    openCursor().use { action(it.asSequence()) }
@@ -0,0 +1,51 @@
+/*
+ * Boomega - A modern book explorer & catalog application
+ * Copyright (C) 2020-2022  Daniel Gyoerffy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.dansoftware.boomega.export.csv
+
+import com.dansoftware.boomega.export.api.RecordExportAPI
+import com.dansoftware.boomega.export.api.RecordExportConfiguration
+import java.nio.charset.Charset
+
+/**
+ * A [CsvExportConfiguration] allows to specify configurations for a [CsvExporter].
+ *
+ * @param delimiter the initial value of [delimiter]
+ */
+@OptIn(RecordExportAPI::class)
+class CsvExportConfiguration(delimiter: Char = ',') : RecordExportConfiguration() {
+
+    /**
+     * The character separating the fields of a row
+     */
+    var delimiter: Char = delimiter
+
+    /**
+     * The character encoding of the output.
+     *
+     * By default, it's _UTF-8_.
+     */
+    var charset: Charset = Charsets.UTF_8
+
+    /**
+     * Configures the exporter whether it should write a header row with the ids of the fields or not.
+     *
+     * By default, it's _true_.
+     */
+    var includeHeader = true
+}
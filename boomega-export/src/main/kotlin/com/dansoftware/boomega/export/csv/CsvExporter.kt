@@ -0,0 +1,100 @@
+/*
+ * Boomega - A modern book explorer & catalog application
+ * Copyright (C) 2020-2022  Daniel Gyoerffy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.dansoftware.boomega.export.csv
+
+import com.dansoftware.boomega.database.api.data.Record
+import com.dansoftware.boomega.database.api.data.ServiceConnection
+import com.dansoftware.boomega.export.api.BaseExporter
+import com.dansoftware.boomega.export.api.ConfigurationDialog
+import com.dansoftware.boomega.export.api.ExportProcessObserver
+import com.dansoftware.boomega.export.api.ExportProgress
+import com.dansoftware.boomega.export.api.RecordExportAPI
+import com.dansoftware.boomega.export.api.RecordSource
+import com.dansoftware.boomega.export.csv.gui.CsvConfigurationDialog
+import com.dansoftware.boomega.gui.util.icon
+import com.dansoftware.boomega.i18n.api.i18n
+import javafx.scene.Node
+import java.io.OutputStream
+import java.io.OutputStreamWriter
+import java.time.LocalDate
+import java.util.*
+
+/**
+ * A [CsvExporter] allows to export [Record]s into CSV (comma-separated values) format.
+ *
+ * The values are written in a machine-readable form: enum constants by their names,
+ * languages by their language tags and dates in ISO-8601 format.
+ */
+@OptIn(RecordExportAPI::class)
+open class CsvExporter : BaseExporter<CsvExportConfiguration>() {
+
+    override val name: String
+        get() = "CSV"
+
+    override val icon: Node
+        get() = icon("table-icon")
+
+    override val contentType: String
+        get() = "csv"
+
+    override val contentTypeDescription: String
+        get() = i18n("file.content_type.desc.csv")
+
+    override val configurationDialog: ConfigurationDialog<CsvExportConfiguration>
+        get() = CsvConfigurationDialog(i18n("record.export.csv.title"), icon, ::CsvExportConfiguration)
+
+    override fun write(
+        source: RecordSource,
+        output: OutputStream,
+        config: CsvExportConfiguration,
+        observer: ExportProcessObserver
+    ) {
+        val fields = config.requiredFields
+        val progress = ExportProgress(output, source.size, observer)
+        CsvWriter(OutputStreamWriter(progress.output, config.charset), config.delimiter).use { writer ->
+            if (config.includeHeader) {
+                fields.forEach { writer.writeField(it.id) }
+                writer.endRow()
+            }
+            useSortedRecords(source, config) { records ->
+                records.forEach { record ->
+                    for (field in fields) {
+                        // the fields that are not used with the given record's type are left empty
+                        writer.writeField(if (record.type in field.typeScopes) field.getValue(record).toCsvValue() else null)
+                    }
+                    writer.endRow()
+                    progress.rowWritten()
+                }
+            }
+        }
+        progress.finish()
+    }
+
+    private fun Any?.toCsvValue(): String? =
+        when (this) {
+            null -> null
+            is String -> this
+            is Enum<*> -> name
+            is Locale -> toLanguageTag()
+            is LocalDate -> toString()
+            is List<*> -> joinToString(separator = ", ")
+            is ServiceConnection -> entries.joinToString(separator = ", ") { "${it.key}=${it.value}" }
+            else -> toString()
+        }
+}
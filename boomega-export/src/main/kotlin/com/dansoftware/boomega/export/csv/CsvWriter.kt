@@ -0,0 +1,104 @@
+/*
+ * Boomega - A modern book explorer & catalog application
+ * Copyright (C) 2020-2022  Daniel Gyoerffy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.dansoftware.boomega.export.csv
+
+import java.io.Closeable
+import java.io.Writer
+
+/**
+ * Writes delimiter-separated rows into a [Writer] through a reusable char-buffer.
+ *
+ * A field is quoted only if it contains the delimiter, a quote or a line-break
+ * (as described in RFC 4180), or if it starts or ends with a space, so the readers that trim
+ * the unquoted fields keep it intact; rows are terminated with CRLF.
+ */
+internal class CsvWriter(private val writer: Writer, private val delimiter: Char) : Closeable {
+
+    private val buffer = CharArray(BUFFER_SIZE)
+    private var position = 0
+    private var rowStarted = false
+
+    /**
+     * Writes the next field of the current row; `null` is written as an empty field
+     */
+    fun writeField(value: String?) {
+        if (rowStarted) append(delimiter)
+        rowStarted = true
+        when {
+            value == null -> return
+            needsQuoting(value) -> appendQuoted(value)
+            else -> append(value)
+        }
+    }
+
+    /**
+     * Terminates the current row
+     */
+    fun endRow() {
+        append('\r')
+        append('\n')
+        rowStarted = false
+    }
+
+    private fun needsQuoting(value: String): Boolean {
+        if (value.isNotEmpty() && (value.first() == ' ' || value.last() == ' ')) return true
+        for (char in value)
+            if (char == delimiter || char == QUOTE || char == '\n' || char == '\r') return true
+        return false
+    }
+
+    private fun appendQuoted(value: String) {
+        append(QUOTE)
+        for (char in value) {
+            if (char == QUOTE) append(QUOTE)
+            append(char)
+        }
+        append(QUOTE)
+    }
+
+    private fun append(char: Char) {
+        if (position == buffer.size) flushBuffer()
+        buffer[position++] = char
+    }
+
+    private fun append(value: String) {
+        var start = 0
+        while (start < value.length) {
+            if (position == buffer.size) flushBuffer()
+            val end = minOf(value.length, start + buffer.size - position)
+            value.toCharArray(buffer, position, start, end)
+            position += end - start
+            start = end
+        }
+    }
+
+    private fun flushBuffer() {
+        writer.write(buffer, 0, position)
+        position = 0
+    }
+
+    override fun close() {
+        writer.use { flushBuffer() }
+    }
+
+    private companion object {
+        const val QUOTE = '"'
+        const val BUFFER_SIZE = 64 * 1024
+    }
+}
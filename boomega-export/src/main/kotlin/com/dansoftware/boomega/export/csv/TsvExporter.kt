@@ -0,0 +1,44 @@
+/*
+ * Boomega - A modern book explorer & catalog application
+ * Copyright (C) 2020-2022  Daniel Gyoerffy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.dansoftware.boomega.export.csv
+
+import com.dansoftware.boomega.export.api.ConfigurationDialog
+import com.dansoftware.boomega.export.api.RecordExportAPI
+import com.dansoftware.boomega.export.csv.gui.CsvConfigurationDialog
+import com.dansoftware.boomega.i18n.api.i18n
+
+/**
+ * A [TsvExporter] allows to export records into TSV (tab-separated values) format.
+ * It's a [CsvExporter] that uses tab as delimiter by default.
+ */
+@OptIn(RecordExportAPI::class)
+class TsvExporter : CsvExporter() {
+
+    override val name: String
+        get() = "TSV"
+
+    override val contentType: String
+        get() = "tsv"
+
+    override val contentTypeDescription: String
+        get() = i18n("file.content_type.desc.tsv")
+
+    override val configurationDialog: ConfigurationDialog<CsvExportConfiguration>
+        get() = CsvConfigurationDialog(i18n("record.export.tsv.title"), icon) { CsvExportConfiguration(delimiter = '\t') }
+}
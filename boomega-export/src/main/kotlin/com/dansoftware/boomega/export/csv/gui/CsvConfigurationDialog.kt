@@ -0,0 +1,46 @@
+/*
+ * Boomega - A modern book explorer & catalog application
+ * Copyright (C) 2020-2022  Daniel Gyoerffy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.dansoftware.boomega.export.csv.gui
+
+import com.dansoftware.boomega.export.api.ConfigurationDialog
+import com.dansoftware.boomega.export.api.RecordExportAPI
+import com.dansoftware.boomega.export.csv.CsvExportConfiguration
+import com.dansoftware.boomega.gui.api.Context
+import javafx.scene.Node
+
+/**
+ * @param title the title of the overlay
+ * @param graphic the icon of the overlay
+ * @param configuration creates the initial configuration
+ */
+@OptIn(RecordExportAPI::class)
+class CsvConfigurationDialog(
+    private val title: String,
+    private val graphic: Node,
+    private val configuration: () -> CsvExportConfiguration
+) : ConfigurationDialog<CsvExportConfiguration> {
+    override fun show(context: Context, onFinished: (CsvExportConfiguration) -> Unit) {
+        var overlay: CsvConfigurationOverlay? = null
+        overlay = CsvConfigurationOverlay(title, graphic, configuration()) {
+            context.hideOverlay(overlay!!)
+            onFinished(it)
+        }
+        context.showOverlay(overlay)
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Boomega - A modern book explorer & catalog application
+ * Copyright (C) 2020-2022  Daniel Gyoerffy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.dansoftware.boomega.export.csv.gui
+
+import com.dansoftware.boomega.export.api.RecordExportAPI
+import com.dansoftware.boomega.export.csv.CsvExportConfiguration
+import com.dansoftware.boomega.export.gui.BaseConfigurationView
+import com.dansoftware.boomega.gui.util.addRow
+import com.dansoftware.boomega.gui.util.onValuePresent
+import com.dansoftware.boomega.gui.util.selectedItem
+import com.dansoftware.boomega.gui.util.selectedItemProperty
+import com.dansoftware.boomega.i18n.api.i18n
+import javafx.scene.control.Button
+import javafx.scene.control.CheckBox
+import javafx.scene.control.ChoiceBox
+import javafx.scene.control.Label
+import javafx.scene.layout.GridPane
+import javafx.scene.layout.Priority
+import javafx.util.StringConverter
+import java.nio.charset.Charset
+
+@OptIn(RecordExportAPI::class)
+class CsvConfigurationView(
+    configuration: CsvExportConfiguration,
+    private val onFinished: (CsvExportConfiguration) -> Unit
+) : BaseConfigurationView<CsvExportConfiguration>(configuration) {
+
+    init {
+        styleClass.addAll("csv-configuration-view", "export-configuration-view")
+        buildUI()
+    }
+
+    private fun buildUI() {
+        addRow(
+            Label(i18n("record.export.csv.delimiter")),
+            Label(i18n("record.export.csv.encoding"))
+        )
+        addRow(
+            DelimiterChooser(exportConfiguration),
+            CharsetChooser(exportConfiguration),
+            buildHeaderCheckBox()
+        )
+        addRow(buildExecuteButton())
+    }
+
+    private fun buildHeaderCheckBox() = CheckBox(i18n("record.export.csv.header")).apply {
+        isSelected = exportConfiguration.includeHeader
+        selectedProperty().addListener { _, _, isSelected ->
+            exportConfiguration.includeHeader = isSelected
+        }
+    }
+
+    private fun buildExecuteButton() = Button().apply {
+        setColumnSpan(this, 3)
+        maxWidth = Double.MAX_VALUE
+        isDefaultButton = true
+        text = i18n("record.export.execute")
+        setOnAction {
+            onFinished(exportConfiguration)
+        }
+    }
+
+    /**
+     * The choice-box that allows to select the delimiter
+     */
+    private class DelimiterChooser(configuration: CsvExportConfiguration) : ChoiceBox<Char>() {
+        init {
+            GridPane.setHgrow(this, Priority.ALWAYS)
+            maxWidth = Double.MAX_VALUE
+            items.addAll(delimiterNames.keys)
+            if (configuration.delimiter !in items) items.add(configuration.delimiter)
+            converter = object : StringConverter<Char>() {
+                override fun toString(delimiter: Char?) = delimiterNames[delimiter]?.let(::i18n) ?: delimiter?.toString()
+                override fun fromString(string: String?): Char? =
+                    delimiterNames.entries.find { i18n(it.value) == string }?.key ?: string?.singleOrNull()
+            }
+            selectedItem = configuration.delimiter
+            selectedItemProperty().onValuePresent {
+                configuration.delimiter = it
+            }
+        }
+
+        private companion object {
+            val delimiterNames = linkedMapOf(
+                ',' to "record.export.csv.delimiter.comma",
+                ';' to "record.export.csv.delimiter.semicolon",
+                '\t' to "record.export.csv.delimiter.tab",
+                '|' to "record.export.csv.delimiter.pipe"
+            )
+        }
+    }
+
+    /**
+     * The choice-box that allows to select the character encoding of the output
+     */
+    private class CharsetChooser(configuration: CsvExportConfiguration) : ChoiceBox<Charset>() {
+        init {
+            GridPane.setHgrow(this, Priority.ALWAYS)
+            maxWidth = Double.MAX_VALUE
+            items.addAll(
+                listOf(Charsets.UTF_8, Charsets.UTF_16, Charsets.ISO_8859_1, Charsets.US_ASCII, Charset.defaultCharset())
+                    .plus(configuration.charset)
+                    .distinct()
+            )
+            selectedItem = configuration.charset
+            selectedItemProperty().onValuePresent {
+                configuration.charset = it
+            }
+        }
+    }
+}
@@ -22,7 +22,9 @@ import com.dansoftware.boomega.database.api.data.Record
 import com.dansoftware.boomega.export.api.BaseExporter
 import com.dansoftware.boomega.export.api.ConfigurationDialog
 import com.dansoftware.boomega.export.api.ExportProcessObserver
+import com.dansoftware.boomega.export.api.ExportProgress
 import com.dansoftware.boomega.export.api.RecordExportAPI
+import com.dansoftware.boomega.export.api.RecordSource
 import com.dansoftware.boomega.export.excel.gui.ExcelConfigurationDialog
 import com.dansoftware.boomega.gui.util.icon
 import javafx.scene.Node
@@ -57,39 +59,49 @@ class ExcelExporter : BaseExporter<ExcelExportConfiguration>() {
         get() = "Excel OpenXML documents" // TODO: i18n
 
     override fun write(
-        items: List<Record>,
+        source: RecordSource,
         output: OutputStream,
         config: ExcelExportConfiguration,
         observer: ExportProcessObserver
     ) {
-        val sortedItems = sortRecords(items, config)
-        buildWorkbook(sortedItems, config).use { workbook ->
-            output.buffered().use(workbook::write)
-            if (workbook is SXSSFWorkbook) workbook.dispose()
-        }
-    }
-
-    /**
-     * Builds the [Workbook] object with all the data.
-     */
-    private fun buildWorkbook(items: List<Record>, config: ExcelExportConfiguration): Workbook {
+        val progress = ExportProgress(output, source.size, observer)
         // excel 'OOXML' (.xlsx) format
         // using SXSSF instead of XSSF for low-memory footprint
         // see https://poi.apache.org/components/spreadsheet/
         val workbook = SXSSFWorkbook()
+        progress.output.buffered().use { bufferedOutput ->
+            try {
+                useSortedRecords(source, config) { fillWorkbook(workbook, it, config, progress) }
+                workbook.write(bufferedOutput)
+            } finally {
+                // the temporary files of the rows are deleted even if the export fails or gets cancelled
+                workbook.dispose()
+                workbook.close()
+            }
+        }
+        progress.finish()
+    }
 
+    /**
+     * Fills the [Workbook] object with all the data.
+     */
+    private fun fillWorkbook(
+        workbook: SXSSFWorkbook,
+        items: Sequence<Record>,
+        config: ExcelExportConfiguration,
+        progress: ExportProgress
+    ) {
         val sheet: SXSSFSheet =
             config.sheetName
                 ?.let(WorkbookUtil::createSafeSheetName)
                 ?.let(workbook::createSheet)
                 ?: workbook.createSheet()
 
-        val createdRowCount = createHeaderRows(workbook, sheet, config)
-        createRegularRows(workbook, sheet, items, config, createdRowCount)
-
-        sheet.autoSizeColumns(config.requiredFields.indices)
-
-        return workbook
+        // the column widths are estimated instead of auto-sizing, which would measure every cell
+        val widthEstimator = ColumnWidthEstimator(config.requiredFields.size)
+        val createdRowCount = createHeaderRows(workbook, sheet, config, widthEstimator)
+        createRegularRows(workbook, sheet, items, config, createdRowCount, widthEstimator, progress)
+        widthEstimator.applyTo(sheet)
     }
 
     /**
@@ -97,7 +109,12 @@ class ExcelExporter : BaseExporter<ExcelExportConfiguration>() {
      *
      * @return the count of the rows it created
      */
-    private fun createHeaderRows(workbook: SXSSFWorkbook, sheet: SXSSFSheet, config: ExcelExportConfiguration): Int {
+    private fun createHeaderRows(
+        workbook: SXSSFWorkbook,
+        sheet: SXSSFSheet,
+        config: ExcelExportConfiguration,
+        widthEstimator: ColumnWidthEstimator
+    ): Int {
         val row = sheet.createRow(0)
         row.height = -1
         val cellStyle = config.headerCellStyle.asPoiCellStyle(workbook.xssfWorkbook)
@@ -105,7 +122,7 @@ class ExcelExporter : BaseExporter<ExcelExportConfiguration>() {
             val cell = row.createCell(index)
             cell.setCellValue(field.name)
             cell.cellStyle = cellStyle
-            sheet.trackColumnForAutoSizing(index)
+            widthEstimator.sample(index, field.name)
         }
         return 1
     }
@@ -116,13 +133,17 @@ class ExcelExporter : BaseExporter<ExcelExportConfiguration>() {
     private fun createRegularRows(
         workbook: SXSSFWorkbook,
         sheet: Sheet,
-        items: List<Record>,
+        items: Sequence<Record>,
         config: ExcelExportConfiguration,
-        initialRowCount: Int
+        initialRowCount: Int,
+        widthEstimator: ColumnWidthEstimator,
+        progress: ExportProgress
     ) {
-        val cellStyle = config.regularCellStyle.asPoiCellStyle(workbook.xssfWorkbook)
+        // the styles are created only once per workbook
+        val cellStyles = RegularCellStyles(workbook.xssfWorkbook, config.regularCellStyle.asPoiCellStyle(workbook.xssfWorkbook))
         items.forEachIndexed { index, it ->
-            createRowForRecord(sheet, cellStyle, it, config, index + initialRowCount)
+            createRowForRecord(sheet, cellStyles, it, config, index + initialRowCount, widthEstimator)
+            progress.rowWritten()
         }
     }
 
@@ -131,17 +152,31 @@ class ExcelExporter : BaseExporter<ExcelExportConfiguration>() {
      */
     private fun createRowForRecord(
         sheet: Sheet,
-        cellStyle: CellStyle,
+        cellStyles: RegularCellStyles,
         record: Record,
         config: ExcelExportConfiguration,
-        rowIndex: Int
+        rowIndex: Int,
+        widthEstimator: ColumnWidthEstimator
     ) {
         val row = sheet.createRow(rowIndex)
         row.height = -1
         config.requiredFields.forEachIndexed { index, field ->
+            val value = field.getValue(record)
             val cell = row.createCell(index)
-            cell.cellStyle = cellStyle
-            cell.setValue(field.getValue(record), config.emptyCellPlaceHolder)
+            cell.cellStyle = cellStyles.regular
+            cell.setValue(value, config.emptyCellPlaceHolder, cellStyles)
+            if (widthEstimator.needsSample(index))
+                widthEstimator.sample(index, value.displayText(config.emptyCellPlaceHolder))
+        }
+    }
+
+    /**
+     * The styles of the regular cells, created once per workbook
+     */
+    private class RegularCellStyles(workbook: XSSFWorkbook, val regular: CellStyle) {
+        val date: CellStyle = workbook.createCellStyle().apply {
+            cloneStyleFrom(regular)
+            dataFormat = workbook.creationHelper.createDataFormat().getFormat(DATE_FORMAT)
         }
     }
 
@@ -171,7 +206,7 @@ class ExcelExporter : BaseExporter<ExcelExportConfiguration>() {
             fontSize?.let { fontHeightInPoints = it }
         }
 
-    private fun Cell.setValue(value: Any?, valueIfNull: String?) {
+    private fun Cell.setValue(value: Any?, valueIfNull: String?, cellStyles: RegularCellStyles) {
         when (value) {
             is String -> setCellValue(value)
             is Boolean -> setCellValue(value)
@@ -180,20 +215,23 @@ class ExcelExporter : BaseExporter<ExcelExportConfiguration>() {
             is java.time.LocalDateTime -> setCellValue(value)
             is java.util.Calendar -> setCellValue(value)
             is java.util.Locale -> setCellValue(value.displayLanguage)
-            is LocalDate -> setDate(value)
+            is LocalDate -> setDate(value, cellStyles.date)
             is List<*> -> setCellValue(value.joinToString(separator = ", "))
             else -> setCellValue(value?.toString() ?: valueIfNull)
         }
     }
 
     /**
-     * Auto sizes the columns with the given indices.
+     * Gives the text the cell of the value shows approximately; used for estimating the column widths.
      */
-    private fun SXSSFSheet.autoSizeColumns(indices: IntRange) {
-        indices.forEach {
-            autoSizeColumn(it)
+    private fun Any?.displayText(valueIfNull: String?): String? =
+        when (this) {
+            null -> valueIfNull
+            is java.util.Locale -> displayLanguage
+            is LocalDate -> DATE_FORMAT
+            is List<*> -> joinToString(separator = ", ")
+            else -> toString()
         }
-    }
 
     /**
      * Converts an [java.awt.Color] into an [XSSFColor]
@@ -202,12 +240,14 @@ class ExcelExporter : BaseExporter<ExcelExportConfiguration>() {
         XSSFColor(this, workbook.stylesSource.indexedColors)
 
     /**
-     * Sets the value and configures it to be formatted as date
+     * Sets the value with the given style that formats it as date
      */
-    private fun Cell.setDate(value: LocalDate) {
-        cellStyle?.dataFormat = sheet.workbook.creationHelper
-            .createDataFormat()
-            .getFormat("yyyy-MM-dd")
+    private fun Cell.setDate(value: LocalDate, dateStyle: CellStyle) {
+        cellStyle = dateStyle
         setCellValue(value)
     }
+
+    private companion object {
+        const val DATE_FORMAT = "yyyy-MM-dd"
+    }
 }
\ No newline at end of file
@@ -24,13 +24,15 @@ import com.dansoftware.boomega.database.api.data.ServiceConnection
 import com.dansoftware.boomega.export.api.BaseExporter
 import com.dansoftware.boomega.export.api.ConfigurationDialog
 import com.dansoftware.boomega.export.api.ExportProcessObserver
+import com.dansoftware.boomega.export.api.ExportProgress
 import com.dansoftware.boomega.export.api.RecordExportAPI
+import com.dansoftware.boomega.export.api.RecordSource
 import com.dansoftware.boomega.export.json.gui.JsonConfigurationDialog
 import com.dansoftware.boomega.gui.util.icon
 import com.dansoftware.boomega.i18n.api.i18n
-import com.dansoftware.boomega.util.minus
 import com.dansoftware.boomega.util.set
 import com.google.gson.*
+import com.google.gson.stream.JsonWriter
 import javafx.scene.Node
 import java.io.OutputStream
 import java.io.OutputStreamWriter
@@ -58,50 +60,52 @@ class JsonExporter : BaseExporter<JsonExportConfiguration>() {
         get() = JsonConfigurationDialog()
 
     override fun write(
-        items: List<Record>,
+        source: RecordSource,
         output: OutputStream,
         config: JsonExportConfiguration,
         observer: ExportProcessObserver
     ) {
-        OutputStreamWriter(output).buffered().use {
-            val gson = buildGson(config)
-            gson.toJson(gson.toJsonTree(sortRecords(items, config), List::class.java), it)
+        val gson = buildGson(config)
+        val fields = recordProperties.filter(config.requiredFields::contains)
+        val progress = ExportProgress(output, source.size, observer)
+        OutputStreamWriter(progress.output).buffered().use {
+            // the records are written one by one, without building a json tree
+            gson.newJsonWriter(it).use { writer ->
+                writer.beginArray()
+                useSortedRecords(source, config) { records ->
+                    records.forEach { record ->
+                        writeRecord(gson, writer, record, fields)
+                        progress.rowWritten()
+                    }
+                }
+                writer.endArray()
+            }
+        }
+        progress.finish()
+    }
+
+    private fun writeRecord(gson: Gson, writer: JsonWriter, record: Record, fields: List<RecordProperty<*>>) {
+        writer.beginObject()
+        for (property in fields) {
+            // the props that are not used with the given record's type are excluded
+            if (record.type !in property.typeScopes) continue
+            writer.name(property.id)
+            when (val value = property.getValue(record)) {
+                null -> writer.nullValue()
+                else -> gson.toJson(value, value.javaClass, writer)
+            }
         }
+        writer.endObject()
     }
 
     private fun buildGson(config: JsonExportConfiguration) = GsonBuilder().run {
         config.prettyPrinting.takeUnless(Boolean::not)?.let { setPrettyPrinting() }
         config.nonExecutableJson.takeUnless(Boolean::not)?.let { generateNonExecutableJson() }
         config.serializeNulls.takeUnless(Boolean::not)?.let { serializeNulls() }
-        registerTypeAdapter(Record::class.java, RecordSerializer(config))
+        registerTypeAdapter(ServiceConnection::class.java, ServiceConnectionSerializer())
         create()
     }
 
-    private class RecordSerializer(private val config: JsonExportConfiguration) : JsonSerializer<Record> {
-
-        private val internalGson = GsonBuilder().run {
-            config.serializeNulls.takeUnless(Boolean::not)?.let { serializeNulls() }
-            registerTypeAdapter(ServiceConnection::class.java, ServiceConnectionSerializer())
-            create()
-        }
-
-        override fun serialize(src: Record, typeOfSrc: Type, context: JsonSerializationContext): JsonElement {
-            val serialized = internalGson.toJsonTree(src) as JsonObject
-
-            // removing data the user should not see
-            serialized - "id"
-
-            // we exclude the props that are not used with the given record's type
-            val requiredProps = config.requiredFields.filter { src.type in it.typeScopes }
-
-            // the properties that should not be present in the json object
-            val propsToRemove: List<RecordProperty<*>> = RecordProperty.allProperties - requiredProps
-            propsToRemove.map(RecordProperty<*>::id).forEach(serialized.asJsonObject::remove)
-
-            return serialized
-        }
-    }
-
     private class ServiceConnectionSerializer() : JsonSerializer<ServiceConnection> {
         override fun serialize(
             src: ServiceConnection,
@@ -120,4 +124,27 @@ class JsonExporter : BaseExporter<JsonExportConfiguration>() {
 
         private fun ServiceConnection.entries(): List<Pair<String, String>> = map { Pair(it.key, it.value.toString()) }
     }
+
+    private companion object {
+
+        /**
+         * The exportable properties in the order of the fields of the [Record] class
+         */
+        val recordProperties: List<RecordProperty<*>> = listOf(
+            RecordProperty.TYPE,
+            RecordProperty.TITLE,
+            RecordProperty.LANGUAGE,
+            RecordProperty.PUBLISHER,
+            RecordProperty.PUBLISHED_DATE,
+            RecordProperty.NOTES,
+            RecordProperty.RATING,
+            RecordProperty.SUBTITLE,
+            RecordProperty.ISBN,
+            RecordProperty.NUMBER_OF_COPIES,
+            RecordProperty.AUTHORS,
+            RecordProperty.SUBJECT,
+            RecordProperty.MAGAZINE_NAME,
+            RecordProperty.SERVICE_CONNECTION
+        )
+    }
 }
\ No newline at end of file
@@ -0,0 +1,257 @@
+/*
+ * Boomega - A modern book explorer & catalog application
+ * Copyright (C) 2020-2022  Daniel Gyoerffy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.dansoftware.boomega.export.api;
+
+import com.dansoftware.boomega.database.api.data.Record;
+import com.dansoftware.boomega.database.api.data.ServiceConnection;
+import kotlin.collections.CollectionsKt;
+import kotlin.sequences.SequencesKt;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ExternalRecordSorterTest {
+
+    private static final int CHUNK_SIZE = 3;
+
+    private static final Comparator<Record> BY_RATING =
+            Comparator.comparing(Record::getRating, Comparator.nullsLast(Comparator.naturalOrder()));
+
+    @Test
+    void itShouldSortInMemoryIfTheRecordsFitIntoOneChunk() throws IOException {
+        //given
+        List<Record> records = records(3, 1, 2);
+        Set<Path> runFilesBefore = runFiles();
+
+        try (ExternalRecordSorter sorter = sorter(false)) {
+            //when
+            List<Record> result = sort(sorter, records);
+
+            //then
+            assertThat(result).extracting(Record::getRating).containsExactly(1, 2, 3);
+            assertThat(runFiles()).isEqualTo(runFilesBefore);
+        }
+    }
+
+    @Test
+    void itShouldMergeTheSpilledChunksStably() {
+        //given
+        List<Record> records = records(5, 2, null, 2, 7, 1, 2, null, 5, 1, 2);
+
+        try (ExternalRecordSorter sorter = sorter(false)) {
+            //when
+            List<Record> result = sort(sorter, records);
+
+            //then
+            assertThat(result).extracting(Record::getId).containsExactlyElementsOf(idsOf(sortInMemory(records, false)));
+            assertThat(result).extracting(Record::getRating).containsExactly(1, 1, 2, 2, 2, 2, 5, 5, 7, null, null);
+        }
+    }
+
+    @Test
+    void itShouldMergeTheSpilledChunksInReverseOrder() {
+        //given
+        List<Record> records = records(5, 2, null, 2, 7, 1, 2, null, 5, 1, 2);
+
+        try (ExternalRecordSorter sorter = sorter(true)) {
+            //when
+            List<Record> result = sort(sorter, records);
+
+            //then
+            assertThat(result).extracting(Record::getId).containsExactlyElementsOf(idsOf(sortInMemory(records, true)));
+            assertThat(result).extracting(Record::getRating).containsExactly(null, null, 7, 5, 5, 2, 2, 2, 2, 1, 1);
+        }
+    }
+
+    @Test
+    void itShouldOnlyReverseIfThereIsNoSortKey() {
+        //given
+        List<Record> records = records(1, 2, 3, 4, 5, 6, 7, 8);
+
+        try (ExternalRecordSorter sorter = new ExternalRecordSorter(
+                chunk -> reversed(chunk),
+                record -> null,
+                true,
+                CHUNK_SIZE)) {
+            //when
+            List<Record> result = sort(sorter, records);
+
+            //then
+            assertThat(result).extracting(Record::getRating).containsExactly(8, 7, 6, 5, 4, 3, 2, 1);
+        }
+    }
+
+    @Test
+    void itShouldPreserveTheRecordsThroughTheTemporaryFiles() {
+        //given
+        Record full = fullRecord();
+        Record empty = new Record(Record.Type.MAGAZINE);
+        List<Record> records = new ArrayList<>(records(9, 8, 7, 6));
+        records.add(0, full);
+        records.add(empty);
+        full.setRating(0);
+        empty.setRating(10);
+
+        try (ExternalRecordSorter sorter = sorter(false)) {
+            //when
+            List<Record> result = sort(sorter, records);
+
+            //then
+            Record readFull = result.get(0);
+            assertThat(valuesOf(readFull)).isEqualTo(valuesOf(full));
+            assertThat(new HashMap<>(readFull.getServiceConnection())).isEqualTo(Map.of(
+                    "int", 42,
+                    "long", 42L,
+                    "double", 4.2,
+                    "boolean", true,
+                    "string", "volume-id",
+                    "other", LocalDate.of(2020, 2, 29).toString()
+            ));
+            assertThat(readFull.getServiceConnection()).containsEntry("null", null);
+
+            Record readEmpty = result.get(result.size() - 1);
+            assertThat(valuesOf(readEmpty)).isEqualTo(valuesOf(empty));
+            assertThat(readEmpty.getServiceConnection()).isEmpty();
+        }
+    }
+
+    @Test
+    void itShouldDeleteTheTemporaryFilesWhenClosed() throws IOException {
+        //given
+        Set<Path> runFilesBefore = runFiles();
+        ExternalRecordSorter sorter = sorter(false);
+        List<Record> result = sort(sorter, records(4, 3, 2, 1, 0));
+        Set<Path> spilledFiles = runFiles();
+        spilledFiles.removeAll(runFilesBefore);
+
+        //when
+        sorter.close();
+
+        //then
+        assertThat(result).hasSize(5);
+        assertThat(spilledFiles).hasSize(2).noneMatch(Files::exists);
+    }
+
+    private static ExternalRecordSorter sorter(boolean reverse) {
+        return new ExternalRecordSorter(chunk -> sortInMemory(chunk, reverse), Record::getRating, reverse, CHUNK_SIZE);
+    }
+
+    private static List<Record> sort(ExternalRecordSorter sorter, List<Record> records) {
+        return SequencesKt.toList(sorter.sort(CollectionsKt.asSequence(records)));
+    }
+
+    /**
+     * Sorts like the exporters do: a stable sort, reversed as a whole if needed
+     */
+    private static List<Record> sortInMemory(List<Record> records, boolean reverse) {
+        List<Record> sorted = new ArrayList<>(records);
+        sorted.sort(BY_RATING);
+        return reverse ? reversed(sorted) : sorted;
+    }
+
+    private static List<Record> reversed(List<Record> records) {
+        List<Record> reversed = new ArrayList<>(records);
+        Collections.reverse(reversed);
+        return reversed;
+    }
+
+    private static List<Object> valuesOf(Record record) {
+        return Arrays.asList(
+                record.getId(),
+                record.getType(),
+                record.getTitle(),
+                record.getLanguage(),
+                record.getPublisher(),
+                record.getPublishedDate(),
+                record.getNotes(),
+                record.getRating(),
+                record.getSubtitle(),
+                record.getIsbn(),
+                record.getNumberOfCopies(),
+                record.getAuthors(),
+                record.getSubject(),
+                record.getMagazineName()
+        );
+    }
+
+    private static List<Long> idsOf(List<Record> records) {
+        return records.stream().map(Record::getId).collect(Collectors.toList());
+    }
+
+    private static List<Record> records(Integer... ratings) {
+        List<Record> records = new ArrayList<>();
+        for (Integer rating : ratings) {
+            Record record = new Record(Record.Type.BOOK);
+            record.setId((long) records.size() + 1);
+            record.setRating(rating);
+            records.add(record);
+        }
+        return records;
+    }
+
+    private static Record fullRecord() {
+        Record record = new Record(Record.Type.BOOK);
+        record.setId(100L);
+        record.setTitle("Árvíztűrő tükörfúrógép 📚");
+        record.setLanguage(Locale.forLanguageTag("hu-HU"));
+        record.setPublisher("Publisher");
+        record.setPublishedDate(LocalDate.of(1987, 6, 5));
+        record.setNotes("x".repeat(70_000));
+        record.setSubtitle("Subtitle");
+        record.setIsbn("9780000000000");
+        record.setNumberOfCopies(3);
+        record.setAuthors(List.of("First Author", "Second Author"));
+        record.setSubject("Subject");
+        record.setMagazineName("Magazine");
+
+        Map<String, Object> info = new HashMap<>();
+        info.put("int", 42);
+        info.put("long", 42L);
+        info.put("double", 4.2);
+        info.put("boolean", true);
+        info.put("string", "volume-id");
+        info.put("other", LocalDate.of(2020, 2, 29));
+        info.put("null", null);
+        record.setServiceConnection(new ServiceConnection(info));
+        return record;
+    }
+
+    private static Set<Path> runFiles() throws IOException {
+        try (Stream<Path> files = Files.list(Path.of(System.getProperty("java.io.tmpdir")))) {
+            return files.filter(it -> it.getFileName().toString().startsWith("boomega-export"))
+                    .collect(Collectors.toSet());
+        }
+    }
+}
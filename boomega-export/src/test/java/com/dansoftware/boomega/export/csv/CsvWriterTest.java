@@ -0,0 +1,123 @@
+/*
+ * Boomega - A modern book explorer & catalog application
+ * Copyright (C) 2020-2022  Daniel Gyoerffy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.dansoftware.boomega.export.csv;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.StringWriter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class CsvWriterTest {
+
+    @Test
+    void itShouldWritePlainFieldsUnquoted() {
+        //when
+        String result = write(',', "title", "", null, "a;b\ttab");
+
+        //then
+        assertThat(result).isEqualTo("title,,,a;b\ttab\r\n");
+    }
+
+    @Test
+    void itShouldQuoteFieldsContainingTheDelimiter() {
+        //when
+        String result = write(',', "Smith, John", "plain");
+
+        //then
+        assertThat(result).isEqualTo("\"Smith, John\",plain\r\n");
+    }
+
+    @Test
+    void itShouldDoubleTheQuotes() {
+        //when
+        String result = write(',', "The \"Best\" Book", "\"");
+
+        //then
+        assertThat(result).isEqualTo("\"The \"\"Best\"\" Book\",\"\"\"\"\r\n");
+    }
+
+    @Test
+    void itShouldQuoteFieldsContainingLineBreaks() {
+        //when
+        String result = write(',', "first\nsecond", "first\rsecond", "first\r\nsecond");
+
+        //then
+        assertThat(result).isEqualTo("\"first\nsecond\",\"first\rsecond\",\"first\r\nsecond\"\r\n");
+    }
+
+    @Test
+    void itShouldQuoteFieldsWithLeadingOrTrailingSpaces() {
+        //when
+        String result = write(',', " leading", "trailing ", " ", "in between");
+
+        //then
+        assertThat(result).isEqualTo("\" leading\",\"trailing \",\" \",in between\r\n");
+    }
+
+    @Test
+    void itShouldUseTabAsDelimiter() {
+        //when
+        String result = write('\t', "tab\tinside", "Smith, John", "plain");
+
+        //then
+        assertThat(result).isEqualTo("\"tab\tinside\"\tSmith, John\tplain\r\n");
+    }
+
+    @Test
+    void itShouldTerminateEveryRowWithCrlf() {
+        //given
+        StringWriter output = new StringWriter();
+
+        //when
+        try (CsvWriter writer = new CsvWriter(output, ',')) {
+            writer.writeField("a");
+            writer.writeField("b");
+            writer.endRow();
+            writer.writeField("c");
+            writer.writeField(null);
+            writer.endRow();
+        }
+
+        //then
+        assertThat(output.toString()).isEqualTo("a,b\r\nc,\r\n");
+    }
+
+    @Test
+    void itShouldWriteFieldsLargerThanTheBuffer() {
+        //given
+        String large = "x".repeat(200_000);
+
+        //when
+        String result = write(',', large, "\"" + large);
+
+        //then
+        assertThat(result).isEqualTo(large + ",\"\"\"" + large + "\"\r\n");
+    }
+
+    private static String write(char delimiter, String... fields) {
+        StringWriter output = new StringWriter();
+        try (CsvWriter writer = new CsvWriter(output, delimiter)) {
+            for (String field : fields)
+                writer.writeField(field);
+            writer.endRow();
+        }
+        return output.toString();
+    }
+}
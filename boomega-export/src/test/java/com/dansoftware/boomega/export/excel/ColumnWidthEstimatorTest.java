@@ -0,0 +1,82 @@
+/*
+ * Boomega - A modern book explorer & catalog application
+ * Copyright (C) 2020-2022  Daniel Gyoerffy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.dansoftware.boomega.export.excel;
+
+import org.apache.poi.ss.usermodel.Sheet;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+public class ColumnWidthEstimatorTest {
+
+    /**
+     * The maximum column width allowed by Excel
+     */
+    private static final int MAX_WIDTH = 255 * 256;
+
+    @Test
+    void itShouldOnlySampleTheFirstThousandValues() {
+        //given
+        ColumnWidthEstimator estimator = new ColumnWidthEstimator(2);
+        Sheet sheet = mock(Sheet.class);
+
+        //when
+        for (int i = 0; i < 1000; i++)
+            estimator.sample(0, i % 2 == 0 ? "0" : null);
+        estimator.sample(0, "a value that is not sampled anymore");
+        estimator.sample(1, "0000");
+        estimator.applyTo(sheet);
+
+        //then
+        assertThat(estimator.needsSample(0)).isFalse();
+        assertThat(estimator.needsSample(1)).isTrue();
+        verify(sheet).setColumnWidth(0, (int) ((1 + 1.5f) * 256));
+        verify(sheet).setColumnWidth(1, (int) ((4 + 1.5f) * 256));
+    }
+
+    @Test
+    void itShouldClampTheWidthToTheMaximum() {
+        //given
+        ColumnWidthEstimator estimator = new ColumnWidthEstimator(1);
+        Sheet sheet = mock(Sheet.class);
+
+        //when
+        estimator.sample(0, "0".repeat(1000));
+        estimator.applyTo(sheet);
+
+        //then
+        verify(sheet).setColumnWidth(0, MAX_WIDTH);
+    }
+
+    @Test
+    void itShouldMeasureTheWidestLine() {
+        //given
+        ColumnWidthEstimator estimator = new ColumnWidthEstimator(1);
+        Sheet sheet = mock(Sheet.class);
+
+        //when
+        estimator.sample(0, "00\n000000\n000");
+        estimator.applyTo(sheet);
+
+        //then
+        verify(sheet).setColumnWidth(0, (int) ((6 + 1.5f) * 256));
+    }
+}
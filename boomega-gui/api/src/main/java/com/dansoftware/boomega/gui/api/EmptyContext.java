@@ -20,6 +20,7 @@ package com.dansoftware.boomega.gui.api;
 
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
+import javafx.concurrent.Task;
 import javafx.event.EventHandler;
 import javafx.scene.Node;
 import javafx.scene.Scene;
@@ -206,6 +207,11 @@ public interface EmptyContext extends Context {
 
     }
 
+    @Override
+    default void showTaskProgress(@NotNull Task<?> task) {
+
+    }
+
     @Override
     default void onWindowPresent(Consumer<Window> action) {
 
@@ -19,6 +19,7 @@
 package com.dansoftware.boomega.gui.api
 
 import javafx.collections.ObservableList
+import javafx.concurrent.Task
 import javafx.event.EventHandler
 import javafx.scene.Node
 import javafx.scene.Scene
@@ -219,6 +220,13 @@ interface Context {
     @NonBlocking
     fun showProgress(done: Long, max: Long, type: ProgressType)
 
+    /**
+     * Shows the title, the message and the progress of the given [Task] with a button
+     * for cancelling it. It disappears when the task is finished (or cancelled).
+     */
+    @NonBlocking
+    fun showTaskProgress(task: Task<*>)
+
     fun sendRequest(request: Request) {}
 
     /**
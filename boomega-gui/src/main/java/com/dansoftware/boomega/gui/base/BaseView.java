@@ -23,9 +23,11 @@ import com.dansoftware.boomega.gui.api.ContextDialog;
 import com.dansoftware.boomega.gui.control.ExceptionDisplayPane;
 import com.dansoftware.boomega.gui.control.NotificationNode;
 import com.dansoftware.boomega.gui.control.NotificationsBox;
+import com.dansoftware.boomega.gui.control.TaskProgressNode;
 import com.dansoftware.boomega.gui.util.EventUtils;
 import com.dansoftware.boomega.gui.util.I18NButtonTypes;
 import com.dansoftware.boomega.gui.util.WindowUtils;
+import com.dansoftware.boomega.i18n.api.I18N;
 import com.dlsc.workbenchfx.Workbench;
 import com.dlsc.workbenchfx.WorkbenchSkin;
 import com.dlsc.workbenchfx.model.WorkbenchDialog;
@@ -39,6 +41,7 @@ import javafx.beans.property.*;
 import javafx.beans.value.ChangeListener;
 import javafx.beans.value.ObservableValue;
 import javafx.collections.ObservableList;
+import javafx.concurrent.Task;
 import javafx.event.Event;
 import javafx.event.EventHandler;
 import javafx.geometry.Insets;
@@ -386,6 +389,17 @@ public class BaseView extends StackPane implements Context {
         logger.error("Progress request on closed BaseView");
     }
 
+    @Override
+    public void showTaskProgress(@NotNull Task<?> task) {
+        final var progressNode = new TaskProgressNode(task, I18N.getValue("Dialog.cancel.button"));
+        notificationsBox.pushItem(progressNode, null);
+        task.stateProperty().addListener((observable, oldState, state) -> {
+            switch (state) {
+                case SUCCEEDED, FAILED, CANCELLED -> notificationsBox.removeItem(progressNode);
+            }
+        });
+    }
+
     @Override
     public void onWindowPresent(@NotNull Consumer<Window> action) {
         EventUtils.onWindowPresent(workbench, action);
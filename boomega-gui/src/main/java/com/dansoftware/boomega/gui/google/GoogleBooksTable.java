@@ -18,11 +18,12 @@
 
 package com.dansoftware.boomega.gui.google;
 
+import com.dansoftware.boomega.di.DIService;
 import com.dansoftware.boomega.gui.control.BaseTable;
 import com.dansoftware.boomega.gui.control.ReadOnlyRating;
 import com.dansoftware.boomega.gui.control.TableViewPlaceHolder;
 import com.dansoftware.boomega.gui.control.WebsiteHyperLink;
-import com.dansoftware.boomega.gui.util.ImageUtils;
+import com.dansoftware.boomega.gui.util.ConcurrencyUtils;
 import com.dansoftware.boomega.gui.util.ObservableUtils;
 import com.dansoftware.boomega.i18n.api.I18N;
 import com.dansoftware.boomega.rest.google.books.VolumeUtils;
@@ -56,6 +57,11 @@ import static com.dansoftware.boomega.i18n.api.I18NUtils.i18n;
  */
 public class GoogleBooksTable extends BaseTable<Volume> {
 
+    /**
+     * The height the thumbnails are decoded to in the table
+     */
+    public static final int THUMBNAIL_HEIGHT = 176;
+
     public static final ColumnType INDEX_COLUMN =
             new ColumnType(
                     "index",
@@ -344,11 +350,13 @@ public class GoogleBooksTable extends BaseTable<Volume> {
                                     var icon = icon("image-icon");
                                     icon.getStyleClass().add("thumbnail-place-holder");
                                     setGraphic(icon);
-                                    ImageUtils.loadImage(thumbnail, image -> {
-                                        if (volume.equals(getCurrentVolumeInfo())) {
-                                            setGraphic(new ImageView(image));
-                                        }
-                                    });
+                                    DIService.get(CoverImageService.class)
+                                            .load(thumbnail, 0, THUMBNAIL_HEIGHT)
+                                            .thenAccept(image -> ConcurrencyUtils.runOnUiThread(() -> {
+                                                if (volume.equals(getCurrentVolumeInfo())) {
+                                                    setGraphic(new ImageView(image));
+                                                }
+                                            }));
                                     setText(null);
                                 }, () -> {
                                     setGraphic(null);
@@ -0,0 +1,100 @@
+/*
+ * Boomega - A modern book explorer & catalog application
+ * Copyright (C) 2020-2022  Daniel Gyoerffy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.dansoftware.boomega.gui.recordview;
+
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableList;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+
+/**
+ * Sorts copies of observable lists with a parallel sort in the background.
+ * <p>
+ * Only the result of the latest sort is applied; a sort during which the items were changed
+ * (for example a record was updated) is started over, so its result doesn't revert the change.
+ *
+ * @param <T> the type of the items
+ */
+class BackgroundSorter<T> {
+
+    private final Executor executor;
+    private final Executor applyExecutor;
+    private final ListChangeListener<T> itemsListener = change -> itemsVersion++;
+
+    /**
+     * The list observed for changes (the one sorted last)
+     */
+    private ObservableList<T> items;
+
+    /**
+     * Increased on every sort, so only the latest result is applied
+     */
+    private int sortVersion;
+
+    /**
+     * Increased on every change of the {@link #items}, so stale results are not applied
+     */
+    private int itemsVersion;
+
+    /**
+     * @param executor      the executor the sorting is performed on
+     * @param applyExecutor the executor the results are applied on (the thread the items are modified on)
+     */
+    BackgroundSorter(Executor executor, Executor applyExecutor) {
+        this.executor = executor;
+        this.applyExecutor = applyExecutor;
+    }
+
+    /**
+     * Sorts a copy of the given items in the background, and passes the sorted items to the given
+     * consumer (on the apply-executor), unless another sort was started in the meantime.
+     * Must be called on the thread the items are modified on.
+     */
+    void sort(ObservableList<T> items, Comparator<? super T> comparator, Consumer<List<T>> applier) {
+        observe(items);
+        int sortVersion = ++this.sortVersion;
+        int itemsVersion = this.itemsVersion;
+        @SuppressWarnings("unchecked")
+        T[] sorted = (T[]) items.toArray();
+        executor.execute(() -> {
+            Arrays.parallelSort(sorted, comparator);
+            applyExecutor.execute(() -> {
+                if (sortVersion != this.sortVersion)
+                    return;
+                if (itemsVersion != this.itemsVersion)
+                    sort(items, comparator, applier);
+                else
+                    applier.accept(Arrays.asList(sorted));
+            });
+        });
+    }
+
+    private void observe(ObservableList<T> items) {
+        if (this.items == items)
+            return;
+        if (this.items != null)
+            this.items.removeListener(itemsListener);
+        this.items = items;
+        items.addListener(itemsListener);
+    }
+}
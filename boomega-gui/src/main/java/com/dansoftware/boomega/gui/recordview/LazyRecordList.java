@@ -0,0 +1,231 @@
+/*
+ * Boomega - A modern book explorer & catalog application
+ * Copyright (C) 2020-2022  Daniel Gyoerffy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.dansoftware.boomega.gui.recordview;
+
+import com.dansoftware.boomega.database.api.Database;
+import com.dansoftware.boomega.database.api.RecordQuery;
+import com.dansoftware.boomega.database.api.data.Record;
+import javafx.application.Platform;
+import javafx.collections.ObservableListBase;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+
+import static com.dansoftware.boomega.di.DIService.get;
+
+/**
+ * A read-only {@link javafx.collections.ObservableList} that fetches the records of a {@link Database}
+ * page by page, only when they are accessed (e.g. when the rows of a {@link RecordTable} become visible).
+ *
+ * <p>
+ * An element of a page that is not loaded yet is {@code null}; the page is fetched in the background,
+ * and an update change is fired when it's available. The pages next to the accessed ones are prefetched,
+ * and only the last {@value #CACHED_PAGES} accessed pages are kept in memory.
+ *
+ * <p>
+ * The records are sorted by the database (see {@link #sortBy(List)}), so only the sorts it can perform
+ * without loading all the records are supported.
+ * The list doesn't follow the changes of the database automatically, it has to be {@link #reload(Runnable) reloaded}.
+ * It should only be used from the JavaFX Application Thread.
+ */
+public class LazyRecordList extends ObservableListBase<Record> {
+
+    private static final Logger logger = LoggerFactory.getLogger(LazyRecordList.class);
+
+    /**
+     * The count of records fetched at once
+     */
+    static final int PAGE_SIZE = 200;
+
+    /**
+     * The maximum count of pages kept in the memory
+     */
+    static final int CACHED_PAGES = 16;
+
+    private final Database database;
+
+    /**
+     * The loaded pages in access-order, so the least recently used ones are evicted first
+     */
+    private final Map<Integer, List<Record>> pages = new LinkedHashMap<>(CACHED_PAGES, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, List<Record>> eldest) {
+            return size() > CACHED_PAGES;
+        }
+    };
+
+    private final Set<Integer> loadingPages = new HashSet<>();
+
+    private List<RecordQuery.SortKey> sortKeys = List.of();
+    private int size;
+
+    /**
+     * Increased on every reload, so the pages fetched before are dropped
+     */
+    private int generation;
+
+    public LazyRecordList(@NotNull Database database) {
+        this.database = Objects.requireNonNull(database);
+    }
+
+    @NotNull
+    public Database getDatabase() {
+        return database;
+    }
+
+    @Nullable
+    @Override
+    public Record get(int index) {
+        Objects.checkIndex(index, size);
+        int page = index / PAGE_SIZE;
+        List<Record> records = pages.get(page);
+        if (records == null) {
+            load(page);
+        }
+        // prefetching the adjacent pages, so scrolling doesn't show empty rows
+        load(page - 1);
+        load(page + 1);
+
+        int offset = index % PAGE_SIZE;
+        return records != null && offset < records.size() ? records.get(offset) : null;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Tells whether the records can be sorted by the given keys; only the sorts the database
+     * can perform itself are allowed, since every page is fetched with a separate query.
+     */
+    public boolean canSortBy(@NotNull List<RecordQuery.SortKey> sortKeys) {
+        return database.canSortBy(sortKeys);
+    }
+
+    /**
+     * Sorts the records by the given keys; the records are reloaded from the database.
+     *
+     * @throws IllegalArgumentException if the database can't sort by the given keys (see {@link #canSortBy(List)})
+     */
+    public void sortBy(@NotNull List<RecordQuery.SortKey> sortKeys) {
+        if (!canSortBy(sortKeys))
+            throw new IllegalArgumentException("The database can't sort the records by the given keys");
+        if (isSameOrder(this.sortKeys, sortKeys))
+            return;
+        this.sortKeys = List.copyOf(sortKeys);
+        reload(() -> { });
+    }
+
+    private static boolean isSameOrder(List<RecordQuery.SortKey> left, List<RecordQuery.SortKey> right) {
+        if (left.size() != right.size())
+            return false;
+        for (int i = 0; i < left.size(); i++) {
+            if (left.get(i).getProperty() != right.get(i).getProperty() ||
+                    left.get(i).getDescending() != right.get(i).getDescending())
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Drops the loaded pages and counts the records again.
+     *
+     * @param onReloaded called on the JavaFX Application Thread when the new size is available
+     */
+    public void reload(@NotNull Runnable onReloaded) {
+        int reloadGeneration = ++generation;
+        pages.clear();
+        loadingPages.clear();
+        executor().execute(() -> {
+            try {
+                int newSize = database.getTotalRecordCount();
+                Platform.runLater(() -> {
+                    if (reloadGeneration == generation) {
+                        resize(newSize);
+                        onReloaded.run();
+                    }
+                });
+            } catch (RuntimeException e) {
+                logger.error("Couldn't count the records", e);
+            }
+        });
+    }
+
+    private void resize(int newSize) {
+        int oldSize = size;
+        size = newSize;
+        if (oldSize == 0 && newSize == 0)
+            return;
+        beginChange();
+        nextReplace(0, newSize, Collections.nCopies(oldSize, null));
+        endChange();
+    }
+
+    private void load(int page) {
+        if (page < 0 || page * PAGE_SIZE >= size || pages.containsKey(page) || !loadingPages.add(page))
+            return;
+
+        int pageGeneration = generation;
+        RecordQuery query = buildQuery(page);
+        executor().execute(() -> {
+            try {
+                List<Record> records = query.getSortKeys().isEmpty() ?
+                        database.records(query.getOffset(), PAGE_SIZE) : database.find(query);
+                Platform.runLater(() -> onPageLoaded(pageGeneration, page, records));
+            } catch (RuntimeException e) {
+                logger.error("Couldn't load page {} of the records", page, e);
+                Platform.runLater(() -> {
+                    if (pageGeneration == generation)
+                        loadingPages.remove(page);
+                });
+            }
+        });
+    }
+
+    private RecordQuery buildQuery(int page) {
+        RecordQuery query = new RecordQuery();
+        sortKeys.forEach(key -> query.sortBy(key.getProperty(), key.getDescending()));
+        return query.offset(page * PAGE_SIZE).limit(PAGE_SIZE);
+    }
+
+    private void onPageLoaded(int pageGeneration, int page, List<Record> records) {
+        if (pageGeneration != generation)
+            return;
+        loadingPages.remove(page);
+        pages.put(page, records);
+
+        int from = page * PAGE_SIZE;
+        int to = Math.min(from + records.size(), size);
+        if (from >= to)
+            return;
+        beginChange();
+        for (int i = from; i < to; i++)
+            nextUpdate(i);
+        endChange();
+    }
+
+    private static ExecutorService executor() {
+        return get(ExecutorService.class, "cachedExecutor");
+    }
+}
@@ -18,6 +18,7 @@
 
 package com.dansoftware.boomega.gui.recordview;
 
+import com.dansoftware.boomega.database.api.RecordQuery;
 import com.dansoftware.boomega.database.api.data.Record;
 import com.dansoftware.boomega.database.api.data.RecordProperty;
 import com.dansoftware.boomega.database.api.data.ServiceConnection;
@@ -27,16 +28,19 @@ import com.dansoftware.boomega.gui.control.TableViewPlaceHolder;
 import com.dansoftware.boomega.gui.google.VolumeRecordConversions;
 import de.jensd.fx.glyphs.materialdesignicons.MaterialDesignIcon;
 import de.jensd.fx.glyphs.materialdesignicons.MaterialDesignIconView;
+import javafx.application.Platform;
 import javafx.beans.property.IntegerProperty;
 import javafx.beans.property.ReadOnlyObjectWrapper;
 import javafx.beans.property.SimpleIntegerProperty;
 import javafx.beans.value.ObservableValue;
 import javafx.beans.value.ObservableValueBase;
+import javafx.collections.ObservableList;
 import javafx.scene.Node;
 import javafx.scene.control.Label;
 import javafx.scene.control.SelectionMode;
 import javafx.scene.control.TableCell;
 import javafx.scene.control.TableColumn;
+import javafx.scene.control.TableView;
 import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
@@ -47,11 +51,15 @@ import org.apache.commons.lang3.StringUtils;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.util.Comparator;
 import java.util.List;
 import java.util.Locale;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.ExecutorService;
 import java.util.function.BiFunction;
 
+import static com.dansoftware.boomega.di.DIService.get;
 import static com.dansoftware.boomega.gui.control.BaseTable.ColumnType.*;
 import static com.dansoftware.boomega.i18n.api.I18NUtils.i18n;
 
@@ -172,14 +180,75 @@ public class RecordTable extends BaseTable<Record> {
 
     private static final String STYLE_CLASS = "books-table";
 
+    /**
+     * The minimum count of items that are sorted in the background
+     */
+    private static final int PARALLEL_SORT_THRESHOLD = 10_000;
+
     private final IntegerProperty startIndex;
 
+    private final BackgroundSorter<Record> backgroundSorter =
+            new BackgroundSorter<>(task -> get(ExecutorService.class, "cachedExecutor").execute(task), Platform::runLater);
+
     public RecordTable(int startIndex) {
         this.startIndex = new SimpleIntegerProperty(startIndex);
         this.getStyleClass().add(STYLE_CLASS);
         this.getSelectionModel().setSelectionMode(SelectionMode.MULTIPLE);
         this.setColumnResizePolicy(CONSTRAINED_RESIZE_POLICY);
         this.setPlaceholder(new PlaceHolder(this));
+        this.setSortPolicy(RecordTable::sort);
+    }
+
+    /**
+     * A {@link LazyRecordList} can't be sorted in memory, the sorting is delegated to the database;
+     * a sort the database can't perform itself is refused (the table restores the previous sort order).
+     * Large lists are sorted in the background.
+     */
+    private static Boolean sort(TableView<Record> table) {
+        if (table.getItems() instanceof LazyRecordList lazyItems) {
+            List<RecordQuery.SortKey> sortKeys = sortKeys(table);
+            if (!lazyItems.canSortBy(sortKeys))
+                return false;
+            lazyItems.sortBy(sortKeys);
+            return true;
+        }
+        if (table.getItems() != null && table.getItems().size() >= PARALLEL_SORT_THRESHOLD) {
+            ((RecordTable) table).sortInBackground();
+            return true;
+        }
+        return TableView.DEFAULT_SORT_POLICY.call(table);
+    }
+
+    /**
+     * Sorts a copy of the items with a parallel sort off the JavaFX Application Thread, and then
+     * replaces the items with the sorted ones (see {@link BackgroundSorter}).
+     */
+    private void sortInBackground() {
+        Comparator<Record> comparator = getComparator();
+        ObservableList<Record> items = getItems();
+        if (comparator == null)
+            return;
+
+        backgroundSorter.sort(items, comparator, sorted -> {
+            if (getItems() != items)
+                return;
+            List<Record> selected = List.copyOf(getSelectionModel().getSelectedItems());
+            items.setAll(sorted);
+            selected.forEach(getSelectionModel()::select);
+        });
+    }
+
+    private static List<RecordQuery.SortKey> sortKeys(TableView<Record> table) {
+        return table.getSortOrder().stream()
+                .filter(Column.class::isInstance)
+                .map(column -> RecordProperty.Companion.getAllProperties().stream()
+                        .filter(RecordProperty::isSortable)
+                        .filter(property -> property.getId().equals(((Column<?, ?>) column).getColumnType().getId()))
+                        .findAny()
+                        .map(property -> new RecordQuery.SortKey(property, column.getSortType() == TableColumn.SortType.DESCENDING))
+                        .orElse(null))
+                .filter(Objects::nonNull)
+                .toList();
     }
 
     public IntegerProperty startIndexProperty() {
@@ -227,7 +296,7 @@ public class RecordTable extends BaseTable<Record> {
     }
 
     private static final class IndexColumn extends Column<Record, Integer>
-            implements Callback<TableColumn.CellDataFeatures<Record, Integer>, ObservableValue<Integer>> {
+            implements Callback<TableColumn<Record, Integer>, TableCell<Record, Integer>> {
         private static final int COLUMN_WIDTH_UNIT = 60;
 
         private final IntegerProperty startIndexProperty;
@@ -239,16 +308,17 @@ public class RecordTable extends BaseTable<Record> {
             setSortable(false);
             setMinWidth(COLUMN_WIDTH_UNIT);
             setMaxWidth(COLUMN_WIDTH_UNIT);
-            setCellValueFactory(this);
+            setCellFactory(this);
         }
 
         @Override
-        public ObservableValue<Integer> call(CellDataFeatures<Record, Integer> cellData) {
-            return new ObservableValueBase<>() {
+        public TableCell<Record, Integer> call(TableColumn<Record, Integer> param) {
+            // the row number is taken from the index of the cell, so the items don't have to be searched
+            return new RecordTableCell<>() {
                 @Override
-                public Integer getValue() {
-                    return startIndexProperty.get() +
-                            cellData.getTableView().getItems().indexOf(cellData.getValue()) + 1;
+                protected void updateItem(@Nullable Record item) {
+                    setText(getIndex() < 0 || getIndex() >= getTableView().getItems().size() ?
+                            null : String.valueOf(startIndexProperty.get() + getIndex() + 1));
                 }
             };
         }
@@ -293,6 +363,8 @@ public class RecordTable extends BaseTable<Record> {
             return new ObservableValueBase<>() {
                 @Override
                 public String getValue() {
+                    if (cellData.getValue() == null)
+                        return null;
                     final List<String> authors = cellData.getValue().getAuthors();
                     if (authors != null)
                         return String.join(", ", authors);
@@ -308,6 +380,9 @@ public class RecordTable extends BaseTable<Record> {
             setCellValueFactory(new PropertyValueFactory<>(property.getId()) {
                 @Override
                 public ObservableValue<String> call(CellDataFeatures<Record, String> param) {
+                    // the not yet loaded rows of a LazyRecordList are null
+                    if (param.getValue() == null)
+                        return new ReadOnlyObjectWrapper<>();
                     ObservableValue<String> observable = super.call(param);
                     Object value = observable.getValue();
                     return new ReadOnlyObjectWrapper<>(value != null ? value.toString() : "-");
@@ -328,6 +403,8 @@ public class RecordTable extends BaseTable<Record> {
             return new ObservableValueBase<String>() {
                 @Override
                 public String getValue() {
+                    if (cellData.getValue() == null)
+                        return null;
                     final Locale raw = cellData.getValue().getLanguage();
                     if (raw != null)
                         return raw.getDisplayLanguage();
@@ -0,0 +1,254 @@
+/*
+ * Boomega - A modern book explorer & catalog application
+ * Copyright (C) 2020-2022  Daniel Gyoerffy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.dansoftware.boomega.gui.google
+
+import com.github.benmanes.caffeine.cache.Cache
+import com.github.benmanes.caffeine.cache.Caffeine
+import javafx.scene.image.Image
+import org.slf4j.Logger
+import org.slf4j.LoggerFactory
+import java.io.ByteArrayInputStream
+import java.io.IOException
+import java.net.URI
+import java.net.http.HttpClient
+import java.net.http.HttpRequest
+import java.net.http.HttpResponse
+import java.nio.file.Files
+import java.nio.file.Path
+import java.nio.file.StandardCopyOption
+import java.nio.file.attribute.FileTime
+import java.security.MessageDigest
+import java.time.Duration
+import java.time.Instant
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.ExecutorService
+import javax.inject.Inject
+import javax.inject.Named
+import javax.inject.Singleton
+import kotlin.io.path.*
+
+/**
+ * Loads and caches the cover images (thumbnails) of the Google Books.
+ *
+ * The downloaded images are stored content-addressed on the disk (in the directory specified by the
+ * [DIRECTORY_PROPERTY] system property): the image files are named after the hash of their content,
+ * and the urls only point to them, so the same cover referenced through different urls is stored once.
+ * The decoded images are kept in memory, bounded by their decoded size. Concurrent loads of
+ * the same image share one request.
+ *
+ * @author Daniel Gyorffy
+ */
+@Singleton
+class CoverImageService internal constructor(
+    private val executor: ExecutorService,
+    private val diskMaxBytes: Long,
+    private val decoder: (bytes: ByteArray, width: Double, height: Double) -> Image
+) {
+
+    @Inject
+    constructor(@Named("cachedExecutor") executor: ExecutorService) : this(executor, DISK_MAX_BYTES, Companion::decode)
+
+    /**
+     * The size the disk cache is evicted down to, so the eviction doesn't run on every write once the cache is full
+     */
+    private val diskEvictionTarget: Long = diskMaxBytes / 10 * 9
+
+    private val directory: Path? = System.getProperty(DIRECTORY_PROPERTY)?.let(Path::of)
+
+    private val memory: Cache<Key, Image> = Caffeine.newBuilder()
+        .maximumWeight(MEMORY_MAX_BYTES)
+        .weigher<Key, Image> { _, image -> (image.width * image.height * BYTES_PER_PIXEL).toInt() }
+        .build()
+
+    private val inFlight = ConcurrentHashMap<Key, CompletableFuture<Image>>()
+
+    private val httpClient: HttpClient = HttpClient.newBuilder()
+        .followRedirects(HttpClient.Redirect.NORMAL)
+        .connectTimeout(Duration.ofSeconds(10))
+        .executor(executor)
+        .build()
+
+    private var diskSize: Long = -1
+
+    /**
+     * Loads the image from the given url, decoded to fit into the given size (keeping its ratio).
+     *
+     * @param url the url of the image
+     * @param width the maximum width of the decoded image; `0` means the original width
+     * @param height the maximum height of the decoded image; `0` means the original height
+     * @return the future completing with the image (not necessarily on the UI thread)
+     */
+    fun load(url: String, width: Double, height: Double): CompletableFuture<Image> {
+        val key = Key(url, width, height)
+        memory.getIfPresent(key)?.let { return CompletableFuture.completedFuture(it) }
+
+        val future = CompletableFuture<Image>()
+        inFlight.putIfAbsent(key, future)?.let { return it }
+        executor.execute {
+            val result = runCatching { decoder(readBytes(url), width, height).also { memory.put(key, it) } }
+            // removed before the completion, so a load retried on a failure doesn't get the failed future
+            inFlight.remove(key, future)
+            result
+                .onSuccess(future::complete)
+                .onFailure {
+                    logger.error("Couldn't load image '{}'", url, it)
+                    future.completeExceptionally(it)
+                }
+        }
+        return future
+    }
+
+    private fun readBytes(url: String): ByteArray =
+        readFromDisk(url) ?: download(url).also { writeToDisk(url, it) }
+
+    private fun download(url: String): ByteArray {
+        logger.debug("Downloading image '{}'", url)
+        val request = HttpRequest.newBuilder(URI.create(url)).timeout(Duration.ofSeconds(30)).GET().build()
+        val response = httpClient.send(request, HttpResponse.BodyHandlers.ofByteArray())
+        if (response.statusCode() !in 200..299)
+            throw IOException("Server responded with status ${response.statusCode()} for '$url'")
+        return response.body()
+    }
+
+    @Synchronized
+    private fun readFromDisk(url: String): ByteArray? {
+        val pointer = pointerFile(url)?.takeIf { it.exists() } ?: return null
+        return try {
+            val blob = blobFile(pointer.readText())?.takeIf { it.exists() }
+            if (blob == null) {
+                pointer.deleteIfExists() // left dangling by an earlier eviction
+                return null
+            }
+            blob.setLastModifiedTime(FileTime.from(Instant.now())) // for the least-recently-used eviction
+            blob.readBytes()
+        } catch (e: IOException) {
+            logger.error("Couldn't read cached image of '{}'", url, e)
+            null
+        }
+    }
+
+    @Synchronized
+    private fun writeToDisk(url: String, bytes: ByteArray) {
+        val directory = directory ?: return
+        try {
+            val hash = hash(bytes)
+            val blob = blobFile(hash)!!
+            if (!blob.exists()) {
+                val sizeBefore = currentDiskSize()
+                blob.parent.createDirectories()
+                val temp = Files.createTempFile(blob.parent, null, ".tmp")
+                try {
+                    temp.writeBytes(bytes)
+                    Files.move(temp, blob, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE)
+                } finally {
+                    temp.deleteIfExists()
+                }
+                diskSize = sizeBefore + bytes.size
+            }
+            pointerFile(url)!!.apply { parent.createDirectories() }.writeText(hash)
+            evictIfNeeded(directory)
+        } catch (e: IOException) {
+            logger.error("Couldn't cache image of '{}'", url, e)
+        }
+    }
+
+    private fun currentDiskSize(): Long {
+        if (diskSize < 0)
+            diskSize = blobs().sumOf { it.fileSize() }
+        return diskSize
+    }
+
+    /**
+     * Deletes the least-recently-used blobs down to the [diskEvictionTarget],
+     * and the pointers to the deleted blobs.
+     */
+    private fun evictIfNeeded(directory: Path) {
+        if (diskSize <= diskMaxBytes) return
+        val blobs = blobs().sortedBy { it.getLastModifiedTime() }
+        val files = blobs.iterator()
+        val evicted = HashSet<Path>()
+        while (diskSize > diskEvictionTarget && files.hasNext()) {
+            val file = files.next()
+            val size = file.fileSize()
+            if (file.deleteIfExists()) {
+                diskSize -= size
+                evicted.add(file)
+            }
+        }
+        val remainingHashes = blobs.filterNot(evicted::contains).mapTo(HashSet()) { it.nameWithoutExtension }
+        val deletedPointers = deleteDanglingPointers(remainingHashes)
+        logger.debug(
+            "Cover cache in '{}' evicted down to {} bytes ({} blobs, {} pointers deleted)",
+            directory, diskSize, evicted.size, deletedPointers
+        )
+    }
+
+    /**
+     * Deletes the url pointers that don't point to any of the given blobs.
+     *
+     * @return the count of the deleted pointers
+     */
+    private fun deleteDanglingPointers(blobHashes: Set<String>): Int {
+        val pointers = directory?.resolve(URLS)?.takeIf { it.isDirectory() }?.listDirectoryEntries() ?: return 0
+        return pointers.count { pointer ->
+            try {
+                pointer.readText() !in blobHashes && pointer.deleteIfExists()
+            } catch (e: IOException) {
+                logger.error("Couldn't check cover pointer '{}'", pointer, e)
+                false
+            }
+        }
+    }
+
+    private fun blobs(): List<Path> =
+        directory?.resolve(BLOBS)?.takeIf { it.isDirectory() }?.listDirectoryEntries("*$IMAGE_EXTENSION") ?: emptyList()
+
+    private fun blobFile(hash: String): Path? = directory?.resolve(BLOBS)?.resolve(hash + IMAGE_EXTENSION)
+
+    private fun pointerFile(url: String): Path? = directory?.resolve(URLS)?.resolve(hash(url.toByteArray()))
+
+    private fun hash(bytes: ByteArray): String =
+        MessageDigest.getInstance("SHA-256").digest(bytes).joinToString("") { "%02x".format(it) }
+
+    private data class Key(val url: String, val width: Double, val height: Double)
+
+    companion object {
+
+        private val logger: Logger = LoggerFactory.getLogger(CoverImageService::class.java)
+
+        /**
+         * The system property specifying the directory of the on-disk cache
+         */
+        const val DIRECTORY_PROPERTY = "boomega.cover.cache.dir"
+
+        private const val BLOBS = "blobs"
+        private const val URLS = "urls"
+        private const val IMAGE_EXTENSION = ".img"
+
+        private const val BYTES_PER_PIXEL = 4
+        private const val MEMORY_MAX_BYTES = 32L * 1024 * 1024
+        private const val DISK_MAX_BYTES = 128L * 1024 * 1024
+
+        private fun decode(bytes: ByteArray, width: Double, height: Double): Image =
+            Image(ByteArrayInputStream(bytes), width, height, true, true).also {
+                if (it.isError) throw IOException("Couldn't decode image", it.exception)
+            }
+    }
+}
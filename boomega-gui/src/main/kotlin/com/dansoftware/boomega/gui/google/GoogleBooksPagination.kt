@@ -25,8 +25,11 @@ import com.dansoftware.boomega.gui.util.I18NButtonTypes
 import com.dansoftware.boomega.gui.util.icon
 import com.dansoftware.boomega.i18n.api.i18n
 import com.dansoftware.boomega.rest.google.books.GoogleBooksQuery
+import com.dansoftware.boomega.rest.google.books.GoogleBooksRequest
 import com.dansoftware.boomega.rest.google.books.Volume
 import com.dansoftware.boomega.rest.google.books.Volumes
+import com.github.benmanes.caffeine.cache.Cache
+import com.github.benmanes.caffeine.cache.Caffeine
 import javafx.beans.property.IntegerProperty
 import javafx.beans.property.SimpleIntegerProperty
 import javafx.scene.control.ContextMenu
@@ -34,24 +37,111 @@ import javafx.scene.control.MenuItem
 import javafx.scene.control.Pagination
 import org.slf4j.Logger
 import org.slf4j.LoggerFactory
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.ConcurrentHashMap
 import java.util.concurrent.ExecutorService
+import kotlin.math.abs
 import kotlin.math.ceil
 
+/**
+ * A [Pagination] showing the results of a [GoogleBooksQuery] in a [GoogleBooksTable].
+ *
+ * The loaded pages are kept in a bounded cache, and the neighbour pages (up to the [prefetchDepth])
+ * are loaded speculatively in the background, so navigating between the pages doesn't have to wait
+ * for the server. The prefetches are cancelled when the results are refreshed or the pagination is
+ * removed from the scene.
+ */
 class GoogleBooksPagination(private val context: Context, private val query: GoogleBooksQuery) : Pagination() {
 
     val table: GoogleBooksTable = buildTable()
     val totalItemsProperty: IntegerProperty = SimpleIntegerProperty()
 
+    /**
+     * The number of pages prefetched in both directions from the current page; `0` turns prefetching off
+     */
+    var prefetchDepth: Int = DEFAULT_PREFETCH_DEPTH
+        set(value) {
+            require(value >= 0) { "Prefetch depth can't be less than 0!" }
+            field = value
+        }
+
+    private val pageCache: Cache<Int, Volumes> = Caffeine.newBuilder()
+        .maximumSize(PAGE_CACHE_SIZE)
+        .build()
+
+    private val prefetches: MutableMap<Int, CompletableFuture<Volumes>> = ConcurrentHashMap()
+
+    /**
+     * Incremented on every cancellation, so the late results of the cancelled prefetches can be dropped
+     */
+    @Volatile
+    private var prefetchGeneration = 0
+
+    private val coverImageService: CoverImageService = get(CoverImageService::class)
+
     init {
         styleClass.add("google-books-pagination")
         setPageFactory {
-            get(ExecutorService::class, "cachedExecutor").submit(SearchTask(query.apply { startIndex = it * query.maxResults }))
+            loadPage(it)
             table
         }
+        sceneProperty().addListener { _, _, scene ->
+            if (scene == null) cancelPrefetches()
+        }
     }
 
     fun refresh() {
-        get(ExecutorService::class, "cachedExecutor").submit(SearchTask(query))
+        cancelPrefetches()
+        pageCache.invalidateAll()
+        loadPage(currentPageIndex)
+    }
+
+    private fun loadPage(page: Int) {
+        get(ExecutorService::class, "cachedExecutor").submit(SearchTask(page))
+    }
+
+    /**
+     * Builds the request of the given page. Should be called on the UI thread only.
+     */
+    private fun requestOf(page: Int): GoogleBooksRequest {
+        val startIndex = query.startIndex
+        query.startIndex = page * query.maxResults
+        return query.build().also { query.startIndex = startIndex }
+    }
+
+    private fun prefetchAround(page: Int) {
+        // dropping the prefetches that are out of range
+        prefetches.keys.filter { abs(it - page) > prefetchDepth }.forEach { prefetches.remove(it)?.cancel(false) }
+
+        for (distance in 1..prefetchDepth) {
+            listOf(page + distance, page - distance)
+                .filter { it in 0 until pageCount }
+                .filter { pageCache.getIfPresent(it) == null && !prefetches.containsKey(it) }
+                .forEach(::prefetch)
+        }
+    }
+
+    private fun prefetch(page: Int) {
+        val request = requestOf(page).takeUnless { it.isEmpty } ?: return
+        logger.debug("Prefetching page {}", page)
+        val generation = prefetchGeneration
+        // the source future is stored, since cancelling a dependent stage wouldn't abort the http exchange
+        val future = request.loadAsync()
+        prefetches[page] = future
+        future.whenComplete { volumes, _ ->
+            if (generation == prefetchGeneration) volumes?.let { pageCache.put(page, it) }
+        }
+    }
+
+    private fun cancelPrefetches() {
+        prefetchGeneration++
+        prefetches.values.forEach { it.cancel(false) }
+        prefetches.clear()
+    }
+
+    private fun prefetchThumbnails(volumes: Volumes) {
+        volumes.mapNotNull { it.volumeInfo?.imageLinks?.thumbnail }
+            .forEach { coverImageService.load(it, 0.0, GoogleBooksTable.THUMBNAIL_HEIGHT.toDouble()) }
     }
 
     private fun buildTable() = GoogleBooksTable(0).apply {
@@ -75,22 +165,52 @@ class GoogleBooksPagination(private val context: Context, private val query: Goo
         showVolumeInfo(table.selectionModel.selectedItem)
     }
 
-    private inner class SearchTask(private val query: GoogleBooksQuery) : GoogleBooksSearchTask(query) {
+    private inner class SearchTask(private val page: Int) : GoogleBooksSearchTask(query) {
+
+        private val request = requestOf(page)
+        private val cached: Volumes? = pageCache.getIfPresent(page)
+        private val prefetch: CompletableFuture<Volumes>? = prefetches.remove(page)
+
         init {
             setOnRunning { onRunning() }
             setOnFailed { onFailed(it.source.exception) }
             setOnSucceeded { onSucceeded(value) }
         }
 
+        override fun call(): Volumes {
+            cached?.let { return it }
+            prefetch?.let {
+                try {
+                    return it.get()
+                } catch (e: Exception) {
+                    logger.debug("Prefetch of page {} failed; loading it again", page, e)
+                }
+            }
+            return when {
+                request.isEmpty -> Volumes()
+                else -> request.load()
+            }
+        }
+
+        /**
+         * Tells whether the page of this task is still the one displayed; the results of
+         * the tasks of the pages the user has navigated away from are not displayed
+         */
+        private val isCurrent: Boolean
+            get() = currentPageIndex == page
+
         private fun onRunning() {
+            if (!isCurrent) return
             table.items.clear()
-            table.startIndex = query.startIndex
-            context.showIndeterminateProgress()
+            table.startIndex = page * query.maxResults
+            // a cached page is displayed immediately, the progress of a previous page is not relevant anymore
+            if (cached == null) context.showIndeterminateProgress() else context.stopProgress()
         }
 
         private fun onFailed(e: Throwable?) {
-            context.stopProgress()
             logger.error("Couldn't execute search task. ", e)
+            if (!isCurrent) return
+            context.stopProgress()
             context.showErrorDialog(
                 i18n("google.books.search.failed.title"),
                 i18n("google.books.search.failed.msg"),
@@ -103,6 +223,8 @@ class GoogleBooksPagination(private val context: Context, private val query: Goo
         }
 
         private fun onSucceeded(volumes: Volumes) {
+            pageCache.put(page, volumes)
+            if (!isCurrent) return
             context.stopProgress()
             table.items.setAll(volumes.items ?: emptyList())
             table.refresh()
@@ -112,10 +234,15 @@ class GoogleBooksPagination(private val context: Context, private val query: Goo
                     totalItemsProperty.set(volumes.totalItems)
                 }
             }
+            prefetchThumbnails(volumes)
+            prefetchAround(page)
         }
     }
 
     companion object {
         private val logger: Logger = LoggerFactory.getLogger(GoogleBooksPagination::class.java)
+
+        private const val DEFAULT_PREFETCH_DEPTH = 1
+        private const val PAGE_CACHE_SIZE = 20L
     }
 }
\ No newline at end of file
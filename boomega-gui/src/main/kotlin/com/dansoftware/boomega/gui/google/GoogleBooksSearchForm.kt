@@ -22,27 +22,36 @@ import com.dansoftware.boomega.gui.api.Context
 import com.dansoftware.boomega.gui.control.SearchTextField
 import com.dansoftware.boomega.gui.control.formsfx.LanguageSelectionControl
 import com.dansoftware.boomega.gui.control.formsfx.OnActionTextControl
+import com.dansoftware.boomega.gui.google.details.GoogleBookDetailsOverlay
 import com.dansoftware.boomega.gui.util.icon
 import com.dansoftware.boomega.gui.util.onScenePresent
 import com.dansoftware.boomega.i18n.api.I18N
 import com.dansoftware.boomega.i18n.api.i18n
 import com.dansoftware.boomega.rest.google.books.GoogleBooksQuery
+import com.dansoftware.boomega.rest.google.books.Volume
+import com.dansoftware.boomega.rest.google.books.Volumes
 import com.dlsc.formsfx.model.structure.Field
 import com.dlsc.formsfx.model.structure.Form
 import com.dlsc.formsfx.model.util.BindingMode
 import com.dlsc.formsfx.model.util.ResourceBundleService
 import com.dlsc.formsfx.view.renderer.FormRenderer
 import com.dlsc.formsfx.view.util.ColSpan
+import javafx.beans.property.BooleanProperty
+import javafx.beans.property.SimpleBooleanProperty
 import javafx.beans.property.SimpleStringProperty
 import javafx.beans.property.StringProperty
 import javafx.scene.Group
 import javafx.scene.control.Button
+import javafx.scene.control.CheckBox
+import javafx.scene.control.Hyperlink
 import javafx.scene.control.Label
 import javafx.scene.control.TitledPane
 import javafx.scene.image.Image
 import javafx.scene.image.ImageView
 import javafx.scene.layout.StackPane
 import javafx.scene.layout.VBox
+import org.slf4j.Logger
+import org.slf4j.LoggerFactory
 
 /**
  * The [GoogleBooksSearchForm] is where the user can start the Google Books search.
@@ -60,12 +69,64 @@ class GoogleBooksSearchForm(
     val isbn: StringProperty = SimpleStringProperty("")
     val language: StringProperty = SimpleStringProperty("")
 
+    /**
+     * Tells whether the results are searched (and previewed) while the user is typing
+     */
+    val liveSearchEnabled: BooleanProperty = SimpleBooleanProperty(true)
+
+    private val liveSearch = LiveSearch(::showLiveResults, ::onLiveSearchFailed)
+    private val liveResults = VBox(2.0).apply { styleClass.add("live-search-results") }
+
     init {
         styleClass.add("google-books-search-form")
         buildUI()
         playAnimation()
+        initLiveSearch()
+    }
+
+    private fun initLiveSearch() {
+        listOf(generalText, author, title, publisher, subject, isbn, language).forEach {
+            it.addListener { _, _, _ -> onInputChanged() }
+        }
+        liveSearchEnabled.addListener { _, _, _ -> onInputChanged() }
+        sceneProperty().addListener { _, _, scene ->
+            if (scene == null) stopLiveSearch()
+        }
+    }
+
+    private fun onInputChanged() {
+        val query = buildGoogleBooksQuery().apply { maxResults = LIVE_RESULTS_COUNT }
+        val inputLength = listOf(generalText, author, title, publisher, subject, isbn).sumOf { it.get()?.trim()?.length ?: 0 }
+        when {
+            liveSearchEnabled.get() && query.isComplete() && inputLength >= LIVE_SEARCH_MIN_LENGTH -> liveSearch.submit(query)
+            else -> stopLiveSearch()
+        }
+    }
+
+    private fun stopLiveSearch() {
+        liveSearch.cancel()
+        liveResults.children.clear()
     }
 
+    private fun showLiveResults(query: GoogleBooksQuery, volumes: Volumes) {
+        liveResults.children.setAll(
+            volumes.take(LIVE_RESULTS_COUNT).map { volume ->
+                Hyperlink(volume.liveResultText()).apply {
+                    setOnAction { context.showOverlay(GoogleBookDetailsOverlay(context, volume)) }
+                }
+            }
+        )
+    }
+
+    private fun onLiveSearchFailed(e: Throwable) {
+        // the live results are just a preview, so the failures are not shown to the user
+        logger.debug("Live search failed", e)
+        liveResults.children.clear()
+    }
+
+    private fun Volume.liveResultText() =
+        listOfNotNull(volumeInfo?.title, volumeInfo?.authors?.joinToString(", ")).joinToString(" - ")
+
     private fun playAnimation() {
         onScenePresent {
             animatefx.animation.FadeInUp(this).play()
@@ -83,6 +144,8 @@ class GoogleBooksSearchForm(
             buildTitleLabel(),
             buildDescriptionLabel(),
             buildMainSearchTextField(),
+            liveResults,
+            buildLiveSearchToggle(),
             buildDetailsSearchArea(),
             buildSearchButton()
         )
@@ -109,6 +172,10 @@ class GoogleBooksSearchForm(
         setOnAction { search() }
     }
 
+    private fun buildLiveSearchToggle() = CheckBox(i18n("google.books.add.form.live")).apply {
+        selectedProperty().bindBidirectional(liveSearchEnabled)
+    }
+
     private fun buildDetailsSearchArea() =
         TitledPane(
             i18n("google.books.form.details"),
@@ -167,6 +234,7 @@ class GoogleBooksSearchForm(
     }
 
     private fun search() {
+        stopLiveSearch()
         onSearchRequest(buildGoogleBooksQuery())
     }
 
@@ -180,4 +248,11 @@ class GoogleBooksSearchForm(
             subject = this@GoogleBooksSearchForm.subject.get()
             isbn = this@GoogleBooksSearchForm.isbn.get()
         }
+
+    private companion object {
+        val logger: Logger = LoggerFactory.getLogger(GoogleBooksSearchForm::class.java)
+
+        const val LIVE_SEARCH_MIN_LENGTH = 3
+        const val LIVE_RESULTS_COUNT = 5
+    }
 }
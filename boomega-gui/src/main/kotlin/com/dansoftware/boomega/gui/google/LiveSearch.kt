@@ -0,0 +1,108 @@
+/*
+ * Boomega - A modern book explorer & catalog application
+ * Copyright (C) 2020-2022  Daniel Gyoerffy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.dansoftware.boomega.gui.google
+
+import com.dansoftware.boomega.gui.util.runOnUiThread
+import com.dansoftware.boomega.rest.google.books.GoogleBooksQuery
+import com.dansoftware.boomega.rest.google.books.Volumes
+import javafx.animation.PauseTransition
+import javafx.util.Duration
+import org.slf4j.Logger
+import org.slf4j.LoggerFactory
+import java.util.concurrent.CancellationException
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.CompletionException
+
+/**
+ * Runs Google Books searches while the user is typing.
+ *
+ * The submitted queries are debounced: a request is only sent when no newer query arrived within
+ * the [delay]. Only the latest request matters: when a newer query is sent, the in-flight request
+ * of the previous one is cancelled, unless it's the very same request, which is just kept running.
+ * The callbacks are invoked on the UI thread, and only for the latest query.
+ *
+ * Should be used from the UI thread only.
+ */
+class LiveSearch(
+    private val onResults: (GoogleBooksQuery, Volumes) -> Unit,
+    private val onFailed: (Throwable) -> Unit,
+    delay: Duration = DEFAULT_DELAY
+) {
+
+    private val debounce = PauseTransition(delay).apply { setOnFinished { fire() } }
+
+    private var pendingQuery: GoogleBooksQuery? = null
+    private var currentUrl: String? = null
+    private var currentRequest: CompletableFuture<Volumes>? = null
+
+    /**
+     * Schedules the given query; it replaces the previously submitted one if that's not sent yet.
+     */
+    fun submit(query: GoogleBooksQuery) {
+        pendingQuery = query
+        debounce.playFromStart()
+    }
+
+    /**
+     * Drops the scheduled query and cancels the in-flight request.
+     */
+    fun cancel() {
+        debounce.stop()
+        pendingQuery = null
+        currentRequest?.cancel(true)
+        currentRequest = null
+        currentUrl = null
+    }
+
+    private fun fire() {
+        val query = pendingQuery ?: return
+        pendingQuery = null
+        val request = query.build().takeUnless { it.isEmpty } ?: return
+        val url = request.toString()
+
+        currentRequest?.let {
+            // coalescing with the identical in-flight request
+            if (url == currentUrl && !it.isDone) return
+            it.cancel(true)
+        }
+
+        logger.debug("Live search: {}", url)
+        val future = request.loadAsync()
+        currentUrl = url
+        currentRequest = future
+        future.whenComplete { volumes, error ->
+            runOnUiThread {
+                if (currentRequest !== future) return@runOnUiThread
+                when {
+                    error == null -> onResults(query, volumes ?: Volumes())
+                    error.unwrap() !is CancellationException -> onFailed(error.unwrap())
+                }
+            }
+        }
+    }
+
+    private fun Throwable.unwrap(): Throwable = (this as? CompletionException)?.cause ?: this
+
+    companion object {
+        private val logger: Logger = LoggerFactory.getLogger(LiveSearch::class.java)
+
+        @JvmField
+        val DEFAULT_DELAY: Duration = Duration.millis(400.0)
+    }
+}
@@ -18,17 +18,18 @@
 
 package com.dansoftware.boomega.gui.google.details
 
+import com.dansoftware.boomega.di.DIService.get
 import com.dansoftware.boomega.gui.api.Context
 import com.dansoftware.boomega.gui.databaseview.DatabaseView
+import com.dansoftware.boomega.gui.google.CoverImageService
 import com.dansoftware.boomega.gui.google.preview.GoogleBookPreviewTabItem
 import com.dansoftware.boomega.gui.util.SystemBrowser
 import com.dansoftware.boomega.gui.util.action
 import com.dansoftware.boomega.gui.util.icon
+import com.dansoftware.boomega.gui.util.runOnUiThread
 import com.dansoftware.boomega.gui.util.styleClass
 import com.dansoftware.boomega.i18n.api.i18n
 import com.dansoftware.boomega.rest.google.books.Volume
-import com.github.benmanes.caffeine.cache.Cache
-import com.github.benmanes.caffeine.cache.Caffeine
 import javafx.beans.property.ObjectProperty
 import javafx.beans.property.SimpleObjectProperty
 import javafx.scene.Cursor
@@ -42,12 +43,11 @@ import javafx.scene.input.MouseButton
 import javafx.scene.input.MouseEvent
 import javafx.scene.layout.StackPane
 import javafx.scene.layout.VBox
-import java.util.concurrent.TimeUnit
 
 /**
  * Responsible for displaying a Google Book's thumbnail and providing the ability to open the [GoogleBookPreviewTabItem].
  *
- * It takes care of caching and loading of the images.
+ * The images are loaded (and cached) through the [CoverImageService].
  */
 class ThumbnailArea(private val context: Context) : VBox(10.0) {
 
@@ -65,13 +65,7 @@ class ThumbnailArea(private val context: Context) : VBox(10.0) {
         }
     }
 
-    /**
-     * The cache for the loaded thumbnails. The unused thumbnails will be expired after 1 minute.
-     */
-    private val thumbnailCache: Cache<Volume, Image> =
-        Caffeine.newBuilder()
-            .expireAfterWrite(1, TimeUnit.MINUTES)
-            .build()
+    private val coverImageService: CoverImageService = get(CoverImageService::class)
 
     init {
         buildUI()
@@ -98,19 +92,21 @@ class ThumbnailArea(private val context: Context) : VBox(10.0) {
     }
 
     /**
-     * Checks the cache and retrieves the thumbnail for the given volume
+     * Retrieves the thumbnail for the given volume
      *
      * @param volume the volume we want the thumbnail of
-     * @param onAvailable the function called when the image is available
+     * @param onAvailable the function called (on the UI thread) when the image is available
      */
     private fun retrieveThumbnail(volume: Volume?, onAvailable: (Image?) -> Unit) {
-        volume?.let {
-            thumbnailCache.getIfPresent(volume)?.let(onAvailable) ?: volume.volumeInfo?.imageLinks?.thumbnail?.let {
-                val image = Image(it, true)
-                thumbnailCache.put(volume, image)
-                onAvailable(image)
+        val url = volume?.volumeInfo?.imageLinks?.thumbnail ?: return onAvailable(null)
+        val future = coverImageService.load(url, 0.0, THUMBNAIL_HEIGHT)
+        if (!future.isDone) onAvailable(null) // showing the place-holder while loading
+        future.whenComplete { image, _ ->
+            runOnUiThread {
+                // the volume might have been changed in the meantime
+                if (this.volume.get() === volume) onAvailable(image)
             }
-        } ?: onAvailable(null)
+        }
     }
 
     /**
@@ -160,4 +156,8 @@ class ThumbnailArea(private val context: Context) : VBox(10.0) {
                 }
             }
     }
-}
\ No newline at end of file
+
+    private companion object {
+        const val THUMBNAIL_HEIGHT = 200.0
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Boomega - A modern book explorer & catalog application
+ * Copyright (C) 2020-2022  Daniel Gyoerffy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.dansoftware.boomega.gui.google.enrich
+
+import org.slf4j.Logger
+import org.slf4j.LoggerFactory
+import java.io.IOException
+import java.nio.file.Path
+import java.nio.file.StandardOpenOption
+import kotlin.io.path.*
+
+/**
+ * Persists the ids of the records that have already been processed by a [LibraryEnrichment],
+ * so an interrupted run can be resumed without looking them up again. The checkpoint is cleared
+ * when a run completes.
+ *
+ * The ids are stored in a plain text file, one per line; new ids are appended to it.
+ *
+ * @author Daniel Gyorffy
+ */
+class EnrichCheckpoint(private val file: Path) {
+
+    private val ids: MutableSet<Long> = load()
+
+    /**
+     * The number of records processed so far
+     */
+    val size: Int
+        @Synchronized get() = ids.size
+
+    @Synchronized
+    operator fun contains(id: Long?): Boolean = id != null && id in ids
+
+    /**
+     * Marks the given records as processed.
+     */
+    @Synchronized
+    @Throws(IOException::class)
+    fun addAll(newIds: Collection<Long>) {
+        if (newIds.isEmpty()) return
+        file.parent?.createDirectories()
+        file.writeLines(newIds.map(Long::toString), Charsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND)
+        ids.addAll(newIds)
+    }
+
+    /**
+     * Forgets all the processed records.
+     */
+    @Synchronized
+    fun clear() {
+        ids.clear()
+        file.deleteIfExists()
+    }
+
+    private fun load(): MutableSet<Long> =
+        try {
+            when {
+                file.exists() -> file.readLines().mapNotNullTo(HashSet()) { it.trim().toLongOrNull() }
+                else -> HashSet()
+            }
+        } catch (e: IOException) {
+            logger.error("Couldn't read checkpoint '{}'", file, e)
+            HashSet()
+        }
+
+    private companion object {
+        val logger: Logger = LoggerFactory.getLogger(EnrichCheckpoint::class.java)
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Boomega - A modern book explorer & catalog application
+ * Copyright (C) 2020-2022  Daniel Gyoerffy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.dansoftware.boomega.gui.google.enrich
+
+import com.dansoftware.boomega.database.api.Database
+import com.dansoftware.boomega.i18n.api.i18n
+import com.dansoftware.boomega.rest.google.books.ResponseCache
+import com.dansoftware.boomega.util.tempDirectory
+import javafx.concurrent.Task
+import java.nio.file.Path
+import java.security.MessageDigest
+import java.time.Duration
+
+/**
+ * A [Task] that runs a [LibraryEnrichment] on the given database, reporting its progress
+ * (with the estimated time left) through the task's progress and message.
+ *
+ * The checkpoint of the enrichment is kept per database (see [checkpointOf]), so a cancelled
+ * or failed task continues where it stopped when it's started again.
+ *
+ * @author Daniel Gyorffy
+ */
+class LibraryEnrichTask(database: Database) : Task<LibraryEnrichment.Result>() {
+
+    private val enrichment = LibraryEnrichment(database, EnrichCheckpoint(checkpointOf(database)))
+
+    init {
+        updateTitle(i18n("google.books.enrich.title"))
+    }
+
+    override fun call(): LibraryEnrichment.Result =
+        enrichment.run(object : LibraryEnrichment.Observer {
+            override val isCancelled: Boolean
+                get() = this@LibraryEnrichTask.isCancelled
+
+            override fun onProgress(processed: Int, total: Int, matched: Int, remaining: Duration?) {
+                updateProgress(processed.toLong(), total.toLong())
+                updateMessage(
+                    when (remaining) {
+                        null -> i18n("google.books.enrich.progress.no_eta", processed, total, matched)
+                        else -> i18n("google.books.enrich.progress", processed, total, matched, remaining.format())
+                    }
+                )
+            }
+        })
+
+    private fun Duration.format(): String =
+        when {
+            toHours() > 0 -> "%d:%02d:%02d".format(toHours(), toMinutesPart(), toSecondsPart())
+            else -> "%d:%02d".format(toMinutes(), toSecondsPart())
+        }
+
+    companion object {
+
+        /**
+         * Gives the path of the checkpoint file belonging to the given database
+         */
+        @JvmStatic
+        fun checkpointOf(database: Database): Path {
+            val directory = System.getProperty(ResponseCache.DIRECTORY_PROPERTY)?.let(Path::of) ?: tempDirectory.toPath()
+            val digest = MessageDigest.getInstance("SHA-256")
+                .digest(database.meta.identifier.toByteArray(Charsets.UTF_8))
+                .joinToString("") { "%02x".format(it) }
+            return directory.resolve("enrich-$digest.checkpoint")
+        }
+    }
+}
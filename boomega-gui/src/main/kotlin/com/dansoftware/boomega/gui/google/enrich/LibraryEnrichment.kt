@@ -0,0 +1,252 @@
+/*
+ * Boomega - A modern book explorer & catalog application
+ * Copyright (C) 2020-2022  Daniel Gyoerffy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.dansoftware.boomega.gui.google.enrich
+
+import com.dansoftware.boomega.database.api.Database
+import com.dansoftware.boomega.database.api.data.Record
+import com.dansoftware.boomega.database.api.data.ServiceConnection
+import com.dansoftware.boomega.database.api.useRecords
+import com.dansoftware.boomega.gui.google.googleBookHandle
+import com.dansoftware.boomega.rest.google.books.GoogleBooksClient
+import com.dansoftware.boomega.rest.google.books.GoogleBooksQuery
+import com.dansoftware.boomega.rest.google.books.HttpStatusException
+import com.dansoftware.boomega.rest.google.books.VolumesParser
+import com.dansoftware.boomega.util.concurrent.TokenBucket
+import org.slf4j.Logger
+import org.slf4j.LoggerFactory
+import java.io.IOException
+import java.time.Duration
+import java.util.concurrent.ExecutorCompletionService
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+import kotlin.math.min
+import kotlin.random.Random
+
+/**
+ * Connects the records of a [Database] to Google Books in bulk.
+ *
+ * It looks up the records having an isbn but no Google Books connection with `isbn:` queries,
+ * and saves the first match as the record's [googleBookHandle]. The lookups run concurrently (bounded by
+ * [Settings.concurrency]) and are rate-limited with a [TokenBucket]; rate-limited (*429*) and failed (*5xx*)
+ * requests are retried with exponential backoff. The matches are written back in batches, and the processed
+ * records are saved into the [checkpoint] after every batch, so an interrupted run can be resumed.
+ *
+ * @author Daniel Gyorffy
+ */
+class LibraryEnrichment @JvmOverloads constructor(
+    private val database: Database,
+    private val checkpoint: EnrichCheckpoint,
+    private val client: GoogleBooksClient = GoogleBooksClient.default,
+    private val settings: Settings = Settings()
+) {
+
+    private val rateLimiter = TokenBucket(settings.permitsPerSecond)
+
+    /**
+     * The tuning parameters of a [LibraryEnrichment].
+     *
+     * @param concurrency the maximum number of lookups running at the same time
+     * @param permitsPerSecond the maximum (average) number of requests sent per second
+     * @param maxRetries the number of times a rate-limited or failed lookup is retried
+     * @param initialBackoff the delay before the first retry; doubled for every further retry
+     * @param batchSize the number of processed records written back at once
+     */
+    data class Settings @JvmOverloads constructor(
+        val concurrency: Int = 4,
+        val permitsPerSecond: Double = 5.0,
+        val maxRetries: Int = 5,
+        val initialBackoff: Duration = Duration.ofSeconds(1),
+        val batchSize: Int = 100
+    )
+
+    /**
+     * Receives the progress of a [LibraryEnrichment].
+     */
+    interface Observer {
+
+        /**
+         * Tells whether the enrichment should be stopped
+         */
+        val isCancelled: Boolean
+            get() = false
+
+        /**
+         * Called after every processed record.
+         *
+         * @param processed the number of records processed so far
+         * @param total the number of records to be processed
+         * @param matched the number of records connected to Google Books so far
+         * @param remaining the estimated time left; `null` if it's not known yet
+         */
+        fun onProgress(processed: Int, total: Int, matched: Int, remaining: Duration?) {}
+    }
+
+    /**
+     * The outcome of a [LibraryEnrichment].
+     *
+     * @param processed the number of looked up records
+     * @param matched the number of records connected to Google Books
+     * @param failed the number of records couldn't be looked up; they are retried by the next run
+     */
+    data class Result(val processed: Int, val matched: Int, val failed: Int)
+
+    private sealed class Lookup(val record: Record) {
+        class Match(record: Record, val volumeId: String) : Lookup(record)
+        class NoMatch(record: Record) : Lookup(record)
+        class Failure(record: Record, val cause: Exception) : Lookup(record)
+    }
+
+    /**
+     * Runs the enrichment on the calling thread.
+     */
+    fun run(observer: Observer): Result {
+        val candidates = database.useRecords { records ->
+            records.filter(::isCandidate).filterNot { it.id in checkpoint }.toList()
+        }
+        logger.debug("Enriching {} records ({} already processed)", candidates.size, checkpoint.size)
+        if (candidates.isEmpty()) {
+            checkpoint.clear()
+            return Result(0, 0, 0)
+        }
+
+        val pool = Executors.newFixedThreadPool(settings.concurrency) { runnable ->
+            Thread(runnable, "library-enrichment").apply { isDaemon = true }
+        }
+        val completion = ExecutorCompletionService<Lookup>(pool)
+        candidates.forEach { record -> completion.submit { lookup(record, observer) } }
+
+        // the google book handles of the matched records by their ids
+        val pendingHandles = HashMap<Long, String>()
+        val pendingIds = ArrayList<Long>()
+        fun flush() {
+            if (pendingHandles.isNotEmpty()) database.updateRecords(connectedRecords(pendingHandles))
+            checkpoint.addAll(pendingIds)
+            pendingHandles.clear()
+            pendingIds.clear()
+        }
+
+        val startTime = System.nanoTime()
+        var processed = 0
+        var matched = 0
+        var failed = 0
+        try {
+            while (processed < candidates.size && !observer.isCancelled) {
+                val lookup = completion.poll(POLL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS)?.get() ?: continue
+                processed++
+                when (lookup) {
+                    is Lookup.Match -> {
+                        matched++
+                        lookup.record.id?.let {
+                            pendingHandles[it] = lookup.volumeId
+                            pendingIds.add(it)
+                        }
+                    }
+                    is Lookup.NoMatch -> lookup.record.id?.let(pendingIds::add)
+                    is Lookup.Failure -> {
+                        failed++
+                        logger.error("Couldn't look up record with isbn '{}'", lookup.record.isbn, lookup.cause)
+                    }
+                }
+                if (pendingIds.size >= settings.batchSize) flush()
+                observer.onProgress(processed, candidates.size, matched, estimateRemaining(startTime, processed, candidates.size))
+            }
+        } finally {
+            pool.shutdownNow()
+            flush()
+        }
+        // only an interrupted run is resumed; the next run looks up the records without a match again
+        // (e.g. their isbn might have been corrected in the meantime)
+        if (processed == candidates.size) checkpoint.clear()
+        return Result(processed, matched, failed)
+    }
+
+    /**
+     * Re-reads the matched records, so the changes made to them during the enrichment are not
+     * overwritten; only their google book handles are set. The records deleted in the meantime are skipped.
+     */
+    private fun connectedRecords(handles: Map<Long, String>): List<Record> =
+        database.findByIds(handles.keys).onEach { record ->
+            record.serviceConnection = (record.serviceConnection?.copy() ?: ServiceConnection()).apply {
+                googleBookHandle = handles[record.id]
+            }
+        }
+
+    private fun isCandidate(record: Record): Boolean =
+        !record.isbn.isNullOrBlank() && record.serviceConnection?.googleBookHandle == null
+
+    private fun lookup(record: Record, observer: Observer): Lookup {
+        var attempt = 0
+        while (true) {
+            if (observer.isCancelled) return Lookup.Failure(record, InterruptedException("Cancelled"))
+            try {
+                rateLimiter.acquire()
+                val volume = GoogleBooksQuery()
+                    .apply {
+                        isbn = record.isbn
+                        maxResults = 1
+                    }
+                    .build(client)
+                    .load(VolumesParser.RECORD)
+                    .firstOrNull()
+                return when (val volumeId = volume?.id) {
+                    null -> Lookup.NoMatch(record)
+                    else -> Lookup.Match(record, volumeId)
+                }
+            } catch (e: InterruptedException) {
+                return Lookup.Failure(record, e)
+            } catch (e: IOException) {
+                val retryable = e !is HttpStatusException || e.isTransient
+                if (!retryable || attempt >= settings.maxRetries) return Lookup.Failure(record, e)
+                val backoff = backoff(attempt++)
+                logger.debug("Lookup of '{}' failed ({}); retrying in {}", record.isbn, e.message, backoff)
+                if (e is HttpStatusException && e.statusCode == TOO_MANY_REQUESTS) rateLimiter.pause(backoff)
+                try {
+                    Thread.sleep(backoff.toMillis())
+                } catch (interrupted: InterruptedException) {
+                    return Lookup.Failure(record, interrupted)
+                }
+            } catch (e: RuntimeException) {
+                return Lookup.Failure(record, e)
+            }
+        }
+    }
+
+    /**
+     * The exponentially growing delay (with some jitter, so the concurrent retries don't happen at the same time)
+     */
+    private fun backoff(attempt: Int): Duration {
+        val base = settings.initialBackoff.toMillis() * (1L shl min(attempt, 16))
+        return Duration.ofMillis(min(base + Random.nextLong(base / 2 + 1), MAX_BACKOFF_MILLIS))
+    }
+
+    private fun estimateRemaining(startTime: Long, processed: Int, total: Int): Duration? {
+        if (processed < MIN_SAMPLES_FOR_ESTIMATE) return null
+        val elapsed = System.nanoTime() - startTime
+        return Duration.ofNanos(elapsed / processed * (total - processed))
+    }
+
+    private companion object {
+        val logger: Logger = LoggerFactory.getLogger(LibraryEnrichment::class.java)
+
+        const val TOO_MANY_REQUESTS = 429
+        const val POLL_INTERVAL_MILLIS = 200L
+        const val MAX_BACKOFF_MILLIS = 60_000L
+        const val MIN_SAMPLES_FOR_ESTIMATE = 5
+    }
+}
@@ -47,6 +47,8 @@ class RecordContextMenu(private val recordsView: RecordsView) : ContextMenu() {
         items.add(buildCutItem())
         items.add(buildDuplicateItem())
         items.add(buildExportItem())
+        items.add(buildExportAllItem())
+        items.add(buildConnectAllItem())
         items.add(SeparatorMenuItem())
         items.add(buildPasteItem())
         items.add(SeparatorMenuItem())
@@ -97,6 +99,22 @@ class RecordContextMenu(private val recordsView: RecordsView) : ContextMenu() {
             disableProperty().bind(itemsEmpty)
         }
 
+    private fun buildConnectAllItem() =
+        MenuItem(i18n("google.books.enrich"), icon("link-icon"))
+            .action { recordsView.connectAllToGoogleBooks() }
+
+    @OptIn(RecordExportAPI::class)
+    private fun buildExportAllItem() =
+        Menu(i18n("record.context_menu.export_all"), icon("file-export-icon")).apply {
+            items.addAll(
+                SupportedExporters.map { exporter ->
+                    MenuItem(exporter.name, exporter.icon).action {
+                        recordsView.exportAll(exporter)
+                    }.apply { isDisable = exporter.isDisabled }
+                }
+            )
+        }
+
     private fun buildReloadItem() =
         MenuItem(i18n("page.reload"), icon("reload-icon"))
             .action { recordsView.refresh() }
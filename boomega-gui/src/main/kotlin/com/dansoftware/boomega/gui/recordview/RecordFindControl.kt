@@ -18,11 +18,17 @@
 
 package com.dansoftware.boomega.gui.recordview
 
+import com.dansoftware.boomega.database.api.RecordPredicate
+import com.dansoftware.boomega.database.api.RecordQuery
 import com.dansoftware.boomega.database.api.data.Record
+import com.dansoftware.boomega.database.api.data.RecordProperty
+import com.dansoftware.boomega.database.search.RecordSearchIndex
+import com.dansoftware.boomega.database.search.RecordSearchIndex.MatchMode
 import com.dansoftware.boomega.di.DIService.get
 import com.dansoftware.boomega.gui.control.SearchTextField
 import com.dansoftware.boomega.gui.util.icon
 import com.dansoftware.boomega.i18n.api.I18N
+import javafx.animation.PauseTransition
 import javafx.beans.property.*
 import javafx.collections.ListChangeListener
 import javafx.collections.ObservableList
@@ -34,12 +40,17 @@ import javafx.scene.control.*
 import javafx.scene.layout.HBox
 import javafx.scene.layout.Priority
 import javafx.scene.layout.StackPane
+import javafx.util.Duration
 import org.slf4j.Logger
 import org.slf4j.LoggerFactory
+import java.util.*
 import java.util.concurrent.ExecutorService
 import java.util.stream.Collectors
 
-class RecordFindControl(private val baseItems: ObservableList<Record>) : HBox(5.0) {
+class RecordFindControl(
+    private val baseItems: ObservableList<Record>,
+    private val searchIndex: RecordSearchIndex
+) : HBox(5.0) {
 
     @get:JvmName("onNewResultsProperty")
     val onNewResultsProperty: ObjectProperty<(List<Record>) -> Unit> = SimpleObjectProperty()
@@ -54,13 +65,20 @@ class RecordFindControl(private val baseItems: ObservableList<Record>) : HBox(5.
     private val baseText: SimpleStringProperty =
         object : SimpleStringProperty() {
             override fun invalidated() {
-                search {
-                    onNewResults?.invoke(it)
-                    resultsCount.set(it.size)
-                }
+                scheduleSearch()
             }
         }
 
+    /**
+     * Delays the search while the user is typing
+     */
+    private val searchDelay = PauseTransition(SEARCH_DELAY).apply { setOnFinished { search() } }
+
+    /**
+     * The task of the latest search; the previous ones are cancelled
+     */
+    private var searchTask: Task<List<Record>>? = null
+
     var onNewResults: ((List<Record>) -> Unit)?
         get() = onNewResultsProperty.get()
         set(value) {
@@ -74,20 +92,20 @@ class RecordFindControl(private val baseItems: ObservableList<Record>) : HBox(5.
         }
 
     private val filter: ObjectProperty<Filter> =
-        object : SimpleObjectProperty<Filter>(SimpleFilter(baseText, caseSensitive)) {
+        object : SimpleObjectProperty<Filter>(SimpleFilter()) {
             override fun invalidated() {
-                search {
-                    onNewResults?.invoke(it)
-                    resultsCount.set(it.size)
-                }
+                search()
             }
         }
 
     private val baseItemsChangeListener =
-        ListChangeListener<Record> {
-            search {
-                onNewResults?.invoke(it)
-                resultsCount.set(it.size)
+        ListChangeListener<Record> { change ->
+            // the pages loaded by a LazyRecordList are reported as updates
+            while (change.next()) {
+                if (!change.wasUpdated()) {
+                    scheduleSearch()
+                    break
+                }
             }
         }
 
@@ -101,6 +119,8 @@ class RecordFindControl(private val baseItems: ObservableList<Record>) : HBox(5.
 
     fun releaseListeners() {
         baseItems.removeListener(baseItemsChangeListener)
+        searchDelay.stop()
+        searchTask?.cancel()
     }
 
     override fun requestFocus() {
@@ -148,9 +168,9 @@ class RecordFindControl(private val baseItems: ObservableList<Record>) : HBox(5.
             selectedProperty().addListener { _, _, newValue ->
                 filter.set(
                     if (newValue)
-                        RegexFilter(baseText, caseSensitive)
+                        RegexFilter()
                     else
-                        SimpleFilter(baseText, caseSensitive)
+                        SimpleFilter()
                 )
             }
         }
@@ -163,9 +183,9 @@ class RecordFindControl(private val baseItems: ObservableList<Record>) : HBox(5.
             selectedProperty().addListener { _, _, newValue ->
                 filter.set(
                     if (newValue)
-                        ExactFilter(baseText, caseSensitive)
+                        ExactFilter()
                     else
-                        SimpleFilter(baseText, caseSensitive)
+                        SimpleFilter()
                 )
             }
         }
@@ -175,17 +195,7 @@ class RecordFindControl(private val baseItems: ObservableList<Record>) : HBox(5.
             tooltip = Tooltip(I18N.getValue("record.find.case_sensitive"))
             contentDisplay = ContentDisplay.GRAPHIC_ONLY
             caseSensitive.bind(selectedProperty())
-            selectedProperty().addListener { _, _, _ ->
-                filter.get().also { oldFilter ->
-                    filter.set(
-                        when (oldFilter) {
-                            is ExactFilter -> ExactFilter(baseText, caseSensitive)
-                            is RegexFilter -> RegexFilter(baseText, caseSensitive)
-                            else -> SimpleFilter(baseText, caseSensitive)
-                        }
-                    )
-                }
-            }
+            selectedProperty().addListener { _, _, _ -> search() }
         }
 
     private fun buildCloseButton() =
@@ -213,18 +223,44 @@ class RecordFindControl(private val baseItems: ObservableList<Record>) : HBox(5.
         children.removeIf { it is ProgressIndicator }
     }
 
-    private fun search(onItemsAvailable: (List<Record>) -> Unit) {
-        val task = object : Task<List<Record>>() {
+    private fun scheduleSearch() {
+        searchDelay.playFromStart()
+    }
+
+    /**
+     * Starts searching immediately; the previous search is cancelled, so only
+     * the results of the latest search are shown.
+     */
+    private fun search() {
+        searchDelay.stop()
+        searchTask?.cancel()
+        searchTask = buildSearchTask(
+            filter.get(),
+            baseText.get() ?: "",
+            !caseSensitive.get(),
+            // a LazyRecordList is not copied, since it would load all the pages
+            baseItems.takeUnless { it is LazyRecordList }?.let(::ArrayList)
+        ).also { get(ExecutorService::class, "cachedExecutor").submit(it) }
+    }
+
+    /**
+     * @param items the items to be filtered; if `null`, the records are searched in the database of the [LazyRecordList]
+     */
+    private fun buildSearchTask(filter: Filter, userInput: String, ignoreCase: Boolean, items: List<Record>?) =
+        object : Task<List<Record>>() {
 
             init {
                 setOnRunning {
                     errorMessage.set(null)
                     showProgress()
                 }
+                setOnCancelled {
+                    stopProgress()
+                }
                 setOnFailed {
                     errorMessage.set(null)
                     stopProgress()
-                    onItemsAvailable(emptyList())
+                    showResults(emptyList())
                     logger.error("Search failed", it.source.exception)
                     when (it.source.exception) {
                         is java.util.regex.PatternSyntaxException ->
@@ -234,58 +270,139 @@ class RecordFindControl(private val baseItems: ObservableList<Record>) : HBox(5.
                 setOnSucceeded {
                     errorMessage.set(null)
                     stopProgress()
-                    onItemsAvailable(value)
+                    showResults(value)
                 }
             }
 
             override fun call(): List<Record> {
-                return baseItems.stream()
-                    .filter { filter.get().filter(it) }
-                    .collect(Collectors.toList())
+                // the index is used only if it's already built; otherwise the items are checked one by one
+                val matches = searchIndex.takeIf { it.isBuilt }
+                    ?.let { filter.search(it, userInput, ignoreCase) }
+                    ?.let(::HashSet)
+                val matcher = filter.matcher(userInput, ignoreCase)
+                val predicate = { record: Record ->
+                    !isCancelled && (matches?.contains(record) ?: record.values().any(matcher))
+                }
+                if (items == null) {
+                    // the database narrows down the records, the matcher decides on the rest
+                    val query = RecordQuery().apply { filter.prefilter(userInput, ignoreCase)?.let(::where) }
+                    return (baseItems as LazyRecordList).database.find(query).filter(predicate)
+                }
+
+                val stream = if (items.size >= PARALLEL_THRESHOLD) items.parallelStream() else items.stream()
+                return stream.filter(predicate).collect(Collectors.toList())
             }
         }
-        get(ExecutorService::class, "cachedExecutor").submit(task)
-    }
-
-    private abstract class Filter(
-        private val baseText: StringProperty,
-        private val caseSensitive: BooleanProperty
-    ) {
-        abstract fun checkMatch(userInput: String, recordValue: String, ignoreCase: Boolean): Boolean
 
-        fun filter(record: Record): Boolean =
-            record.values().find { checkMatch(baseText.get() ?: "", it, !caseSensitive.get()) } !== null
+    private fun showResults(items: List<Record>) {
+        onNewResults?.invoke(items)
+        resultsCount.set(items.size)
     }
 
-    private class SimpleFilter(
-        baseText: StringProperty,
-        caseSensitive: BooleanProperty
-    ) : Filter(baseText, caseSensitive) {
-        override fun checkMatch(userInput: String, recordValue: String, ignoreCase: Boolean): Boolean =
-            recordValue.contains(userInput.trim(), ignoreCase)
+    private abstract class Filter {
+
+        /**
+         * Creates the function that decides whether a record value matches the user input.
+         *
+         * It's called once per search, so the preparations (e.g. compiling a pattern)
+         * are not repeated for every value.
+         */
+        abstract fun matcher(userInput: String, ignoreCase: Boolean): (String) -> Boolean
+
+        /**
+         * Finds the matching records with the given [RecordSearchIndex];
+         * returns `null` if the filter can't be answered by the index.
+         */
+        open fun search(index: RecordSearchIndex, userInput: String, ignoreCase: Boolean): List<Record>? = null
+
+        /**
+         * Builds the predicate the database can narrow down the records with; it has to be satisfied by
+         * (at least) every record matching the user input. Returns `null` if the records can't be narrowed down.
+         */
+        open fun prefilter(userInput: String, ignoreCase: Boolean): RecordPredicate? = null
+
+        /**
+         * Builds a predicate satisfied by every record having a value (see [Record.values])
+         * that contains the given [text].
+         */
+        protected fun containsPrefilter(text: String, ignoreCase: Boolean): RecordPredicate? {
+            if (text.isEmpty()) return null
+            val predicates: MutableList<RecordPredicate> =
+                TEXT_PROPERTIES.mapTo(ArrayList()) { RecordPredicate.Contains(it, text, ignoreCase) }
+
+            // the dates are given in the ISO format
+            if (text.all { it.isDigit() || it == '-' })
+                predicates.add(RecordPredicate.Contains(RecordProperty.PUBLISHED_DATE, text))
+
+            // the languages are given by their display names: the codes of the matching languages are searched
+            // (and the text itself, since the display name of an unknown language is its code)
+            val languageCodes = LANGUAGE_CODES.filter { Locale(it).displayLanguage.contains(text, ignoreCase) }
+            if (languageCodes.size > MAX_LANGUAGE_PREDICATES) return null
+            predicates.add(RecordPredicate.Contains(RecordProperty.LANGUAGE, text, ignoreCase))
+            languageCodes.mapTo(predicates) { RecordPredicate.Contains(RecordProperty.LANGUAGE, it, false) }
+            return RecordPredicate.AnyOf(predicates)
+        }
     }
 
-    private class ExactFilter(
-        baseText: StringProperty,
-        caseSensitive: BooleanProperty
-    ) : Filter(baseText, caseSensitive) {
-        override fun checkMatch(userInput: String, recordValue: String, ignoreCase: Boolean): Boolean =
-            recordValue.equals(userInput, ignoreCase)
+    private class SimpleFilter : Filter() {
+        override fun matcher(userInput: String, ignoreCase: Boolean): (String) -> Boolean =
+            userInput.trim().let { text -> { it.contains(text, ignoreCase) } }
+
+        override fun search(index: RecordSearchIndex, userInput: String, ignoreCase: Boolean): List<Record> =
+            index.search(userInput.trim(), MatchMode.CONTAINS, ignoreCase)
+
+        override fun prefilter(userInput: String, ignoreCase: Boolean): RecordPredicate? =
+            containsPrefilter(userInput.trim(), ignoreCase)
     }
 
-    private class RegexFilter(
-        baseText: StringProperty,
-        caseSensitive: BooleanProperty
-    ) : Filter(baseText, caseSensitive) {
+    private class ExactFilter : Filter() {
+        override fun matcher(userInput: String, ignoreCase: Boolean): (String) -> Boolean =
+            { it.equals(userInput, ignoreCase) }
 
-        private fun compileRegex(userInput: String, ignoreCase: Boolean) =
-            Regex(userInput, if (ignoreCase) setOf(RegexOption.IGNORE_CASE) else emptySet())
+        override fun search(index: RecordSearchIndex, userInput: String, ignoreCase: Boolean): List<Record> =
+            index.search(userInput, MatchMode.EXACT, ignoreCase)
 
-        override fun checkMatch(userInput: String, recordValue: String, ignoreCase: Boolean): Boolean =
-            compileRegex(userInput, ignoreCase).matches(recordValue)
+        // the values equal to the input also contain it
+        override fun prefilter(userInput: String, ignoreCase: Boolean): RecordPredicate? =
+            containsPrefilter(userInput, ignoreCase)
+    }
+
+    private class RegexFilter : Filter() {
+        override fun matcher(userInput: String, ignoreCase: Boolean): (String) -> Boolean =
+            Regex(userInput, if (ignoreCase) setOf(RegexOption.IGNORE_CASE) else emptySet())::matches
     }
 
     companion object {
         private val logger: Logger = LoggerFactory.getLogger(RecordFindControl::class.java)
+
+        private val SEARCH_DELAY = Duration.millis(200.0)
+
+        /**
+         * The minimum count of items that are filtered in parallel
+         */
+        private const val PARALLEL_THRESHOLD = 10_000
+
+        /**
+         * The string properties of the records that are searched
+         */
+        private val TEXT_PROPERTIES = listOf(
+            RecordProperty.TITLE,
+            RecordProperty.SUBTITLE,
+            RecordProperty.ISBN,
+            RecordProperty.MAGAZINE_NAME,
+            RecordProperty.NOTES,
+            RecordProperty.PUBLISHER,
+            RecordProperty.SUBJECT,
+            RecordProperty.AUTHORS
+        )
+
+        private val LANGUAGE_CODES: Set<String> =
+            Locale.getISOLanguages().toSet() + Locale.getAvailableLocales().map(Locale::getLanguage).filter(String::isNotEmpty)
+
+        /**
+         * The maximum count of languages the records are narrowed down by; if the input
+         * matches more languages (like a single letter does), the records are not narrowed down
+         */
+        private const val MAX_LANGUAGE_PREDICATES = 8
     }
 }
\ No newline at end of file
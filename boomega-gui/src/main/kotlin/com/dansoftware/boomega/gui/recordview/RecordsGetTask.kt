@@ -20,6 +20,7 @@ package com.dansoftware.boomega.gui.recordview
 
 import com.dansoftware.boomega.database.api.Database
 import com.dansoftware.boomega.database.api.data.Record
+import com.dansoftware.boomega.database.api.useRecords
 import com.dansoftware.boomega.gui.api.Context
 import com.dansoftware.boomega.i18n.api.i18n
 import javafx.concurrent.Task
@@ -35,7 +36,10 @@ open class RecordsGetTask(private val database: Database) :
     Task<List<Record>>() {
 
     override fun call(): List<Record> {
-        return database.records
+        // streaming the records through a cursor, so the loading can be stopped if the task is cancelled
+        return database.useRecords { records ->
+            records.takeWhile { !isCancelled }.toList()
+        }
     }
 }
 
@@ -19,18 +19,25 @@
 package com.dansoftware.boomega.gui.recordview
 
 import com.dansoftware.boomega.database.api.Database
+import com.dansoftware.boomega.database.api.DatabaseChangeEvent
+import com.dansoftware.boomega.database.api.DatabaseChangeListener
+import com.dansoftware.boomega.database.api.DatabaseChangeType
 import com.dansoftware.boomega.database.api.data.Record
+import com.dansoftware.boomega.database.search.RecordSearchIndex
 import com.dansoftware.boomega.di.DIService.get
 import com.dansoftware.boomega.export.api.RecordExportAPI
 import com.dansoftware.boomega.export.api.RecordExportConfiguration
 import com.dansoftware.boomega.export.api.RecordExporter
+import com.dansoftware.boomega.export.api.RecordSource
 import com.dansoftware.boomega.gui.api.Context
 import com.dansoftware.boomega.gui.clipboard.RecordClipboard
 import com.dansoftware.boomega.gui.control.BaseTable
+import com.dansoftware.boomega.gui.google.enrich.LibraryEnrichTask
 import com.dansoftware.boomega.gui.keybinding.KeyBindings
 import com.dansoftware.boomega.gui.keybinding.addKeyBindingDetection
 import com.dansoftware.boomega.gui.recordview.dock.Dock
 import com.dansoftware.boomega.gui.util.*
+import com.dansoftware.boomega.i18n.api.CollationKeyCache
 import com.dansoftware.boomega.i18n.api.I18N
 import com.dansoftware.boomega.i18n.api.i18n
 import com.dansoftware.boomega.util.open
@@ -51,24 +58,47 @@ import javafx.concurrent.WorkerStateEvent
 import javafx.event.Event
 import javafx.scene.layout.BorderPane
 import javafx.stage.FileChooser
+import javafx.util.Duration
 import org.slf4j.LoggerFactory
 import java.io.FileOutputStream
 import java.lang.reflect.Type
-import java.text.Collator
 import java.util.*
+import java.util.concurrent.ConcurrentLinkedQueue
 import java.util.concurrent.ExecutorService
+import java.util.concurrent.atomic.AtomicBoolean
 import java.util.stream.Collectors
 
+/**
+ * @param isLazy `true` if the database has too many records to load them into the memory at once
+ * (see [isLazyLoadingNeeded]); in this case the table fetches them page by page (see [LazyRecordList])
+ */
 class RecordsView(
     private val context: Context,
     private val database: Database,
-    private val preferences: com.dansoftware.boomega.config.Preferences
+    private val preferences: com.dansoftware.boomega.config.Preferences,
+    private val isLazy: Boolean
 ) : BorderPane() {
 
     private val copyHandle = Any()
-    private val baseItems: ObservableList<Record> = FXCollections.observableArrayList()
 
-    private val recordsViewBase = RecordsViewBase(context, preferences, database, baseItems)
+    private val baseItems: ObservableList<Record> =
+        if (isLazy) LazyRecordList(database) else FXCollections.observableArrayList()
+    private val searchIndex = RecordSearchIndex(database)
+
+    /**
+     * The database changes not applied on the [baseItems] yet
+     */
+    private val pendingChanges = ConcurrentLinkedQueue<DatabaseChangeEvent>()
+    private val changesScheduled = AtomicBoolean()
+
+    private val databaseChangeListener = DatabaseChangeListener { event ->
+        pendingChanges.add(DatabaseChangeEvent(event.type, event.records.toList()))
+        // the changes arriving until the next pulse are applied together
+        if (changesScheduled.compareAndSet(false, true))
+            Platform.runLater(::applyChanges)
+    }
+
+    private val recordsViewBase = RecordsViewBase(context, preferences, database, baseItems, searchIndex)
     private val toolbar = RecordsViewToolbar(context, this, preferences)
 
     val table: RecordTable
@@ -116,7 +146,10 @@ class RecordsView(
         initKeyDetections()
         buildTableRowContextMenu()
         readConfigurations()
+        database.addListener(databaseChangeListener)
         loadRecords()
+        // the index would hold all the records in the memory
+        if (!isLazy) buildSearchIndex()
     }
 
     private fun initKeyDetections() {
@@ -135,20 +168,69 @@ class RecordsView(
     }
 
     private fun configureSortingAbc(locale: Locale) {
-        @Suppress("UNCHECKED_CAST")
-        table.sortingComparator = I18N.getABCCollator(locale).orElse(Collator.getInstance()) as Comparator<String>
+        table.sortingComparator = CollationKeyCache.of(locale).comparator
         get(ExecutorService::class, "cachedExecutor").submit {
             preferences.editor()[ABC_CONFIG_KEY] = locale
         }
     }
 
+    private fun buildSearchIndex() {
+        get(ExecutorService::class, "cachedExecutor").submit {
+            try {
+                searchIndex.build()
+            } catch (e: RuntimeException) {
+                logger.error("Couldn't build the search index; the records will be searched without it", e)
+            }
+        }
+    }
+
+    /**
+     * Detaches the view from the database
+     */
+    fun releaseListeners() {
+        database.removeListener(databaseChangeListener)
+        searchIndex.close()
+    }
+
+    /**
+     * Applies the collected database changes on the [baseItems] in place
+     */
+    private fun applyChanges() {
+        changesScheduled.set(false)
+        val events = generateSequence(pendingChanges::poll).toList()
+        if (events.isEmpty()) return
+        logger.debug("Applying {} database change(s) on the records view", events.size)
+        when (baseItems) {
+            is LazyRecordList -> baseItems.reload { }
+            else -> events.forEach(::applyChange)
+        }
+    }
+
+    private fun applyChange(event: DatabaseChangeEvent) {
+        when (event.type) {
+            DatabaseChangeType.INSERT -> {
+                val presentIds = baseItems.mapNotNullTo(HashSet(), Record::id)
+                baseItems.addAll(event.records.filter { it.id !in presentIds })
+            }
+            DatabaseChangeType.UPDATE -> {
+                val indexes = baseItems.withIndex().associate { it.value.id to it.index }
+                // replacing the elements, so the table updates the rows
+                event.records.forEach { record -> indexes[record.id]?.let { baseItems[it] = record } }
+            }
+            DatabaseChangeType.DELETE -> baseItems.removeAll(HashSet(event.records))
+        }
+    }
+
     @JvmOverloads
     fun refresh(onSucceeded: () -> Unit = {}) {
         loadRecords(onSucceeded)
     }
 
     private fun loadRecords(onSucceeded: () -> Unit = {}) {
-        get(ExecutorService::class, "cachedExecutor").submit(buildRecordsLoadTask(onSucceeded))
+        when (baseItems) {
+            is LazyRecordList -> baseItems.reload(onSucceeded)
+            else -> get(ExecutorService::class, "cachedExecutor").submit(buildRecordsLoadTask(onSucceeded))
+        }
     }
 
     private fun buildRecordsLoadTask(onSucceeded: () -> Unit) =
@@ -172,8 +254,14 @@ class RecordsView(
     fun itemsCountProperty(): IntegerBinding =
         Bindings.size(baseItems)
 
+    /**
+     * Gives the selected records; the rows of a [LazyRecordList] that are not loaded yet
+     * are `null` in the selection, they are skipped.
+     */
+    private fun selectedRecords(): List<Record> = table.selectionModel.selectedItems.filterNotNull()
+
     fun cutSelectedToClipboard() {
-        cutItemsToClipboard(table.selectionModel.selectedItems.toList())
+        cutItemsToClipboard(selectedRecords())
     }
 
     private fun cutItemsToClipboard(items: List<Record>) {
@@ -183,7 +271,7 @@ class RecordsView(
     }
 
     fun copySelectedToClipboard() {
-        copyItemsToClipboard(table.selectionModel.selectedItems.toList())
+        copyItemsToClipboard(selectedRecords())
     }
 
     private fun copyItemsToClipboard(items: List<Record>) {
@@ -203,14 +291,16 @@ class RecordsView(
                     logger.error("Couldn't paste record elements", e.source.exception)
                 }
                 setOnRunning { context.showIndeterminateProgress() }
+                workDoneProperty().addListener { _, _, workDone ->
+                    context.showProgress(workDone.toLong(), totalWork.toLong(), Context.ProgressType.NORMAL)
+                }
                 setOnSucceeded {
                     context.stopProgress()
-                    refresh {
-                        value.takeIf { it.isNotEmpty() }
-                            ?.also { table.selectionModel.clearSelection() } // clearing previous selections
-                            ?.onEach { Platform.runLater { table.selectionModel.select(it) } }
-                            ?.let { table.scrollTo(it[0]) }
-                    }
+                    // the inserted records are already added to the base items by the database change listener
+                    value.takeIf { it.isNotEmpty() && baseItems !is LazyRecordList }
+                        ?.also { table.selectionModel.clearSelection() } // clearing previous selections
+                        ?.onEach { table.selectionModel.select(it) }
+                        ?.let { table.scrollTo(it[0]) }
                 }
             }
 
@@ -221,14 +311,14 @@ class RecordsView(
                         .map(Record::copy)
                         .peek { it.id = null }
                         .collect(Collectors.toList())
-                        .onEach(database::insertRecord)
+                        .also { database.insertRecords(it) { done, total -> updateProgress(done.toLong(), total.toLong()) } }
                 }
             }
         }
 
     fun removeSelectedItems() {
         //TODO: showing confirmation dialog
-        removeItems(ArrayList(table.selectionModel.selectedItems))
+        removeItems(selectedRecords())
     }
 
     fun insertNewRecord(record: Record = Record(Record.Type.BOOK)) {
@@ -254,10 +344,12 @@ class RecordsView(
 
                 setOnSucceeded {
                     context.stopProgress()
-                    baseItems.add(record)
-                    table.selectionModel.clearSelection()
-                    table.selectionModel.select(record)
-                    table.scrollTo(record)
+                    // the record is added to the base items by the database change listener
+                    if (baseItems !is LazyRecordList) {
+                        table.selectionModel.clearSelection()
+                        table.selectionModel.select(record)
+                        table.scrollTo(record)
+                    }
                 }
             }
 
@@ -274,10 +366,7 @@ class RecordsView(
         object : Task<Unit>() {
             init {
                 setOnRunning { context.showIndeterminateProgress() }
-                setOnSucceeded {
-                    context.stopProgress()
-                    baseItems.removeAll(items)
-                }
+                setOnSucceeded { context.stopProgress() }
                 setOnFailed { context.stopProgress() }
             }
 
@@ -290,7 +379,7 @@ class RecordsView(
         }
 
     fun duplicateSelectedItems() {
-        get(ExecutorService::class, "cachedExecutor").submit(buildPasteAction(table.selectedItems.toList()))
+        get(ExecutorService::class, "cachedExecutor").submit(buildPasteAction(selectedRecords()))
     }
 
     /**
@@ -298,11 +387,45 @@ class RecordsView(
      */
     @OptIn(RecordExportAPI::class)
     fun <C : RecordExportConfiguration> exportSelected(exporter: RecordExporter<C>) {
-        export(exporter, table.selectedItems.map(Record::copy))
+        export(exporter, RecordSource.of(selectedRecords()))
     }
 
+    /**
+     * Exports all the records of the database with the given [RecordExporter];
+     * the records are read from the database directly, without loading them into the memory at once
+     */
     @OptIn(RecordExportAPI::class)
-    private fun <C : RecordExportConfiguration> export(exporter: RecordExporter<C>, items: List<Record>) {
+    fun <C : RecordExportConfiguration> exportAll(exporter: RecordExporter<C>) {
+        export(exporter, RecordSource.of(database))
+    }
+
+    /**
+     * Connects all the records (having an isbn) to Google Books in the background.
+     */
+    fun connectAllToGoogleBooks() {
+        val task = LibraryEnrichTask(database).apply {
+            onSucceeded { result ->
+                context.showInformationNotification(
+                    i18n("google.books.enrich.finished.title"),
+                    i18n("google.books.enrich.finished.msg", result.processed, result.matched, result.failed),
+                    Duration.seconds(10.0)
+                )
+            }
+            onFailed { e ->
+                logger.error("Couldn't connect the records to Google Books", e)
+                context.showErrorDialog(
+                    i18n("google.books.enrich.failed.title"),
+                    i18n("google.books.enrich.failed.msg"),
+                    e as? Exception
+                ) { }
+            }
+        }
+        context.showTaskProgress(task)
+        get(ExecutorService::class, "cachedExecutor").execute(task)
+    }
+
+    @OptIn(RecordExportAPI::class)
+    private fun <C : RecordExportConfiguration> export(exporter: RecordExporter<C>, source: RecordSource) {
         exporter.configurationDialog.show(context) { config ->
             val fileExplorer = FileChooser()
             fileExplorer.extensionFilters.add(
@@ -312,29 +435,45 @@ class RecordsView(
                 )
             )
             fileExplorer.showSaveDialog(context.contextWindow)?.let { file ->
-                val task = exporter.task(items, FileOutputStream(file), config).apply {
+                val output = FileOutputStream(file)
+                // counted on the export thread, since counting might query the database
+                var recordCount: Int? = null
+                val task = exporter.task(source, output, config).apply {
                     onSucceeded {
-                        context.stopProgress()
                         context.showInformationNotification(
                             i18n("record.export.successful.title"),
-                            i18n("record.export.successful.msg", items.size, exporter.contentType, file.name),
+                            i18n("record.export.successful.msg", recordCount, exporter.contentType, file.name),
                             Event::consume,
                             hyperLink(i18n("file.open_in_app")) { file.open() },
                             hyperLink(i18n("file.open_in_explorer")) { file.revealInExplorer() }
                         )
                     }
                     onFailed { e ->
-                        context.stopProgress()
                         logger.error("Couldn't export records to '{}'", exporter.contentType, e)
                         context.showErrorDialog(
                             i18n("record.export.error.title"),
-                            i18n("record.export.error.msg", items.size, exporter.contentType),
+                            i18n("record.export.error.msg", recordCount, exporter.contentType),
                             e as? Exception
                         ) { }
                     }
-                    onRunning { context.showIndeterminateProgress() }
+                    onCancelled {
+                        context.showInformationNotification(
+                            i18n("record.export.cancelled.title"),
+                            i18n("record.export.cancelled.msg", file.name),
+                            Duration.seconds(5.0)
+                        )
+                    }
+                }
+                context.showTaskProgress(task)
+                get(ExecutorService::class, "cachedExecutor").execute {
+                    recordCount = runCatching { source.size }.getOrNull()
+                    task.run()
+                    // the partially written file is deleted if the export failed or has been cancelled
+                    if (runCatching { task.get() }.isFailure) {
+                        output.close()
+                        file.delete()
+                    }
                 }
-                get(ExecutorService::class, "cachedExecutor").submit(task)
             }
         }
     }
@@ -342,6 +481,16 @@ class RecordsView(
     companion object {
         private val logger = LoggerFactory.getLogger(RecordsView::class.java)
 
+        /**
+         * The minimum count of records that are loaded lazily into the table
+         */
+        private const val LAZY_LOADING_THRESHOLD = 100_000
+
+        /**
+         * Decides whether the records of a database with the given count of records should be loaded lazily.
+         */
+        fun isLazyLoadingNeeded(recordCount: Int): Boolean = recordCount >= LAZY_LOADING_THRESHOLD
+
         val COL_CONFIG_KEY =
             com.dansoftware.boomega.config.PreferenceKey(
                 "books.view.table.columns",
@@ -20,6 +20,7 @@ package com.dansoftware.boomega.gui.recordview
 
 import com.dansoftware.boomega.database.api.Database
 import com.dansoftware.boomega.database.api.data.Record
+import com.dansoftware.boomega.database.search.RecordSearchIndex
 import com.dansoftware.boomega.di.DIService.get
 import com.dansoftware.boomega.gui.api.Context
 import com.dansoftware.boomega.gui.recordview.RecordsView.Companion.COL_CONFIG_KEY
@@ -44,7 +45,8 @@ class RecordsViewBase(
     private val context: Context,
     private val preferences: com.dansoftware.boomega.config.Preferences,
     private val database: Database,
-    private val baseItems: ObservableList<Record>
+    private val baseItems: ObservableList<Record>,
+    private val searchIndex: RecordSearchIndex
 ) : SplitPane() {
 
     val table: RecordTable = buildBooksTable()
@@ -113,7 +115,7 @@ class RecordsViewBase(
         }
 
     private fun buildRecordFindControl() =
-        RecordFindControl(baseItems).apply {
+        RecordFindControl(baseItems, searchIndex).apply {
             onCloseRequest = fun() { isFindDialogVisible = false }
             onNewResults = fun(items) { table.items = FXCollections.observableArrayList(items) }
         }
@@ -20,15 +20,20 @@ package com.dansoftware.boomega.gui.recordview
 
 import com.dansoftware.boomega.database.api.Database
 import com.dansoftware.boomega.database.api.data.Record
+import com.dansoftware.boomega.di.DIService.get
 import com.dansoftware.boomega.gui.api.Context
 import com.dansoftware.boomega.gui.databaseview.Module
 import com.dansoftware.boomega.gui.util.icon
 import com.dansoftware.boomega.i18n.api.I18N
+import javafx.application.Platform
 import javafx.beans.property.ObjectProperty
 import javafx.beans.property.SimpleObjectProperty
 import javafx.scene.Node
+import javafx.scene.control.ProgressIndicator
+import javafx.scene.layout.StackPane
 import org.slf4j.Logger
 import org.slf4j.LoggerFactory
+import java.util.concurrent.ExecutorService
 
 class RecordsViewModule(
     private val context: Context,
@@ -45,21 +50,63 @@ class RecordsViewModule(
 
     private val content: ObjectProperty<RecordsView> = SimpleObjectProperty()
 
-    override fun buildContent(): Node =
-        content.get() ?: RecordsView(context, database, preferences).also(content::set)
+    /**
+     * Holds a progress indicator until the [RecordsView] is created, and the view afterwards
+     */
+    private var root: StackPane? = null
+
+    /**
+     * The messages arrived before the [RecordsView] was created
+     */
+    private val pendingMessages = mutableListOf<Message>()
+
+    override fun buildContent(): Node = root ?: StackPane(ProgressIndicator()).also {
+        root = it
+        createView(it)
+    }
+
+    /**
+     * Counts the records in the background (it might be a network round trip), so the
+     * lazy/eager loading of the [RecordsView] is decided without blocking the UI.
+     */
+    private fun createView(root: StackPane) {
+        get(ExecutorService::class, "cachedExecutor").submit {
+            val recordCount = try {
+                database.totalRecordCount
+            } catch (e: RuntimeException) {
+                logger.error("Couldn't count the records; loading them eagerly", e)
+                0
+            }
+            Platform.runLater {
+                // the module was closed in the meantime
+                if (this.root !== root) return@runLater
+                val view = RecordsView(context, database, preferences, RecordsView.isLazyLoadingNeeded(recordCount))
+                content.set(view)
+                root.children.setAll(view)
+                pendingMessages.forEach(::sendMessage)
+                pendingMessages.clear()
+            }
+        }
+    }
 
     override fun destroy(): Boolean = true.also {
         logger.debug("Module closed. Writing configurations...")
         //content.get()?.writeConfig()
+        content.get()?.releaseListeners()
         content.set(null)
+        root = null
+        pendingMessages.clear()
     }
 
     override fun sendMessage(message: Message) {
-        content.get()?.let { view ->
-            when (message) {
-                is InsertionRequest ->
-                    view.insertNewRecord(message.record)
-            }
+        val view = content.get()
+        if (view == null) {
+            if (root != null) pendingMessages.add(message)
+            return
+        }
+        when (message) {
+            is InsertionRequest ->
+                view.insertNewRecord(message.record)
         }
     }
 
@@ -256,9 +256,8 @@ class GoogleBookConnectionView(
         }
 
         override fun call() {
-            items.stream()
-                .peek { it.serviceConnection?.googleBookHandle = null }
-                .forEach(database::updateRecord)
+            items.forEach { it.serviceConnection?.googleBookHandle = null }
+            database.updateRecords(items)
         }
     }
 
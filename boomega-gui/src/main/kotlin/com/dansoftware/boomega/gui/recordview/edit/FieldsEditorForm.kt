@@ -280,7 +280,7 @@ class FieldsEditorForm(
             record.publishedDate = publishedDate.get()
         }
         logger.debug("Updating ({}) records in database...", items.size)
-        items.forEach(database::updateRecord)
+        database.updateRecords(items)
     }
 
     /**
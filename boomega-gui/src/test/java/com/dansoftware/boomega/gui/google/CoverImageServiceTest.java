@@ -0,0 +1,195 @@
+/*
+ * Boomega - A modern book explorer & catalog application
+ * Copyright (C) 2020-2022  Daniel Gyoerffy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.dansoftware.boomega.gui.google;
+
+import com.sun.net.httpserver.HttpServer;
+import javafx.scene.image.Image;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+public class CoverImageServiceTest {
+
+    private static final long DISK_MAX_BYTES = 1000;
+    private static final int IMAGE_SIZE = 300;
+
+    @TempDir Path directory;
+
+    private final Image image = mock(Image.class);
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final Map<String, AtomicInteger> requests = new ConcurrentHashMap<>();
+    private final AtomicInteger failingRequests = new AtomicInteger();
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    private HttpServer server;
+    private CoverImageService service;
+
+    @BeforeEach
+    void init() throws IOException {
+        System.setProperty(CoverImageService.DIRECTORY_PROPERTY, directory.toString());
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.setExecutor(executor);
+        server.createContext("/", exchange -> {
+            String path = exchange.getRequestURI().getPath();
+            requests.computeIfAbsent(path, it -> new AtomicInteger()).incrementAndGet();
+            if (path.startsWith("/blocking")) {
+                try {
+                    release.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            // the first request of a failing image fails, the next one succeeds
+            if (path.startsWith("/failing") && failingRequests.getAndIncrement() == 0) {
+                exchange.sendResponseHeaders(500, -1);
+                exchange.close();
+                return;
+            }
+            // the "same" images have the same content regardless of their urls
+            byte[] bytes = contentOf(path.startsWith("/same") ? "/same" : path);
+            exchange.sendResponseHeaders(200, bytes.length);
+            exchange.getResponseBody().write(bytes);
+            exchange.close();
+        });
+        server.start();
+        service = new CoverImageService(executor, DISK_MAX_BYTES, (bytes, width, height) -> image);
+    }
+
+    @AfterEach
+    void stop() {
+        System.clearProperty(CoverImageService.DIRECTORY_PROPERTY);
+        release.countDown();
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    @Test
+    void itShouldStoreTheSameImageOnlyOnce() throws Exception {
+        // when
+        service.load(url("/same/1"), 0, 0).get(10, TimeUnit.SECONDS);
+        service.load(url("/same/2"), 0, 0).get(10, TimeUnit.SECONDS);
+
+        // then
+        assertThat(files("blobs")).hasSize(1);
+        assertThat(files("urls")).hasSize(2);
+    }
+
+    @Test
+    void itShouldNotLeaveTemporaryFilesBehind() throws Exception {
+        // when
+        service.load(url("/image"), 0, 0).get(10, TimeUnit.SECONDS);
+
+        // then
+        assertThat(files("blobs")).hasSize(1).allMatch(it -> !it.toString().endsWith(".tmp"));
+    }
+
+    @Test
+    void itShouldEvictTheDiskCacheWithItsPointers() throws Exception {
+        // when
+        for (int i = 0; i < 4; i++)
+            service.load(url("/image/" + i), 0, 0).get(10, TimeUnit.SECONDS);
+
+        // then
+        List<Path> blobs = files("blobs");
+        List<Path> pointers = files("urls");
+        long diskSize = 0;
+        for (Path blob : blobs)
+            diskSize += Files.size(blob);
+        assertThat(diskSize).isLessThanOrEqualTo(DISK_MAX_BYTES / 10 * 9);
+        assertThat(blobs).hasSize(3);
+        assertThat(pointers).hasSize(3);
+        for (Path pointer : pointers)
+            assertThat(directory.resolve("blobs").resolve(Files.readString(pointer) + ".img")).exists();
+    }
+
+    @Test
+    void itShouldSendOneRequestForConcurrentLoads() throws Exception {
+        // when
+        CompletableFuture<Image> first = service.load(url("/blocking"), 0, 0);
+        CompletableFuture<Image> second = service.load(url("/blocking"), 0, 0);
+        release.countDown();
+
+        // then
+        assertThat(first.get(10, TimeUnit.SECONDS)).isSameAs(second.get(10, TimeUnit.SECONDS));
+        assertThat(requests.get("/blocking")).hasValue(1);
+    }
+
+    @Test
+    void itShouldNotCacheAFailedDownload() throws Exception {
+        // when
+        CompletableFuture<Image> failed = service.load(url("/failing"), 0, 0);
+
+        // then
+        assertThatThrownBy(() -> failed.get(10, TimeUnit.SECONDS)).isInstanceOf(ExecutionException.class);
+        assertThat(files("blobs")).isEmpty();
+        assertThat(files("urls")).isEmpty();
+
+        // when
+        Image loaded = service.load(url("/failing"), 0, 0).get(10, TimeUnit.SECONDS);
+
+        // then
+        assertThat(loaded).isSameAs(image);
+        assertThat(requests.get("/failing")).hasValue(2);
+    }
+
+    private String url(String path) {
+        return "http://localhost:" + server.getAddress().getPort() + path;
+    }
+
+    /**
+     * Gives a distinct content of {@link #IMAGE_SIZE} bytes for every path
+     */
+    private static byte[] contentOf(String path) {
+        byte[] bytes = new byte[IMAGE_SIZE];
+        byte[] pathBytes = path.getBytes(StandardCharsets.UTF_8);
+        System.arraycopy(pathBytes, 0, bytes, 0, pathBytes.length);
+        return bytes;
+    }
+
+    private List<Path> files(String subdirectory) throws IOException {
+        Path dir = directory.resolve(subdirectory);
+        if (!Files.isDirectory(dir))
+            return List.of();
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.toList();
+        }
+    }
+}
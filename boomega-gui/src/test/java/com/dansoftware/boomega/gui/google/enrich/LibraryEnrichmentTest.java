@@ -0,0 +1,225 @@
+/*
+ * Boomega - A modern book explorer & catalog application
+ * Copyright (C) 2020-2022  Daniel Gyoerffy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.dansoftware.boomega.gui.google.enrich;
+
+import com.dansoftware.boomega.database.api.Database;
+import com.dansoftware.boomega.database.api.RecordCursor;
+import com.dansoftware.boomega.database.api.data.Record;
+import com.dansoftware.boomega.database.api.data.ServiceConnection;
+import com.dansoftware.boomega.gui.google.VolumeRecordConversions;
+import com.dansoftware.boomega.rest.google.books.GoogleBooksClient;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+public class LibraryEnrichmentTest {
+
+    private static final LibraryEnrichment.Settings SETTINGS =
+            new LibraryEnrichment.Settings(2, 1000.0, 3, Duration.ofMillis(10), 2);
+
+    @Mock private Database database;
+    @TempDir Path directory;
+
+    private HttpServer server;
+    private GoogleBooksClient client;
+    private final AtomicInteger duneRequests = new AtomicInteger();
+    private volatile Runnable onDuneRequest = () -> { };
+
+    private final Record dune = record(1L, "9780441013593");
+    private final Record unknown = record(2L, "9780000000000");
+    private final Record hobbit = record(3L, "9780261102217");
+    private final Record withoutIsbn = record(4L, null);
+
+    /**
+     * The current state of the records in the database by their ids
+     */
+    private final Map<Long, Record> stored = new ConcurrentHashMap<>();
+
+    @BeforeEach
+    void init() throws IOException {
+        Stream.of(dune, unknown, hobbit, withoutIsbn).forEach(record -> stored.put(record.getId(), record.copy()));
+        lenient().when(database.findByIds(any())).thenAnswer(invocation -> {
+            Collection<Long> ids = invocation.getArgument(0);
+            return ids.stream().map(stored::get).filter(Objects::nonNull).map(Record::copy).toList();
+        });
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/volumes", exchange -> {
+            String query = exchange.getRequestURI().getQuery();
+            String body;
+            if (query.contains(dune.getIsbn())) {
+                onDuneRequest.run();
+                // the first request is rate-limited
+                if (duneRequests.incrementAndGet() == 1) {
+                    exchange.sendResponseHeaders(429, -1);
+                    exchange.close();
+                    return;
+                }
+                body = "{\"totalItems\":1,\"items\":[{\"id\":\"dune-id\"}]}";
+            } else if (query.contains(hobbit.getIsbn())) {
+                body = "{\"totalItems\":1,\"items\":[{\"id\":\"hobbit-id\"}]}";
+            } else {
+                body = "{\"totalItems\":0}";
+            }
+            byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, bytes.length);
+            exchange.getResponseBody().write(bytes);
+            exchange.close();
+        });
+        server.start();
+        client = new GoogleBooksClient(
+                GoogleBooksClient.DEFAULT_CONNECT_TIMEOUT,
+                GoogleBooksClient.DEFAULT_READ_TIMEOUT,
+                null,
+                URI.create("http://localhost:" + server.getAddress().getPort() + "/volumes")
+        );
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.stop(0);
+    }
+
+    @Test
+    void itShouldConnectTheMatchingRecords() {
+        given(database.openCursor()).willReturn(RecordCursor.of(List.of(dune, unknown, hobbit, withoutIsbn)));
+        var checkpoint = new EnrichCheckpoint(directory.resolve("enrich.checkpoint"));
+
+        var result = new LibraryEnrichment(database, checkpoint, client, SETTINGS).run(new LibraryEnrichment.Observer() { });
+
+        assertThat(result).isEqualTo(new LibraryEnrichment.Result(3, 2, 0));
+        assertThat(duneRequests).hasValue(2);
+        assertThat(updatedRecords()).containsExactlyInAnyOrder(dune, hobbit);
+        assertThat(googleBookHandleOf(updatedRecord(dune))).isEqualTo("dune-id");
+        assertThat(googleBookHandleOf(updatedRecord(hobbit))).isEqualTo("hobbit-id");
+
+        // a completed run is not resumed, the records without a match are looked up again next time
+        assertThat(directory.resolve("enrich.checkpoint")).doesNotExist();
+        assertThat(checkpoint.getSize()).isZero();
+    }
+
+    @Test
+    void itShouldKeepTheProgressOfACancelledRun() {
+        given(database.openCursor()).willReturn(RecordCursor.of(List.of(dune, unknown, hobbit)));
+        var checkpoint = new EnrichCheckpoint(directory.resolve("enrich.checkpoint"));
+        var cancelled = new AtomicBoolean();
+
+        var result = new LibraryEnrichment(database, checkpoint, client, SETTINGS).run(new LibraryEnrichment.Observer() {
+            @Override
+            public boolean isCancelled() {
+                return cancelled.get();
+            }
+
+            @Override
+            public void onProgress(int processed, int total, int matched, Duration remaining) {
+                cancelled.set(true);
+            }
+        });
+
+        assertThat(result.getProcessed()).isEqualTo(1);
+        var reloaded = new EnrichCheckpoint(directory.resolve("enrich.checkpoint"));
+        assertThat(reloaded.getSize()).isEqualTo(checkpoint.getSize()).isPositive();
+    }
+
+    @Test
+    void itShouldSkipTheAlreadyProcessedRecords() throws IOException {
+        given(database.openCursor()).willReturn(RecordCursor.of(List.of(dune, unknown, hobbit)));
+        var checkpoint = new EnrichCheckpoint(directory.resolve("enrich.checkpoint"));
+        checkpoint.addAll(List.of(1L, 2L));
+
+        var result = new LibraryEnrichment(database, checkpoint, client, SETTINGS).run(new LibraryEnrichment.Observer() { });
+
+        assertThat(result).isEqualTo(new LibraryEnrichment.Result(1, 1, 0));
+        assertThat(duneRequests).hasValue(0);
+        assertThat(updatedRecords()).containsExactly(hobbit);
+    }
+
+    @Test
+    void itShouldNotOverwriteTheChangesMadeDuringTheRun() {
+        given(database.openCursor()).willReturn(RecordCursor.of(List.of(dune, unknown, hobbit)));
+        var checkpoint = new EnrichCheckpoint(directory.resolve("enrich.checkpoint"));
+        // the dune record is edited and the hobbit record is deleted while the lookups are running
+        onDuneRequest = () -> {
+            stored.get(dune.getId()).setNotes("Edited during the run");
+            stored.remove(hobbit.getId());
+        };
+        // every match is written back at the end, after the changes
+        var settings = new LibraryEnrichment.Settings(2, 1000.0, 3, Duration.ofMillis(10), 100);
+
+        var result = new LibraryEnrichment(database, checkpoint, client, settings).run(new LibraryEnrichment.Observer() { });
+
+        assertThat(result).isEqualTo(new LibraryEnrichment.Result(3, 2, 0));
+        assertThat(updatedRecords()).containsExactly(dune);
+        assertThat(updatedRecord(dune).getNotes()).isEqualTo("Edited during the run");
+        assertThat(googleBookHandleOf(updatedRecord(dune))).isEqualTo("dune-id");
+    }
+
+    private Record updatedRecord(Record record) {
+        return updatedRecords().stream().filter(record::equals).findAny().orElseThrow();
+    }
+
+    private static String googleBookHandleOf(Record record) {
+        return VolumeRecordConversions.getGoogleBookHandle(record.getServiceConnection());
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Record> updatedRecords() {
+        ArgumentCaptor<List<Record>> captor = ArgumentCaptor.forClass(List.class);
+        verify(database, atLeastOnce()).updateRecords(captor.capture(), any());
+        var records = new ArrayList<Record>();
+        captor.getAllValues().forEach(records::addAll);
+        return records;
+    }
+
+    private static Record record(long id, String isbn) {
+        Record record = new Record(Record.Type.BOOK);
+        record.setId(id);
+        record.setIsbn(isbn);
+        return record;
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Boomega - A modern book explorer & catalog application
+ * Copyright (C) 2020-2022  Daniel Gyoerffy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.dansoftware.boomega.gui.recordview;
+
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class BackgroundSorterTest {
+
+    /**
+     * The background tasks, run manually by the tests
+     */
+    private Deque<Runnable> tasks;
+    private BackgroundSorter<String> sorter;
+
+    @BeforeEach
+    void init() {
+        tasks = new ArrayDeque<>();
+        sorter = new BackgroundSorter<>(tasks::add, Runnable::run);
+    }
+
+    @Test
+    void itShouldApplyTheSortedItems() {
+        // given
+        ObservableList<String> items = FXCollections.observableArrayList("c", "a", "b");
+
+        // when
+        sorter.sort(items, Comparator.naturalOrder(), items::setAll);
+        runTasks();
+
+        // then
+        assertThat(items).containsExactly("a", "b", "c");
+    }
+
+    @Test
+    void itShouldNotRevertAnUpdateDuringTheSort() {
+        // given
+        ObservableList<String> items = FXCollections.observableArrayList("c", "a", "b");
+        List<List<String>> applied = new ArrayList<>();
+
+        // when
+        sorter.sort(items, Comparator.naturalOrder(), sorted -> {
+            applied.add(sorted);
+            items.setAll(sorted);
+        });
+        items.set(0, "d");
+        runTasks();
+
+        // then
+        assertThat(items).containsExactly("a", "b", "d");
+        assertThat(applied).hasSize(1);
+    }
+
+    @Test
+    void itShouldOnlyApplyTheLatestSort() {
+        // given
+        ObservableList<String> items = FXCollections.observableArrayList("c", "a", "b");
+        List<List<String>> applied = new ArrayList<>();
+
+        // when
+        sorter.sort(items, Comparator.naturalOrder(), applied::add);
+        sorter.sort(items, Comparator.reverseOrder(), applied::add);
+        runTasks();
+
+        // then
+        assertThat(applied).containsExactly(List.of("c", "b", "a"));
+    }
+
+    private void runTasks() {
+        while (!tasks.isEmpty())
+            tasks.poll().run();
+    }
+}
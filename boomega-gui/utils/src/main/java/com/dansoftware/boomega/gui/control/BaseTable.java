@@ -259,6 +259,10 @@ public abstract class BaseTable<S> extends TableView<S> {
             setText(getTextFor(columnType));
         }
 
+        public ColumnType getColumnType() {
+            return columnType;
+        }
+
         private String getTextFor(ColumnType columnType) {
             return columnType.isTextOnUIVisible() ? columnType.text : null;
         }
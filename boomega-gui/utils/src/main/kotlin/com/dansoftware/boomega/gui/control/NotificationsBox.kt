@@ -21,13 +21,14 @@ package com.dansoftware.boomega.gui.control
 import javafx.geometry.Insets
 import javafx.geometry.Pos
 import javafx.scene.Group
+import javafx.scene.Node
 import javafx.scene.layout.StackPane
 import javafx.scene.layout.VBox
 import javafx.util.Duration
 
 /**
- * A [NotificationsBox] is a gui element that holds multiple [NotificationsBox] objects
- * together.
+ * A [NotificationsBox] is a gui element that holds multiple [NotificationNode]s (or other
+ * notification-like nodes, e.g. [TaskProgressNode]s) together.
  *
  * @author Daniel Gyorffy
  */
@@ -44,7 +45,7 @@ class NotificationsBox : Group() {
         })
     }
 
-    fun pushItem(notificationNode: NotificationNode, duration: Duration?) {
+    fun pushItem(notificationNode: Node, duration: Duration?) {
         this.vBox.children.add(notificationNode)
         animatefx.animation.FadeIn(notificationNode).also {
             if (duration != null) {
@@ -59,7 +60,7 @@ class NotificationsBox : Group() {
         }.play()
     }
 
-    fun removeItem(notificationNode: NotificationNode) {
+    fun removeItem(notificationNode: Node) {
         animatefx.animation.FadeOut(notificationNode).also {
             it.setOnFinished {
                 this.vBox.children.remove(notificationNode)
@@ -0,0 +1,63 @@
+/*
+ * Boomega - A modern book explorer & catalog application
+ * Copyright (C) 2020-2022  Daniel Gyoerffy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.dansoftware.boomega.gui.control
+
+import javafx.concurrent.Task
+import javafx.scene.Group
+import javafx.scene.control.Button
+import javafx.scene.control.Label
+import javafx.scene.control.ProgressBar
+import javafx.scene.layout.HBox
+import javafx.scene.layout.VBox
+
+/**
+ * A [TaskProgressNode] is a notification-like tile that shows the title, the message and the progress
+ * of a [Task] with a button for cancelling it.
+ *
+ * @param cancelText the text of the cancel button
+ */
+class TaskProgressNode(task: Task<*>, cancelText: String) : Group(EntryPanel(task, cancelText)) {
+
+    private class EntryPanel(task: Task<*>, cancelText: String) : HBox(8.0) {
+        init {
+            styleClass.addAll("notification-node", "task-progress-node")
+            children.add(buildContentPanel(task))
+            children.add(buildCancelButton(task, cancelText))
+        }
+
+        private fun buildContentPanel(task: Task<*>) = VBox(4.0).apply {
+            styleClass.add("content-panel")
+            children.add(Label().apply {
+                styleClass.add("title")
+                textProperty().bind(task.titleProperty())
+            })
+            children.add(ProgressBar().apply {
+                progressProperty().bind(task.progressProperty())
+            })
+            children.add(Label().apply {
+                styleClass.add("message")
+                textProperty().bind(task.messageProperty())
+            })
+        }
+
+        private fun buildCancelButton(task: Task<*>, cancelText: String) = Button(cancelText).apply {
+            setOnAction { task.cancel() }
+        }
+    }
+}
@@ -63,6 +63,10 @@ inline fun <T> Task<T>.onRunning(crossinline action: () -> Unit) {
     setOnRunning { action() }
 }
 
+inline fun <T> Task<T>.onCancelled(crossinline action: () -> Unit) {
+    setOnCancelled { action() }
+}
+
 inline fun <T> Service<T>.onSucceeded(crossinline action: (T) -> Unit) {
     setOnSucceeded { action(value) }
 }
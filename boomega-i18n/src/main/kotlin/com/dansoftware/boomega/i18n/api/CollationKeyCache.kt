@@ -0,0 +1,92 @@
+/*
+ * Boomega - A modern book explorer & catalog application
+ * Copyright (C) 2020-2022  Daniel Gyoerffy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.dansoftware.boomega.i18n.api
+
+import com.github.benmanes.caffeine.cache.Cache
+import com.github.benmanes.caffeine.cache.Caffeine
+import java.text.CollationKey
+import java.text.Collator
+import java.time.Duration
+import java.util.*
+import java.util.concurrent.ConcurrentHashMap
+
+/**
+ * Caches the [CollationKey]s of strings for the ABC of a particular locale (see [I18N.getABCCollator]).
+ *
+ * Comparing two collation keys is a simple bitwise comparison, so sorting with the cached keys
+ * is much cheaper than calling the [Collator] on every comparison. The keys are cached by the
+ * string values, so a changed value simply gets its own key. The cache is bounded: the least
+ * recently used keys are evicted one by one, and all of them expire when the ABC isn't used.
+ *
+ * Sorts that can compute the keys up-front (decorate-sort-undecorate) should use [computeKey]
+ * instead, so a large sort doesn't churn the shared cache.
+ *
+ * The cache can be used from multiple threads; every thread uses its own collator,
+ * since the collators are not thread-safe.
+ */
+class CollationKeyCache private constructor(collatorFactory: () -> Collator) {
+
+    private val collator: ThreadLocal<Collator> = ThreadLocal.withInitial(collatorFactory)
+    private val keys: Cache<String, CollationKey> = Caffeine.newBuilder()
+        .maximumSize(MAX_SIZE)
+        .expireAfterAccess(EXPIRATION)
+        .build()
+
+    /**
+     * Compares the strings by their cached collation keys; `null` is handled as an empty string.
+     */
+    val comparator: Comparator<String?> = Comparator(::compare)
+
+    /**
+     * Gives the cached collation key of the given string; `null` is handled as an empty string.
+     */
+    fun keyOf(value: String?): CollationKey =
+        keys.get(value ?: "") { collator.get().getCollationKey(it) }
+
+    /**
+     * Computes the collation key of the given string without caching it; `null` is handled as an empty string.
+     */
+    fun computeKey(value: String?): CollationKey = collator.get().getCollationKey(value ?: "")
+
+    fun compare(left: String?, right: String?): Int = keyOf(left).compareTo(keyOf(right))
+
+    companion object {
+
+        /**
+         * The maximum count of cached keys of an ABC
+         */
+        private const val MAX_SIZE = 100_000L
+
+        /**
+         * The keys of an ABC are dropped when they were not used for this long
+         */
+        private val EXPIRATION = Duration.ofMinutes(5)
+
+        private val caches: MutableMap<Locale, CollationKeyCache> = ConcurrentHashMap()
+
+        /**
+         * Gives the shared cache of the ABC of the given locale.
+         */
+        @JvmStatic
+        fun of(locale: Locale): CollationKeyCache =
+            caches.computeIfAbsent(locale) {
+                CollationKeyCache { I18N.getABCCollator(locale).orElseGet { Collator.getInstance(locale) } }
+            }
+    }
+}
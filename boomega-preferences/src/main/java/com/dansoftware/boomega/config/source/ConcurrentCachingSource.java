@@ -0,0 +1,212 @@
+/*
+ * Boomega - A modern book explorer & catalog application
+ * Copyright (C) 2020-2022  Daniel Gyoerffy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.dansoftware.boomega.config.source;
+
+import com.dansoftware.boomega.config.PreferenceKey;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+/**
+ * A {@link ConcurrentCachingSource} is a thread-safe {@link ConfigSource} decorator that caches
+ * the decoded values of {@link PreferenceKey}s, so repeated reads don't run the deserialization
+ * (Gson or the key's {@link com.dansoftware.boomega.config.ConfigAdapter}) again.
+ *
+ * <p>
+ * A cache hit is a lock-free map lookup. Misses read the wrapped source under a shared lock, while
+ * mutations take the exclusive lock and invalidate the cached value of the affected key, so a
+ * value decoded before a put can never be cached after it.
+ *
+ * <p>
+ * Only the values of immutable types (primitives, strings, enums, locales, ...) are cached, since
+ * a cached object is shared between the callers. The values of other types are decoded on every read,
+ * so the callers can keep modifying their own copies in place before putting them back.
+ */
+public class ConcurrentCachingSource implements ConfigSource {
+
+    /**
+     * The (non-primitive, non-enum) types whose values can be shared safely
+     */
+    private static final Set<Class<?>> IMMUTABLE_TYPES = Set.of(
+            String.class, Boolean.class, Character.class, Byte.class, Short.class, Integer.class,
+            Long.class, Float.class, Double.class, BigInteger.class, BigDecimal.class, Locale.class,
+            LocalDate.class, LocalDateTime.class, Instant.class, Duration.class
+    );
+
+    private final ConfigSource source;
+    private final Map<String, Cached> cache = new ConcurrentHashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public ConcurrentCachingSource(@NotNull ConfigSource source) {
+        this.source = source;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(@NotNull PreferenceKey<T> key) {
+        if (!isImmutable(key.getType()))
+            return read(() -> source.get(key));
+
+        Cached cached = cache.get(key.getJsonKey());
+        if (cached != null && cached.key == key)
+            return (T) cached.value;
+
+        lock.readLock().lock();
+        try {
+            T value = source.get(key);
+            // keys sharing the same json-key (but possibly not the same type) are not cached
+            cache.merge(key.getJsonKey(), new Cached(key, value), (old, fresh) -> old.key == key ? fresh : old);
+            return value;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public double getDouble(@NotNull String key, double defValue) {
+        return read(() -> source.getDouble(key, defValue));
+    }
+
+    @Override
+    public int getInteger(@NotNull String key, int defValue) {
+        return read(() -> source.getInteger(key, defValue));
+    }
+
+    @Override
+    public boolean getBoolean(@NotNull String key, boolean defValue) {
+        return read(() -> source.getBoolean(key, defValue));
+    }
+
+    @Override
+    public String getString(@NotNull String key, String defValue) {
+        return read(() -> source.getString(key, defValue));
+    }
+
+    @Override
+    public void remove(@NotNull String key) {
+        write(key, () -> source.remove(key));
+    }
+
+    @Override
+    public void remove(@NotNull PreferenceKey<?> key) {
+        write(key.getJsonKey(), () -> source.remove(key));
+    }
+
+    @Override
+    public void putBoolean(@NotNull String key, boolean value) {
+        write(key, () -> source.putBoolean(key, value));
+    }
+
+    @Override
+    public void putString(@NotNull String key, String value) {
+        write(key, () -> source.putString(key, value));
+    }
+
+    @Override
+    public void putInteger(@NotNull String key, int value) {
+        write(key, () -> source.putInteger(key, value));
+    }
+
+    @Override
+    public void putDouble(@NotNull String key, double value) {
+        write(key, () -> source.putDouble(key, value));
+    }
+
+    @Override
+    public <T> void put(@NotNull PreferenceKey<T> key, T value) {
+        write(key.getJsonKey(), () -> source.put(key, value));
+    }
+
+    @Override
+    public boolean isCreated() {
+        return source.isCreated();
+    }
+
+    @Override
+    public boolean isOpened() {
+        return source.isOpened();
+    }
+
+    @Override
+    public void reset() throws IOException {
+        lock.writeLock().lock();
+        try {
+            source.reset();
+        } finally {
+            cache.clear();
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Delegates to the wrapped source without blocking the writers;
+     * the wrapped source is expected to persist a consistent snapshot on its own
+     * (as {@link JsonFileSource} does).
+     */
+    @Override
+    public void commit() throws IOException {
+        source.commit();
+    }
+
+    private <T> T read(Supplier<T> reader) {
+        lock.readLock().lock();
+        try {
+            return reader.get();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void write(String jsonKey, Runnable writer) {
+        lock.writeLock().lock();
+        try {
+            writer.run();
+        } finally {
+            cache.remove(jsonKey);
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static boolean isImmutable(Class<?> type) {
+        return type.isPrimitive() || type.isEnum() || IMMUTABLE_TYPES.contains(type);
+    }
+
+    private static final class Cached {
+        private final PreferenceKey<?> key;
+        private final Object value;
+
+        private Cached(PreferenceKey<?> key, Object value) {
+            this.key = key;
+            this.value = value;
+        }
+    }
+}
@@ -32,11 +32,19 @@ import javax.inject.Inject;
 import javax.inject.Named;
 import java.io.*;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 
 /**
  * A {@link JsonFileSource} is a {@link ConfigSource} that allows to read/write configurations
  * from/into a particular JSON file.
+ *
+ * <p>
+ * The file is never rewritten in place: {@link #commit()} writes a snapshot into a temporary file
+ * next to the target and renames it over the original, so a crash during the write leaves
+ * the previous configurations intact.
  */
 public class JsonFileSource extends JsonSource {
 
@@ -100,11 +108,35 @@ public class JsonFileSource extends JsonSource {
     }
 
     @Override
-    public void commit() throws IOException {
-        try (var writer = new JsonWriter(new BufferedWriter(new OutputStreamWriter(openOutputStream(file), StandardCharsets.UTF_8)))) {
-            gson.toJson(this.jsonBase, writer);
-        } catch (JsonIOException e) {
-            throw new IOException(e);
+    public synchronized void commit() throws IOException {
+        JsonObject snapshot;
+        synchronized (jsonBase) {
+            snapshot = jsonBase.deepCopy();
+        }
+
+        File temp = File.createTempFile(file.getName(), ".tmp", file.getAbsoluteFile().getParentFile());
+        try {
+            try (OutputStream output = openOutputStream(temp);
+                 var writer = new JsonWriter(new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8)))) {
+                gson.toJson(snapshot, writer);
+                writer.flush();
+                if (output instanceof FileOutputStream fileOutput)
+                    fileOutput.getFD().sync();
+            } catch (JsonIOException e) {
+                throw new IOException(e);
+            }
+            replace(temp.toPath(), file.toPath());
+        } finally {
+            Files.deleteIfExists(temp.toPath());
+        }
+    }
+
+    private static void replace(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            logger.debug("Atomic move is not supported, falling back to a plain replace", e);
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
         }
     }
 
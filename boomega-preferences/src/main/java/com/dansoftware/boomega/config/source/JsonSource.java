@@ -34,6 +34,10 @@ import java.util.Objects;
 /**
  * A {@link JsonSource} is a {@link ConfigSource} that can store the
  * configurations in JSON format.
+ *
+ * <p>
+ * Mutations lock on the {@link #getJsonBase() json base}, so subclasses can take a consistent
+ * snapshot of it (e.g. for writing it out from a background thread) by locking on the same object.
  */
 public abstract class JsonSource implements ConfigSource {
 
@@ -104,7 +108,10 @@ public abstract class JsonSource implements ConfigSource {
 
     @Override
     public void remove(String key) {
-        getJsonBase().remove(key);
+        JsonObject json = getJsonBase();
+        synchronized (json) {
+            json.remove(key);
+        }
     }
 
     @Override
@@ -114,22 +121,34 @@ public abstract class JsonSource implements ConfigSource {
 
     @Override
     public void putBoolean(String key, boolean value) {
-        getJsonBase().addProperty(key, value);
+        JsonObject json = getJsonBase();
+        synchronized (json) {
+            json.addProperty(key, value);
+        }
     }
 
     @Override
     public void putString(String key, String value) {
-        getJsonBase().addProperty(key, value);
+        JsonObject json = getJsonBase();
+        synchronized (json) {
+            json.addProperty(key, value);
+        }
     }
 
     @Override
     public void putInteger(String key, int value) {
-        getJsonBase().addProperty(key, value);
+        JsonObject json = getJsonBase();
+        synchronized (json) {
+            json.addProperty(key, value);
+        }
     }
 
     @Override
     public void putDouble(String key, double value) {
-        getJsonBase().addProperty(key, value);
+        JsonObject json = getJsonBase();
+        synchronized (json) {
+            json.addProperty(key, value);
+        }
     }
 
     @Override
@@ -148,7 +167,10 @@ public abstract class JsonSource implements ConfigSource {
                             return gson.toJsonTree(src, typeOfSrc);
                         }
                     });
-        getJsonBase().add(key.getJsonKey(), element);
+        JsonObject json = getJsonBase();
+        synchronized (json) {
+            json.add(key.getJsonKey(), element);
+        }
     }
 
     /**
@@ -161,7 +183,9 @@ public abstract class JsonSource implements ConfigSource {
     @Override
     public void reset() throws IOException {
         JsonObject json = getJsonBase();
-        var keys = new HashSet<>(json.keySet());
-        keys.forEach(json::remove);
+        synchronized (json) {
+            var keys = new HashSet<>(json.keySet());
+            keys.forEach(json::remove);
+        }
     }
 }
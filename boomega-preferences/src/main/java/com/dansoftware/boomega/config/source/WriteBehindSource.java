@@ -0,0 +1,304 @@
+/*
+ * Boomega - A modern book explorer & catalog application
+ * Copyright (C) 2020-2022  Daniel Gyoerffy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.dansoftware.boomega.config.source;
+
+import com.dansoftware.boomega.config.PreferenceKey;
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A {@link WriteBehindSource} is a {@link ConfigSource} decorator that persists the mutations
+ * of the wrapped source in the background.
+ *
+ * <p>
+ * Every put/remove marks its key as dirty and schedules a write. Bursts of edits are coalesced into
+ * one {@link ConfigSource#commit()} that happens when no edit arrived for the <i>quiet period</i>,
+ * but at most <i>max delay</i> after the first unsaved edit. {@link #commit()} writes synchronously,
+ * and the pending changes are also flushed by {@link #close()} and by a JVM shutdown hook.
+ */
+public class WriteBehindSource implements ConfigSource, Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(WriteBehindSource.class);
+
+    public static final Duration DEFAULT_QUIET_PERIOD = Duration.ofSeconds(2);
+    public static final Duration DEFAULT_MAX_DELAY = Duration.ofSeconds(10);
+
+    /**
+     * The dirty-marker used when the whole source was modified (e.g. by {@link #reset()}).
+     */
+    private static final String ALL_KEYS = "*";
+
+    private final ConfigSource source;
+    private final long quietPeriod;
+    private final long maxDelay;
+    private final ScheduledExecutorService scheduler;
+    private final Thread shutdownHook;
+
+    private final Set<String> dirtyKeys = ConcurrentHashMap.newKeySet();
+    private final Object writeLock = new Object();
+
+    // guarded by 'this'
+    private ScheduledFuture<?> pendingWrite;
+    private long firstEdit;
+    private long lastEdit;
+    private boolean closed;
+
+    public WriteBehindSource(@NotNull ConfigSource source) {
+        this(source, DEFAULT_QUIET_PERIOD, DEFAULT_MAX_DELAY);
+    }
+
+    public WriteBehindSource(@NotNull ConfigSource source,
+                             @NotNull Duration quietPeriod,
+                             @NotNull Duration maxDelay) {
+        this.source = source;
+        this.quietPeriod = quietPeriod.toNanos();
+        this.maxDelay = Math.max(maxDelay.toNanos(), this.quietPeriod);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            var thread = new Thread(runnable, "preferences-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.shutdownHook = new Thread(this::flushQuietly, "preferences-shutdown-flush");
+        Runtime.getRuntime().addShutdownHook(shutdownHook);
+    }
+
+    /**
+     * @return the keys that were modified since the last successful write
+     */
+    @NotNull
+    public Set<String> getDirtyKeys() {
+        return Set.copyOf(dirtyKeys);
+    }
+
+    /**
+     * @return {@code true} if there are modifications that are not written yet
+     */
+    public boolean isDirty() {
+        return !dirtyKeys.isEmpty();
+    }
+
+    /**
+     * Writes the pending modifications (if any) on the caller thread.
+     *
+     * @throws IOException if the wrapped source couldn't persist the data
+     */
+    public void flush() throws IOException {
+        cancelPendingWrite();
+        writeDirty();
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (IOException | RuntimeException e) {
+            logger.error("Couldn't write preferences", e);
+        }
+    }
+
+    private void writeDirty() throws IOException {
+        synchronized (writeLock) {
+            if (dirtyKeys.isEmpty())
+                return;
+
+            Set<String> written = new HashSet<>(dirtyKeys);
+            dirtyKeys.removeAll(written);
+            try {
+                source.commit();
+                logger.debug("Preferences written; dirty keys: {}", written);
+            } catch (IOException | RuntimeException e) {
+                dirtyKeys.addAll(written);
+                throw e;
+            }
+        }
+    }
+
+    private void markDirty(String key) {
+        dirtyKeys.add(key);
+        scheduleWrite();
+    }
+
+    private synchronized void scheduleWrite() {
+        long now = System.nanoTime();
+        if (pendingWrite == null)
+            firstEdit = now;
+        lastEdit = now;
+        if (pendingWrite == null && !closed)
+            pendingWrite = scheduler.schedule(this::writeIfQuiet, quietPeriod, TimeUnit.NANOSECONDS);
+    }
+
+    private void writeIfQuiet() {
+        synchronized (this) {
+            if (pendingWrite == null || closed)
+                return;
+
+            long now = System.nanoTime();
+            long remainingQuiet = quietPeriod - (now - lastEdit);
+            long remainingMax = maxDelay - (now - firstEdit);
+            if (remainingQuiet > 0 && remainingMax > 0) {
+                // edits are still arriving; wait until they settle down (or the max delay runs out)
+                pendingWrite = scheduler.schedule(
+                        this::writeIfQuiet, Math.min(remainingQuiet, remainingMax), TimeUnit.NANOSECONDS
+                );
+                return;
+            }
+            pendingWrite = null;
+        }
+
+        try {
+            writeDirty();
+        } catch (IOException | RuntimeException e) {
+            logger.error("Couldn't write preferences, retrying later", e);
+            scheduleWrite();
+        }
+    }
+
+    private synchronized void cancelPendingWrite() {
+        if (pendingWrite != null) {
+            pendingWrite.cancel(false);
+            pendingWrite = null;
+        }
+    }
+
+    /**
+     * Flushes the pending modifications and stops the background writer.
+     * The source can still be used afterwards, but its modifications are only
+     * written by explicit {@link #commit()} calls.
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            if (closed)
+                return;
+            closed = true;
+        }
+        try {
+            flush();
+        } finally {
+            scheduler.shutdown();
+            try {
+                Runtime.getRuntime().removeShutdownHook(shutdownHook);
+            } catch (IllegalStateException ignored) {
+                // the JVM is already shutting down
+            }
+        }
+    }
+
+    @Override
+    public double getDouble(@NotNull String key, double defValue) {
+        return source.getDouble(key, defValue);
+    }
+
+    @Override
+    public int getInteger(@NotNull String key, int defValue) {
+        return source.getInteger(key, defValue);
+    }
+
+    @Override
+    public boolean getBoolean(@NotNull String key, boolean defValue) {
+        return source.getBoolean(key, defValue);
+    }
+
+    @Override
+    public String getString(@NotNull String key, String defValue) {
+        return source.getString(key, defValue);
+    }
+
+    @Override
+    public <T> T get(@NotNull PreferenceKey<T> key) {
+        return source.get(key);
+    }
+
+    @Override
+    public void remove(@NotNull String key) {
+        source.remove(key);
+        markDirty(key);
+    }
+
+    @Override
+    public void remove(@NotNull PreferenceKey<?> key) {
+        source.remove(key);
+        markDirty(key.getJsonKey());
+    }
+
+    @Override
+    public void putBoolean(@NotNull String key, boolean value) {
+        source.putBoolean(key, value);
+        markDirty(key);
+    }
+
+    @Override
+    public void putString(@NotNull String key, String value) {
+        source.putString(key, value);
+        markDirty(key);
+    }
+
+    @Override
+    public void putInteger(@NotNull String key, int value) {
+        source.putInteger(key, value);
+        markDirty(key);
+    }
+
+    @Override
+    public void putDouble(@NotNull String key, double value) {
+        source.putDouble(key, value);
+        markDirty(key);
+    }
+
+    @Override
+    public <T> void put(@NotNull PreferenceKey<T> key, T value) {
+        source.put(key, value);
+        markDirty(key.getJsonKey());
+    }
+
+    @Override
+    public boolean isCreated() {
+        return source.isCreated();
+    }
+
+    @Override
+    public boolean isOpened() {
+        return source.isOpened();
+    }
+
+    @Override
+    public void reset() throws IOException {
+        source.reset();
+        markDirty(ALL_KEYS);
+    }
+
+    /**
+     * Writes the pending modifications synchronously.
+     */
+    @Override
+    public void commit() throws IOException {
+        flush();
+    }
+}
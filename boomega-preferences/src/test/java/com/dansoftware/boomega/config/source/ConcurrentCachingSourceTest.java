@@ -0,0 +1,179 @@
+/*
+ * Boomega - A modern book explorer & catalog application
+ * Copyright (C) 2020-2022  Daniel Gyoerffy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.dansoftware.boomega.config.source;
+
+import com.dansoftware.boomega.config.PreferenceKey;
+import com.google.gson.JsonObject;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+public class ConcurrentCachingSourceTest {
+
+    private static final PreferenceKey<Integer> COUNTER = new PreferenceKey<>("counter", Integer.class, () -> 0);
+
+    private ConfigSource backing;
+    private ConcurrentCachingSource source;
+
+    @BeforeEach
+    void init() {
+        backing = new MemoryJsonSource();
+        source = new ConcurrentCachingSource(backing);
+    }
+
+    @Test
+    void itShouldDecodeValueOnlyOnce() {
+        //given
+        backing = spy(new MemoryJsonSource());
+        source = new ConcurrentCachingSource(backing);
+        source.put(COUNTER, 5);
+
+        //when
+        for (int i = 0; i < 10; i++)
+            assertThat(source.get(COUNTER)).isEqualTo(5);
+
+        //then
+        verify(backing, times(1)).get(COUNTER);
+    }
+
+    @Test
+    void itShouldDecodeMutableValuesOnEveryRead() {
+        //given
+        var key = new PreferenceKey<>("holder", Holder.class, Holder::new);
+        var stored = new Holder();
+        stored.items.add("first");
+        source.put(key, stored);
+
+        //when
+        Holder read = source.get(key);
+        read.items.add("second");
+
+        //then
+        assertThat(source.get(key)).isNotSameAs(read);
+        assertThat(source.get(key).items).containsExactly("first");
+    }
+
+    @Test
+    void itShouldInvalidateOnPutAndRemove() {
+        //given
+        source.put(COUNTER, 1);
+        assertThat(source.get(COUNTER)).isEqualTo(1);
+
+        //when
+        source.putInteger(COUNTER.getJsonKey(), 2);
+        int afterPut = source.get(COUNTER);
+        source.remove(COUNTER);
+        int afterRemove = source.get(COUNTER);
+
+        //then
+        assertThat(afterPut).isEqualTo(2);
+        assertThat(afterRemove).isZero();
+    }
+
+    @Test
+    void itShouldStayConsistentUnderConcurrentReadsAndWrites() throws Exception {
+        //given
+        int threads = 8;
+        int iterations = 5_000;
+        var keys = new ArrayList<PreferenceKey<Integer>>();
+        for (int i = 0; i < threads; i++)
+            keys.add(new PreferenceKey<>("key" + i, Integer.class, () -> -1));
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads * 2);
+        var start = new CountDownLatch(1);
+        var staleReads = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+
+        //when
+        for (int t = 0; t < threads; t++) {
+            PreferenceKey<Integer> own = keys.get(t);
+            // every writer must read its own latest write back, regardless of the others
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < iterations; i++) {
+                    source.put(own, i);
+                    source.put(COUNTER, i);
+                    if (source.get(own) != i)
+                        staleReads.incrementAndGet();
+                }
+                return null;
+            }));
+            // readers hammer all the keys to keep populating the cache concurrently
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < iterations; i++) {
+                    for (PreferenceKey<Integer> key : keys)
+                        source.get(key);
+                    source.get(COUNTER);
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures)
+            future.get(30, TimeUnit.SECONDS);
+        executor.shutdown();
+
+        //then
+        assertThat(staleReads).hasValue(0);
+        for (PreferenceKey<Integer> key : keys) {
+            assertThat(source.get(key)).isEqualTo(iterations - 1);
+            assertThat(backing.get(key)).isEqualTo(iterations - 1);
+        }
+        assertThat(source.get(COUNTER)).isEqualTo(backing.get(COUNTER));
+    }
+
+    static class Holder {
+        private final List<String> items = new ArrayList<>();
+    }
+
+    static class MemoryJsonSource extends JsonSource {
+        private final JsonObject json = new JsonObject();
+
+        @Override
+        protected JsonObject getJsonBase() {
+            return json;
+        }
+
+        @Override
+        public boolean isCreated() {
+            return true;
+        }
+
+        @Override
+        public boolean isOpened() {
+            return false;
+        }
+
+        @Override
+        public void commit() {
+        }
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Boomega - A modern book explorer & catalog application
+ * Copyright (C) 2020-2022  Daniel Gyoerffy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.dansoftware.boomega.config.source;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.*;
+
+public class WriteBehindSourceTest {
+
+    private ConfigSource backing;
+    private WriteBehindSource source;
+
+    @BeforeEach
+    void init() {
+        backing = spy(new InMemorySource());
+        source = new WriteBehindSource(backing, Duration.ofMillis(100), Duration.ofSeconds(5));
+    }
+
+    @AfterEach
+    void close() throws IOException {
+        source.close();
+    }
+
+    @Test
+    void itShouldCoalesceBurstOfEditsIntoOneWrite() throws IOException {
+        //given
+        //when
+        for (int i = 0; i < 50; i++)
+            source.putInteger("key" + (i % 5), i);
+
+        //then
+        verify(backing, timeout(2000)).commit();
+        assertThat(source.isDirty()).isFalse();
+        verify(backing, after(300).times(1)).commit();
+        assertThat(source.getInteger("key4", -1)).isEqualTo(49);
+    }
+
+    @Test
+    void itShouldTrackDirtyKeysUntilWritten() throws IOException {
+        //given
+        source.putString("a", "1");
+        source.remove("b");
+
+        //when
+        var dirty = source.getDirtyKeys();
+        source.commit();
+
+        //then
+        assertThat(dirty).containsExactlyInAnyOrder("a", "b");
+        assertThat(source.getDirtyKeys()).isEmpty();
+        verify(backing).commit();
+    }
+
+    @Test
+    void itShouldNotWriteWhenNothingChanged() throws IOException {
+        //given
+        //when
+        source.commit();
+
+        //then
+        verify(backing, never()).commit();
+    }
+
+    @Test
+    void itShouldKeepKeysDirtyWhenWriteFails() throws IOException {
+        //given
+        doThrow(new IOException()).when(backing).commit();
+        source.putBoolean("flag", true);
+
+        //when
+        //then
+        assertThatThrownBy(source::commit).isInstanceOf(IOException.class);
+        assertThat(source.getDirtyKeys()).containsExactly("flag");
+        doNothing().when(backing).commit();
+    }
+
+    @Test
+    void itShouldFlushOnClose() throws IOException {
+        //given
+        source.putDouble("ratio", 0.5);
+
+        //when
+        source.close();
+
+        //then
+        verify(backing).commit();
+        assertThat(source.isDirty()).isFalse();
+    }
+}
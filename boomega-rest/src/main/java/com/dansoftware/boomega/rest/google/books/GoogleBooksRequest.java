@@ -18,13 +18,13 @@
 
 package com.dansoftware.boomega.rest.google.books;
 
-import com.google.gson.Gson;
+import org.jetbrains.annotations.NotNull;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStreamReader;
+import java.net.URI;
+import java.net.URISyntaxException;
 import java.net.URL;
-import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
 import java.util.regex.Pattern;
 
 /**
@@ -36,21 +36,56 @@ import java.util.regex.Pattern;
 public class GoogleBooksRequest {
 
     private final URL url;
+    private final GoogleBooksClient client;
 
     GoogleBooksRequest(URL url) {
+        this(url, GoogleBooksClient.getDefault());
+    }
+
+    GoogleBooksRequest(URL url, GoogleBooksClient client) {
         this.url = url;
+        this.client = client;
     }
 
     public Volumes load() throws IOException {
-        try (var reader = new BufferedReader(new InputStreamReader(url.openStream(), StandardCharsets.UTF_8))) {
-            return new Gson().fromJson(reader, Volumes.class);
-        }
+        return load(VolumesParser.ALL);
+    }
+
+    /**
+     * Loads the volumes, parsing only the fields included by the given parser.
+     */
+    public Volumes load(@NotNull VolumesParser parser) throws IOException {
+        return client.get(toURI(), parser.volumes());
+    }
+
+    /**
+     * Loads the volumes without blocking the calling thread.
+     *
+     * @return a future completing with the loaded volumes, or exceptionally with an {@link IOException}
+     */
+    public CompletableFuture<Volumes> loadAsync() {
+        return loadAsync(VolumesParser.ALL);
+    }
+
+    /**
+     * Loads the volumes without blocking the calling thread, parsing only the fields included by the given parser.
+     */
+    public CompletableFuture<Volumes> loadAsync(@NotNull VolumesParser parser) {
+        return client.getAsync(toURI(), parser.volumes());
     }
 
     public boolean isEmpty() {
         return Pattern.compile(".*q=($|&.*)").matcher(this.url.toString()).matches();
     }
 
+    private URI toURI() {
+        try {
+            return url.toURI();
+        } catch (URISyntaxException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
     @Override
     public String toString() {
         return this.url.toString();
@@ -18,14 +18,13 @@
 
 package com.dansoftware.boomega.rest.google.books;
 
-import com.google.gson.Gson;
 import org.jetbrains.annotations.NotNull;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStreamReader;
+import java.net.URI;
+import java.net.URISyntaxException;
 import java.net.URL;
-import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Used for loading the data of one particular Google Book.
@@ -36,14 +35,49 @@ import java.nio.charset.StandardCharsets;
 public class SingleGoogleBookQuery {
 
     private final URL url;
+    private final GoogleBooksClient client;
 
     public SingleGoogleBookQuery(@NotNull URL url) {
+        this(url, GoogleBooksClient.getDefault());
+    }
+
+    public SingleGoogleBookQuery(@NotNull URL url, @NotNull GoogleBooksClient client) {
         this.url = url;
+        this.client = client;
     }
 
     public Volume load() throws IOException {
-        try (var input = new BufferedReader(new InputStreamReader(url.openStream(), StandardCharsets.UTF_8))) {
-            return new Gson().fromJson(input, Volume.class);
+        return load(VolumesParser.ALL);
+    }
+
+    /**
+     * Loads the volume, parsing only the fields included by the given parser.
+     */
+    public Volume load(@NotNull VolumesParser parser) throws IOException {
+        return client.get(toURI(), parser.volume());
+    }
+
+    /**
+     * Loads the volume without blocking the calling thread.
+     *
+     * @return a future completing with the loaded volume, or exceptionally with an {@link IOException}
+     */
+    public CompletableFuture<Volume> loadAsync() {
+        return loadAsync(VolumesParser.ALL);
+    }
+
+    /**
+     * Loads the volume without blocking the calling thread, parsing only the fields included by the given parser.
+     */
+    public CompletableFuture<Volume> loadAsync(@NotNull VolumesParser parser) {
+        return client.getAsync(toURI(), parser.volume());
+    }
+
+    private URI toURI() {
+        try {
+            return url.toURI();
+        } catch (URISyntaxException e) {
+            throw new IllegalStateException(e);
         }
     }
 
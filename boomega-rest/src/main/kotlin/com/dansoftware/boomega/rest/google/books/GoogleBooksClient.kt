@@ -0,0 +1,244 @@
+/*
+ * Boomega - A modern book explorer & catalog application
+ * Copyright (C) 2020-2022  Daniel Gyoerffy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.dansoftware.boomega.rest.google.books
+
+import com.google.gson.Gson
+import org.slf4j.Logger
+import org.slf4j.LoggerFactory
+import java.io.IOException
+import java.io.InputStream
+import java.io.InputStreamReader
+import java.io.UncheckedIOException
+import java.net.URI
+import java.net.http.HttpClient
+import java.net.http.HttpRequest
+import java.net.http.HttpResponse
+import java.nio.charset.StandardCharsets
+import java.time.Duration
+import java.util.concurrent.CancellationException
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.CompletionException
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.Executor
+import java.util.zip.GZIPInputStream
+
+/**
+ * The HTTP client used for communicating with the Google Books service.
+ *
+ * A single instance keeps one underlying [HttpClient], so connections (HTTP/2 where the
+ * server supports it) are reused between requests. Responses are requested gzip-compressed
+ * and decoded transparently. If a [cache] is given, responses are served from it while they
+ * are fresh, and revalidated with `If-None-Match` once they expire.
+ *
+ * @param connectTimeout the maximum time to wait for a connection to be established
+ * @param readTimeout the maximum time to wait for the response of a request
+ * @param cache the cache of the responses; `null` means no caching
+ * @param endpoint the url of the `volumes` endpoint the queries are sent to
+ * @param executor the executor used for the asynchronous tasks (including the cache lookups); if null,
+ * the [HttpClient]'s default is used for the requests and the default async executor of [CompletableFuture]
+ * for the cache lookups
+ *
+ * @author Daniel Gyorffy
+ */
+class GoogleBooksClient @JvmOverloads constructor(
+    val connectTimeout: Duration = DEFAULT_CONNECT_TIMEOUT,
+    val readTimeout: Duration = DEFAULT_READ_TIMEOUT,
+    val cache: ResponseCache? = null,
+    val endpoint: URI = DEFAULT_ENDPOINT,
+    private val executor: Executor? = null
+) {
+
+    private val httpClient: HttpClient = HttpClient.newBuilder()
+        .version(HttpClient.Version.HTTP_2)
+        .followRedirects(HttpClient.Redirect.NORMAL)
+        .connectTimeout(connectTimeout)
+        .apply { executor?.let { executor(it) } }
+        .build()
+
+    private val gson = Gson()
+
+    /**
+     * Sends a GET request to the given [uri] and parses the JSON response as [type].
+     *
+     * @throws IOException if the request fails
+     * @throws HttpStatusException if the server responds with a non-successful status code
+     */
+    @Throws(IOException::class)
+    fun <T> get(uri: URI, type: Class<T>): T = get(uri, reflectiveParser(type))
+
+    /**
+     * Sends a GET request to the given [uri] and reads the response with the given [parser].
+     *
+     * @throws IOException if the request fails
+     * @throws HttpStatusException if the server responds with a non-successful status code
+     */
+    @Throws(IOException::class)
+    fun <T> get(uri: URI, parser: ResponseParser<T>): T {
+        val future = getAsync(uri, parser)
+        try {
+            return future.get()
+        } catch (e: InterruptedException) {
+            // nobody waits for the response anymore
+            future.cancel(true)
+            Thread.currentThread().interrupt()
+            throw IOException("Interrupted while waiting for '$uri'", e)
+        } catch (e: ExecutionException) {
+            throw unwrap(e.cause ?: e)
+        }
+    }
+
+    /**
+     * Sends a GET request to the given [uri] asynchronously.
+     * The returned future completes with the parsed response, or exceptionally
+     * with an [IOException].
+     */
+    fun <T> getAsync(uri: URI, type: Class<T>): CompletableFuture<T> = getAsync(uri, reflectiveParser(type))
+
+    /**
+     * Sends a GET request to the given [uri] asynchronously, and reads the response with the given [parser].
+     * The returned future completes with the parsed response, or exceptionally
+     * with an [IOException]. Cancelling it cancels the in-flight request.
+     */
+    fun <T> getAsync(uri: URI, parser: ResponseParser<T>): CompletableFuture<T> {
+        val cache = cache ?: return send(uri, null, parser)
+
+        // the cache might have to read the disk, so it's not looked up on the caller's thread
+        val result = CompletableFuture<T>()
+        val lookup = when (executor) {
+            null -> CompletableFuture.supplyAsync { cache.lookup(uri) }
+            else -> CompletableFuture.supplyAsync({ cache.lookup(uri) }, executor)
+        }
+        lookup.whenComplete { cached, e ->
+            when {
+                e != null -> result.completeExceptionally(e)
+                cached != null && cache.isFresh(cached) -> {
+                    logger.debug("GET {} (cached)", uri)
+                    try {
+                        result.complete(parse(cached.body.inputStream(), parser))
+                    } catch (parseError: IOException) {
+                        result.completeExceptionally(parseError)
+                    } catch (parseError: RuntimeException) {
+                        result.completeExceptionally(parseError)
+                    }
+                }
+                !result.isDone -> {
+                    val request = send(uri, cached, parser)
+                    request.whenComplete { value, error ->
+                        if (error == null) result.complete(value) else result.completeExceptionally(error)
+                    }
+                    result.whenComplete { _, error -> if (error is CancellationException) request.cancel(true) }
+                }
+            }
+        }
+        result.whenComplete { _, e -> if (e is CancellationException) lookup.cancel(true) }
+        return result
+    }
+
+    /**
+     * Sends the request; the [cached] entry (if any) is revalidated through its `ETag`.
+     * Cancelling the returned future cancels the in-flight request.
+     */
+    private fun <T> send(uri: URI, cached: ResponseCache.Entry?, parser: ResponseParser<T>): CompletableFuture<T> {
+        logger.debug("GET {}", uri)
+        val exchange = httpClient.sendAsync(buildRequest(uri, cached?.etag), HttpResponse.BodyHandlers.ofInputStream())
+        return exchange.thenApply { response -> handle(uri, response, cached, parser) }.also {
+            // cancelling the returned future aborts the http exchange as well
+            it.whenComplete { _, e -> if (e is CancellationException) exchange.cancel(true) }
+        }
+    }
+
+    private fun buildRequest(uri: URI, etag: String?): HttpRequest =
+        HttpRequest.newBuilder(uri)
+            .timeout(readTimeout)
+            .header("Accept", "application/json")
+            .header("Accept-Encoding", "gzip")
+            .apply { etag?.let { header("If-None-Match", it) } }
+            .GET()
+            .build()
+
+    private fun <T> handle(
+        uri: URI,
+        response: HttpResponse<InputStream>,
+        cached: ResponseCache.Entry?,
+        parser: ResponseParser<T>
+    ): T {
+        try {
+            response.body().use { body ->
+                if (response.statusCode() == HTTP_NOT_MODIFIED && cached != null) {
+                    logger.debug("Not modified: {}", uri)
+                    return parse(cache!!.revalidated(uri, cached).body.inputStream(), parser)
+                }
+                if (response.statusCode() !in 200..299)
+                    throw HttpStatusException(response.statusCode(), response.uri())
+                val input = when {
+                    response.isGzipped -> GZIPInputStream(body)
+                    else -> body
+                }
+                return when (cache) {
+                    null -> parse(input, parser)
+                    else -> {
+                        val entry = cache.put(uri, input.readAllBytes(), response.headers().firstValue("ETag").orElse(null))
+                        parse(entry.body.inputStream(), parser)
+                    }
+                }
+            }
+        } catch (e: IOException) {
+            throw UncheckedIOException(e)
+        }
+    }
+
+    private fun <T> parse(input: InputStream, parser: ResponseParser<T>): T =
+        parser.parse(InputStreamReader(input, StandardCharsets.UTF_8))
+
+    private fun <T> reflectiveParser(type: Class<T>) = ResponseParser<T> { gson.fromJson(it, type) }
+
+    private val HttpResponse<*>.isGzipped: Boolean
+        get() = headers().firstValue("Content-Encoding").filter { it.equals("gzip", ignoreCase = true) }.isPresent
+
+    private fun unwrap(e: Throwable): IOException =
+        when (e) {
+            is CompletionException -> unwrap(e.cause ?: e)
+            is UncheckedIOException -> e.cause
+            is IOException -> e
+            else -> IOException(e)
+        }
+
+    companion object {
+
+        private val logger: Logger = LoggerFactory.getLogger(GoogleBooksClient::class.java)
+
+        @JvmField
+        val DEFAULT_CONNECT_TIMEOUT: Duration = Duration.ofSeconds(10)
+
+        @JvmField
+        val DEFAULT_READ_TIMEOUT: Duration = Duration.ofSeconds(30)
+
+        @JvmField
+        val DEFAULT_ENDPOINT: URI = URI.create("https://www.googleapis.com/books/v1/volumes")
+
+        private const val HTTP_NOT_MODIFIED = 304
+
+        /**
+         * The client used by the requests when no other client is specified.
+         */
+        @JvmStatic
+        @Volatile
+        var default: GoogleBooksClient = GoogleBooksClient(cache = ResponseCache.fromSystemProperties())
+    }
+}
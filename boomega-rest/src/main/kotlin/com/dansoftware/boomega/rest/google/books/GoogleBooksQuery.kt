@@ -21,6 +21,7 @@ package com.dansoftware.boomega.rest.google.books
 import com.dansoftware.boomega.util.nullIfBlank
 import com.dansoftware.boomega.util.surrounding
 import okhttp3.HttpUrl
+import okhttp3.HttpUrl.Companion.toHttpUrl
 import java.net.URISyntaxException
 import java.net.URL
 import java.util.*
@@ -101,20 +102,22 @@ class GoogleBooksQuery {
         }.joinToString(" ")
     }
 
-    fun build(): GoogleBooksRequest {
+    /**
+     * Builds the request that will be sent through the given [client].
+     */
+    @JvmOverloads
+    fun build(client: GoogleBooksClient = GoogleBooksClient.default): GoogleBooksRequest {
         return try {
             GoogleBooksRequest(
-                HttpUrl.Builder()
-                    .scheme(PROTOCOL)
-                    .host(HOST)
-                    .addPathSegments(PATH_SEGMENTS)
+                client.endpointBuilder()
                     .addQueryParameter("q", buildQueryString())
                     .addQueryParameter(START_INDEX, startIndex.toString())
                     .addQueryParameter(MAX_RESULTS, maxResults.toString())
                     .addQueryParameter(PRINT_TYPE, (printType ?: PRINT_TYPE_DEFAULT).toString())
                     .addQueryParameter(ORDER_BY, (sortType ?: SORT_TYPE_DEFAULT).toString())
                     .addQueryParameter(LANG_RESTRICT, lang)
-                    .build().toUrl()
+                    .build().toUrl(),
+                client
             )
         } catch (e: URISyntaxException) {
             throw RuntimeException(e)
@@ -123,8 +126,6 @@ class GoogleBooksQuery {
 
     companion object {
         private const val PROTOCOL = "https"
-        private const val HOST = "www.googleapis.com"
-        private const val PATH_SEGMENTS = "books/v1/volumes"
 
         // Query param flags
         private const val TITLE_FLAG = "intitle:"
@@ -163,19 +164,22 @@ class GoogleBooksQuery {
         @JvmStatic
         private val SORT_TYPE_DEFAULT = SortType.RELEVANCE
 
+        private fun GoogleBooksClient.endpointBuilder(): HttpUrl.Builder =
+            endpoint.toString().toHttpUrl().newBuilder()
+
         @JvmStatic
-        fun byId(id: String): SingleGoogleBookQuery {
+        @JvmOverloads
+        fun byId(id: String, client: GoogleBooksClient = GoogleBooksClient.default): SingleGoogleBookQuery {
             return when {
                 id.startsWith(PROTOCOL) -> SingleGoogleBookQuery(
-                    URL(id)
+                    URL(id),
+                    client
                 ) // for compatibility with previous strategies
                 else -> SingleGoogleBookQuery(
-                    HttpUrl.Builder()
-                        .scheme(PROTOCOL)
-                        .host(HOST)
-                        .addPathSegments(PATH_SEGMENTS)
+                    client.endpointBuilder()
                         .addPathSegment(id)
-                        .build().toUrl()
+                        .build().toUrl(),
+                    client
                 )
             }
         }
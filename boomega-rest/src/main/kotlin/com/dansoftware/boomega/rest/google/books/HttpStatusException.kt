@@ -0,0 +1,41 @@
+/*
+ * Boomega - A modern book explorer & catalog application
+ * Copyright (C) 2020-2022  Daniel Gyoerffy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.dansoftware.boomega.rest.google.books
+
+import java.io.IOException
+import java.net.URI
+
+/**
+ * Thrown when the server responds with a non-successful status code.
+ *
+ * @author Daniel Gyorffy
+ */
+class HttpStatusException(val statusCode: Int, val uri: URI) :
+    IOException("Server responded with status $statusCode for '$uri'") {
+
+    /**
+     * Tells whether the request is worth retrying later: the server is rate-limiting (*429*) or failed (*5xx*)
+     */
+    val isTransient: Boolean
+        get() = statusCode == TOO_MANY_REQUESTS || statusCode in 500..599
+
+    private companion object {
+        const val TOO_MANY_REQUESTS = 429
+    }
+}
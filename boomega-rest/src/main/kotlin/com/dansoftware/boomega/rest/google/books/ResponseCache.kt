@@ -0,0 +1,256 @@
+/*
+ * Boomega - A modern book explorer & catalog application
+ * Copyright (C) 2020-2022  Daniel Gyoerffy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.dansoftware.boomega.rest.google.books
+
+import com.github.benmanes.caffeine.cache.Cache
+import com.github.benmanes.caffeine.cache.Caffeine
+import org.slf4j.Logger
+import org.slf4j.LoggerFactory
+import java.io.DataInputStream
+import java.io.DataOutputStream
+import java.io.IOException
+import java.net.URI
+import java.nio.file.Files
+import java.nio.file.NoSuchFileException
+import java.nio.file.Path
+import java.nio.file.StandardCopyOption
+import java.nio.file.attribute.FileTime
+import java.security.MessageDigest
+import java.time.Duration
+import java.time.Instant
+import java.util.concurrent.atomic.AtomicLong
+import kotlin.io.path.*
+
+/**
+ * A two-level cache for the (decoded) responses of the Google Books service.
+ *
+ * Entries are keyed by the request url and kept in a size-bounded in-memory cache and,
+ * if a [directory] is given, in a size-bounded on-disk store that survives restarts.
+ * Entries older than the [ttl] are not served directly, but revalidated with the
+ * server through their `ETag` (if they have one).
+ *
+ * @param directory the directory of the on-disk store; `null` means memory-only caching
+ * @param ttl the time while an entry is served without contacting the server
+ * @param memoryMaxEntries the maximum number of entries kept in memory
+ * @param diskMaxBytes the maximum total size of the on-disk store
+ *
+ * @author Daniel Gyorffy
+ */
+class ResponseCache @JvmOverloads constructor(
+    private val directory: Path?,
+    val ttl: Duration = DEFAULT_TTL,
+    memoryMaxEntries: Long = DEFAULT_MEMORY_MAX_ENTRIES,
+    private val diskMaxBytes: Long = DEFAULT_DISK_MAX_BYTES
+) {
+
+    private val memory: Cache<String, Entry> = Caffeine.newBuilder()
+        .maximumSize(memoryMaxEntries)
+        .build()
+
+    private val memoryHits = AtomicLong()
+    private val diskHits = AtomicLong()
+    private val misses = AtomicLong()
+    private val revalidations = AtomicLong()
+
+    private var diskSize: Long = -1
+
+    /**
+     * The current hit/miss counters of the cache.
+     */
+    val stats: Stats
+        get() = Stats(memoryHits.get(), diskHits.get(), misses.get(), revalidations.get())
+
+    /**
+     * Looks up the entry belonging to the given [uri], regardless of whether it's expired or not.
+     * Only the fresh entries count as hits.
+     *
+     * It might read the disk, so it shouldn't be called on the UI thread.
+     */
+    internal fun lookup(uri: URI): Entry? {
+        val key = uri.toString()
+        memory.getIfPresent(key)?.let {
+            (if (isFresh(it)) memoryHits else misses).incrementAndGet()
+            return it
+        }
+        val entry = readFromDisk(key)?.also { memory.put(key, it) }
+        (if (entry != null && isFresh(entry)) diskHits else misses).incrementAndGet()
+        return entry
+    }
+
+    internal fun isFresh(entry: Entry): Boolean =
+        entry.storedAt.plus(ttl).isAfter(Instant.now())
+
+    /**
+     * Stores a new response for the given [uri].
+     */
+    internal fun put(uri: URI, body: ByteArray, etag: String?): Entry {
+        val key = uri.toString()
+        return Entry(body, etag, Instant.now()).also {
+            memory.put(key, it)
+            writeToDisk(key, it)
+        }
+    }
+
+    /**
+     * Marks the given entry as valid again (after the server responded with *304 Not Modified*).
+     */
+    internal fun revalidated(uri: URI, entry: Entry): Entry {
+        revalidations.incrementAndGet()
+        return put(uri, entry.body, entry.etag)
+    }
+
+    /**
+     * Removes all the entries from the memory and from the disk.
+     */
+    @Synchronized
+    fun clear() {
+        memory.invalidateAll()
+        directory?.takeIf { it.isDirectory() }?.listDirectoryEntries("*$FILE_EXTENSION")?.forEach {
+            it.deleteIfExists()
+        }
+        diskSize = 0
+    }
+
+    /**
+     * Reads the entry without locking: the files are replaced atomically by [writeToDisk],
+     * so a file is either read completely or found missing (if it has been evicted meanwhile).
+     */
+    private fun readFromDisk(key: String): Entry? {
+        val file = fileOf(key) ?: return null
+        if (!file.exists()) return null
+        val entry = try {
+            DataInputStream(file.inputStream().buffered()).use { input ->
+                if (input.readInt() != FORMAT_VERSION || input.readUTF() != key) return null
+                val etag = if (input.readBoolean()) input.readUTF() else null
+                val storedAt = Instant.ofEpochMilli(input.readLong())
+                val body = ByteArray(input.readInt()).also(input::readFully)
+                Entry(body, etag, storedAt)
+            }
+        } catch (e: NoSuchFileException) {
+            return null
+        } catch (e: IOException) {
+            logger.error("Couldn't read cache file '{}'", file, e)
+            return null
+        }
+        try {
+            file.setLastModifiedTime(FileTime.from(Instant.now())) // for the least-recently-used eviction
+        } catch (e: IOException) {
+            logger.debug("Couldn't touch cache file '{}'", file, e)
+        }
+        return entry
+    }
+
+    @Synchronized
+    private fun writeToDisk(key: String, entry: Entry) {
+        val file = fileOf(key) ?: return
+        try {
+            directory!!.createDirectories()
+            val sizeBefore = currentDiskSize()
+            val previousSize = if (file.exists()) file.fileSize() else 0
+            val temp = Files.createTempFile(directory, null, ".tmp")
+            DataOutputStream(temp.outputStream().buffered()).use { output ->
+                output.writeInt(FORMAT_VERSION)
+                output.writeUTF(key)
+                output.writeBoolean(entry.etag != null)
+                entry.etag?.let(output::writeUTF)
+                output.writeLong(entry.storedAt.toEpochMilli())
+                output.writeInt(entry.body.size)
+                output.write(entry.body)
+            }
+            val size = temp.fileSize()
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE)
+            diskSize = sizeBefore - previousSize + size
+            evictIfNeeded()
+        } catch (e: IOException) {
+            logger.error("Couldn't write cache file '{}'", file, e)
+        }
+    }
+
+    private fun currentDiskSize(): Long {
+        if (diskSize < 0)
+            diskSize = cacheFiles().sumOf { it.fileSize() }
+        return diskSize
+    }
+
+    private fun evictIfNeeded() {
+        if (diskSize <= diskMaxBytes) return
+        val files = cacheFiles().sortedBy { it.getLastModifiedTime() }.iterator()
+        while (diskSize > diskMaxBytes && files.hasNext()) {
+            val file = files.next()
+            val size = file.fileSize()
+            if (file.deleteIfExists()) diskSize -= size
+        }
+        logger.debug("Disk cache evicted down to {} bytes", diskSize)
+    }
+
+    private fun cacheFiles(): List<Path> =
+        directory?.takeIf { it.isDirectory() }?.listDirectoryEntries("*$FILE_EXTENSION") ?: emptyList()
+
+    private fun fileOf(key: String): Path? =
+        directory?.resolve(hash(key) + FILE_EXTENSION)
+
+    private fun hash(key: String): String =
+        MessageDigest.getInstance("SHA-256")
+            .digest(key.toByteArray(Charsets.UTF_8))
+            .joinToString("") { "%02x".format(it) }
+
+    /**
+     * A cached response.
+     */
+    internal class Entry(val body: ByteArray, val etag: String?, val storedAt: Instant)
+
+    /**
+     * Snapshot of the cache's hit/miss counters.
+     *
+     * @param memoryHits the number of lookups served from memory
+     * @param diskHits the number of lookups served from the disk
+     * @param misses the number of lookups that required a request to the server
+     * @param revalidations the number of stale entries that the server confirmed as unchanged
+     */
+    data class Stats(val memoryHits: Long, val diskHits: Long, val misses: Long, val revalidations: Long) {
+        val hitRate: Double
+            get() = (memoryHits + diskHits).toDouble() / (memoryHits + diskHits + misses).coerceAtLeast(1)
+    }
+
+    companion object {
+
+        private val logger: Logger = LoggerFactory.getLogger(ResponseCache::class.java)
+
+        private const val FORMAT_VERSION = 1
+        private const val FILE_EXTENSION = ".cache"
+
+        /**
+         * The system property specifying the directory of the on-disk cache
+         */
+        const val DIRECTORY_PROPERTY = "boomega.rest.cache.dir"
+
+        @JvmField
+        val DEFAULT_TTL: Duration = Duration.ofHours(24)
+
+        const val DEFAULT_MEMORY_MAX_ENTRIES = 256L
+        const val DEFAULT_DISK_MAX_BYTES = 64L * 1024 * 1024
+
+        /**
+         * Creates a cache persisted in the directory given by the [DIRECTORY_PROPERTY] system property,
+         * or a memory-only cache if the property is not set.
+         */
+        @JvmStatic
+        fun fromSystemProperties() = ResponseCache(System.getProperty(DIRECTORY_PROPERTY)?.let(Path::of))
+    }
+}
@@ -0,0 +1,230 @@
+/*
+ * Boomega - A modern book explorer & catalog application
+ * Copyright (C) 2020-2022  Daniel Gyoerffy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.dansoftware.boomega.rest.google.books
+
+import com.google.gson.stream.JsonReader
+import com.google.gson.stream.JsonToken
+import java.io.IOException
+
+/**
+ * A streaming parser for the responses of the Google Books service.
+ *
+ * Unlike the reflective deserialization, it reads the JSON token by token and only
+ * materializes the fields included by the given [fields]; every other subtree is skipped.
+ *
+ * @author Daniel Gyorffy
+ */
+class VolumesParser(val fields: Fields) {
+
+    /**
+     * Specifies which fields of the volumes are parsed.
+     */
+    enum class Fields {
+
+        /**
+         * Every field modeled by [Volume] (including the [Volume.SaleInfo])
+         */
+        ALL,
+
+        /**
+         * Only the fields needed for converting a [Volume] into a record: the id, and the
+         * title, subtitle, authors, publisher, published date, industry identifiers,
+         * language and print type of the [Volume.VolumeInfo]
+         */
+        RECORD
+    }
+
+    private val all = fields == Fields.ALL
+
+    /**
+     * Gives a [ResponseParser] reading a [Volumes] object.
+     */
+    fun volumes() = ResponseParser { JsonReader(it).use(::readVolumes) }
+
+    /**
+     * Gives a [ResponseParser] reading a single [Volume].
+     */
+    fun volume() = ResponseParser { JsonReader(it).use(::readVolume) }
+
+    @Throws(IOException::class)
+    fun readVolumes(reader: JsonReader): Volumes {
+        val volumes = Volumes()
+        reader.readObject { name ->
+            when (name) {
+                "kind" -> if (all) volumes.kind = reader.nextStringOrNull() else reader.skipValue()
+                "totalItems" -> volumes.totalItems = reader.nextIntOrZero()
+                "items" -> volumes.items = reader.readList { readVolume(reader) }
+                else -> reader.skipValue()
+            }
+        }
+        return volumes
+    }
+
+    @Throws(IOException::class)
+    fun readVolume(reader: JsonReader): Volume {
+        val volume = Volume(null)
+        reader.readObject { name ->
+            when {
+                name == "id" -> volume.id = reader.nextStringOrNull()
+                name == "volumeInfo" -> volume.volumeInfo = reader.readOrNull { readVolumeInfo(reader) }
+                !all -> reader.skipValue()
+                name == "kind" -> volume.kind = reader.nextStringOrNull()
+                name == "selfLink" -> volume.selfLink = reader.nextStringOrNull()
+                name == "saleInfo" -> volume.saleInfo = reader.readOrNull { readSaleInfo(reader) }
+                else -> reader.skipValue()
+            }
+        }
+        return volume
+    }
+
+    private fun readVolumeInfo(reader: JsonReader): Volume.VolumeInfo {
+        val info = Volume.VolumeInfo()
+        reader.readObject { name ->
+            when (name) {
+                "title" -> info.title = reader.nextStringOrNull()
+                "subtitle" -> info.subtitle = reader.nextStringOrNull()
+                "authors" -> info.authors = reader.readList { reader.nextString() }
+                "publisher" -> info.publisher = reader.nextStringOrNull()
+                "publishedDate" -> info.publishedDate = reader.nextStringOrNull()
+                "industryIdentifiers" -> info.industryIdentifiers = reader.readList { readIndustryIdentifier(reader) }
+                "language" -> info.language = reader.nextStringOrNull()
+                "printType" -> info.printType = reader.nextStringOrNull()
+                else -> if (all) readOptionalVolumeInfoField(reader, name, info) else reader.skipValue()
+            }
+        }
+        return info
+    }
+
+    private fun readOptionalVolumeInfoField(reader: JsonReader, name: String, info: Volume.VolumeInfo) {
+        when (name) {
+            "description" -> info.description = reader.nextStringOrNull()
+            "categories" -> info.categories = reader.readList { reader.nextString() }
+            "imageLinks" -> info.imageLinks = reader.readOrNull { readImageLinks(reader) }
+            "previewLink" -> info.previewLink = reader.nextStringOrNull()
+            "averageRating" -> info.averageRating = reader.readOrNull { reader.nextDouble() }
+            "ratingsCount" -> info.ratingsCount = reader.nextIntOrZero()
+            else -> reader.skipValue()
+        }
+    }
+
+    private fun readIndustryIdentifier(reader: JsonReader): Volume.VolumeInfo.IndustryIdentifier {
+        val identifier = Volume.VolumeInfo.IndustryIdentifier()
+        reader.readObject { name ->
+            when (name) {
+                "type" -> identifier.type = reader.nextStringOrNull()
+                "identifier" -> identifier.identifier = reader.nextStringOrNull()
+                else -> reader.skipValue()
+            }
+        }
+        return identifier
+    }
+
+    private fun readImageLinks(reader: JsonReader): Volume.VolumeInfo.ImageLinks {
+        val links = Volume.VolumeInfo.ImageLinks()
+        reader.readObject { name ->
+            when (name) {
+                "extraLarge" -> links.extraLarge = reader.nextStringOrNull()
+                "large" -> links.large = reader.nextStringOrNull()
+                "medium" -> links.medium = reader.nextStringOrNull()
+                "small" -> links.small = reader.nextStringOrNull()
+                "smallThumbnail" -> links.smallThumbnail = reader.nextStringOrNull()
+                "thumbnail" -> links.thumbnail = reader.nextStringOrNull()
+                else -> reader.skipValue()
+            }
+        }
+        return links
+    }
+
+    private fun readSaleInfo(reader: JsonReader): Volume.SaleInfo {
+        val saleInfo = Volume.SaleInfo()
+        reader.readObject { name ->
+            when (name) {
+                "buyLink" -> saleInfo.buyLink = reader.nextStringOrNull()
+                "country" -> saleInfo.country = reader.nextStringOrNull()
+                "isEbook" -> saleInfo.isEbook = reader.readOrNull { reader.nextBoolean() } ?: false
+                "saleability" -> saleInfo.saleability = reader.nextStringOrNull()
+                "listPrice" -> saleInfo.listPrice = reader.readOrNull {
+                    Volume.SaleInfo.ListPrice().also { price ->
+                        readPrice(reader) { amount, currency -> price.amount = amount; price.currencyCode = currency }
+                    }
+                }
+                "retailPrice" -> saleInfo.retailPrice = reader.readOrNull {
+                    Volume.SaleInfo.RetailPrice().also { price ->
+                        readPrice(reader) { amount, currency -> price.amount = amount; price.currencyCode = currency }
+                    }
+                }
+                else -> reader.skipValue()
+            }
+        }
+        return saleInfo
+    }
+
+    private inline fun readPrice(reader: JsonReader, setter: (Double, String?) -> Unit) {
+        var amount = 0.0
+        var currencyCode: String? = null
+        reader.readObject { name ->
+            when (name) {
+                "amount" -> amount = reader.readOrNull { reader.nextDouble() } ?: 0.0
+                "currencyCode" -> currencyCode = reader.nextStringOrNull()
+                else -> reader.skipValue()
+            }
+        }
+        setter(amount, currencyCode)
+    }
+
+    private inline fun JsonReader.readObject(onField: (String) -> Unit) {
+        beginObject()
+        while (hasNext()) onField(nextName())
+        endObject()
+    }
+
+    private inline fun <T> JsonReader.readList(readElement: () -> T): List<T>? =
+        readOrNull {
+            val list = ArrayList<T>()
+            beginArray()
+            while (hasNext()) list.add(readElement())
+            endArray()
+            list
+        }
+
+    private inline fun <T> JsonReader.readOrNull(read: () -> T): T? =
+        when (peek()) {
+            JsonToken.NULL -> null.also { nextNull() }
+            else -> read()
+        }
+
+    private fun JsonReader.nextStringOrNull(): String? = readOrNull { nextString() }
+
+    private fun JsonReader.nextIntOrZero(): Int = readOrNull { nextInt() } ?: 0
+
+    companion object {
+
+        /**
+         * Parses every field modeled by [Volume].
+         */
+        @JvmField
+        val ALL = VolumesParser(Fields.ALL)
+
+        /**
+         * Parses only the fields needed for converting volumes into records.
+         */
+        @JvmField
+        val RECORD = VolumesParser(Fields.RECORD)
+    }
+}
@@ -0,0 +1,188 @@
+/*
+ * Boomega - A modern book explorer & catalog application
+ * Copyright (C) 2020-2022  Daniel Gyoerffy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.dansoftware.boomega.rest.google.books;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class GoogleBooksClientTest {
+
+    private static final String VOLUMES_JSON =
+            "{\"kind\":\"books#volumes\",\"totalItems\":1,\"items\":[{\"id\":\"abc\",\"volumeInfo\":{\"title\":\"Dune\"}}]}";
+
+    private final AtomicInteger etagRequests = new AtomicInteger();
+
+    @TempDir Path cacheDirectory;
+
+    private HttpServer server;
+    private GoogleBooksClient underTest;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/volumes", exchange -> {
+            byte[] body = gzip(VOLUMES_JSON);
+            exchange.getResponseHeaders().add("Content-Encoding", "gzip");
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        server.createContext("/volumes/abc", exchange -> {
+            byte[] body = "{\"id\":\"abc\"}".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        server.createContext("/etag", exchange -> {
+            etagRequests.incrementAndGet();
+            if ("\"v1\"".equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                exchange.sendResponseHeaders(304, -1);
+            } else {
+                byte[] body = "{\"id\":\"etag\"}".getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().add("ETag", "\"v1\"");
+                exchange.sendResponseHeaders(200, body.length);
+                exchange.getResponseBody().write(body);
+            }
+            exchange.close();
+        });
+        server.createContext("/missing", exchange -> {
+            exchange.sendResponseHeaders(404, -1);
+            exchange.close();
+        });
+        server.start();
+        underTest = new GoogleBooksClient();
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.stop(0);
+    }
+
+    @Test
+    void itShouldDecodeGzippedResponses() throws IOException {
+        Volumes volumes = new GoogleBooksRequest(url("/volumes"), underTest).load();
+        assertThat(volumes.getTotalItems()).isEqualTo(1);
+        assertThat(volumes.getItems()).extracting(Volume::getId).containsExactly("abc");
+    }
+
+    @Test
+    void itShouldLoadAsynchronously() throws Exception {
+        Volume volume = new SingleGoogleBookQuery(url("/volumes/abc"), underTest).loadAsync().get();
+        assertThat(volume.getId()).isEqualTo("abc");
+    }
+
+    @Test
+    void itShouldFailOnErrorStatus() {
+        assertThatThrownBy(() -> new SingleGoogleBookQuery(url("/missing"), underTest).load())
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("404");
+    }
+
+    @Test
+    void itShouldServeFreshEntriesFromCache() throws IOException {
+        var client = new GoogleBooksClient(
+                GoogleBooksClient.DEFAULT_CONNECT_TIMEOUT,
+                GoogleBooksClient.DEFAULT_READ_TIMEOUT,
+                new ResponseCache(cacheDirectory)
+        );
+        assertThat(new SingleGoogleBookQuery(url("/etag"), client).load().getId()).isEqualTo("etag");
+        assertThat(new SingleGoogleBookQuery(url("/etag"), client).load().getId()).isEqualTo("etag");
+        assertThat(etagRequests).hasValue(1);
+        assertThat(client.getCache().getStats().getMemoryHits()).isEqualTo(1);
+
+        var restartedClient = new GoogleBooksClient(
+                GoogleBooksClient.DEFAULT_CONNECT_TIMEOUT,
+                GoogleBooksClient.DEFAULT_READ_TIMEOUT,
+                new ResponseCache(cacheDirectory)
+        );
+        assertThat(new SingleGoogleBookQuery(url("/etag"), restartedClient).load().getId()).isEqualTo("etag");
+        assertThat(etagRequests).hasValue(1);
+        assertThat(restartedClient.getCache().getStats().getDiskHits()).isEqualTo(1);
+    }
+
+    @Test
+    void itShouldRevalidateExpiredEntries() throws IOException {
+        var cache = new ResponseCache(null, Duration.ZERO);
+        var client = new GoogleBooksClient(
+                GoogleBooksClient.DEFAULT_CONNECT_TIMEOUT,
+                GoogleBooksClient.DEFAULT_READ_TIMEOUT,
+                cache
+        );
+        new SingleGoogleBookQuery(url("/etag"), client).load();
+        assertThat(new SingleGoogleBookQuery(url("/etag"), client).load().getId()).isEqualTo("etag");
+        assertThat(etagRequests).hasValue(2);
+        assertThat(cache.getStats().getRevalidations()).isEqualTo(1);
+        assertThat(cache.getStats().getMisses()).isEqualTo(2);
+    }
+
+    @Test
+    void itShouldNotLookUpTheCacheOnTheCallingThread() throws Exception {
+        var cache = new ResponseCache(cacheDirectory);
+        var uri = url("/etag").toURI();
+        new GoogleBooksClient(GoogleBooksClient.DEFAULT_CONNECT_TIMEOUT, GoogleBooksClient.DEFAULT_READ_TIMEOUT, cache)
+                .get(uri, Volume.class);
+
+        List<Runnable> deferredTasks = new ArrayList<>();
+        var client = new GoogleBooksClient(
+                GoogleBooksClient.DEFAULT_CONNECT_TIMEOUT,
+                GoogleBooksClient.DEFAULT_READ_TIMEOUT,
+                cache,
+                GoogleBooksClient.DEFAULT_ENDPOINT,
+                deferredTasks::add
+        );
+        var future = client.getAsync(uri, Volume.class);
+        assertThat(future).isNotDone();
+        assertThat(cache.getStats().getMemoryHits()).isZero();
+
+        deferredTasks.forEach(Runnable::run);
+        assertThat(future.get().getId()).isEqualTo("etag");
+        assertThat(cache.getStats().getMemoryHits()).isEqualTo(1);
+        assertThat(etagRequests).hasValue(1);
+    }
+
+    private URL url(String path) throws IOException {
+        return new URL("http://localhost:" + server.getAddress().getPort() + path);
+    }
+
+    private static byte[] gzip(String value) throws IOException {
+        var output = new ByteArrayOutputStream();
+        try (var gzip = new GZIPOutputStream(output)) {
+            gzip.write(value.getBytes(StandardCharsets.UTF_8));
+        }
+        return output.toByteArray();
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * Boomega - A modern book explorer & catalog application
+ * Copyright (C) 2020-2022  Daniel Gyoerffy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.dansoftware.boomega.rest.google.books;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class VolumesParserTest {
+
+    private static final String RESPONSE = "{" +
+            "\"kind\":\"books#volumes\",\"totalItems\":2,\"items\":[" +
+            "{\"kind\":\"books#volume\",\"id\":\"abc\",\"etag\":\"x\"," +
+            "\"volumeInfo\":{\"title\":\"Dune\",\"authors\":[\"Frank Herbert\"],\"publishedDate\":\"1965\"," +
+            "\"industryIdentifiers\":[{\"type\":\"ISBN_13\",\"identifier\":\"9780801950773\"}]," +
+            "\"readingModes\":{\"text\":true,\"image\":false},\"averageRating\":4.5,\"printType\":\"BOOK\"," +
+            "\"imageLinks\":{\"thumbnail\":\"http://thumbnail\"}}," +
+            "\"saleInfo\":{\"country\":\"HU\",\"isEbook\":true,\"listPrice\":{\"amount\":1990.0,\"currencyCode\":\"HUF\"}}," +
+            "\"accessInfo\":{\"epub\":{\"isAvailable\":true}}}," +
+            "{\"id\":\"def\",\"volumeInfo\":null}" +
+            "]}";
+
+    @Test
+    void itShouldParseEveryModeledField() throws IOException {
+        Volumes volumes = VolumesParser.ALL.volumes().parse(new StringReader(RESPONSE));
+
+        assertThat(volumes.getKind()).isEqualTo("books#volumes");
+        assertThat(volumes.getTotalItems()).isEqualTo(2);
+        assertThat(volumes.getItems()).extracting(Volume::getId).containsExactly("abc", "def");
+
+        Volume dune = volumes.getItems().get(0);
+        assertThat(dune.getKind()).isEqualTo("books#volume");
+        assertThat(dune.getVolumeInfo().getTitle()).isEqualTo("Dune");
+        assertThat(dune.getVolumeInfo().getAuthors()).containsExactly("Frank Herbert");
+        assertThat(dune.getVolumeInfo().getIndustryIdentifiers()).singleElement()
+                .extracting(Volume.VolumeInfo.IndustryIdentifier::getIdentifier).isEqualTo("9780801950773");
+        assertThat(dune.getVolumeInfo().getAverageRating()).isEqualTo(4.5);
+        assertThat(dune.getVolumeInfo().getImageLinks().getThumbnail()).isEqualTo("http://thumbnail");
+        assertThat(dune.getSaleInfo().isEbook()).isTrue();
+        assertThat(dune.getSaleInfo().getListPrice().getAmount()).isEqualTo(1990.0);
+        assertThat(volumes.getItems().get(1).getVolumeInfo()).isNull();
+    }
+
+    @Test
+    void itShouldSkipTheFieldsNotNeededForRecords() throws IOException {
+        Volumes volumes = VolumesParser.RECORD.volumes().parse(new StringReader(RESPONSE));
+
+        Volume dune = volumes.getItems().get(0);
+        assertThat(dune.getId()).isEqualTo("abc");
+        assertThat(dune.getVolumeInfo().getTitle()).isEqualTo("Dune");
+        assertThat(dune.getVolumeInfo().getPrintType()).isEqualTo("BOOK");
+        assertThat(dune.getKind()).isNull();
+        assertThat(dune.getSaleInfo()).isNull();
+        assertThat(dune.getVolumeInfo().getImageLinks()).isNull();
+        assertThat(dune.getVolumeInfo().getAverageRating()).isNull();
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Boomega - A modern book explorer & catalog application
+ * Copyright (C) 2020-2022  Daniel Gyoerffy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.dansoftware.boomega.util.concurrent
+
+import java.time.Duration
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.locks.ReentrantLock
+import kotlin.concurrent.withLock
+import kotlin.math.min
+
+/**
+ * A token-bucket rate limiter.
+ *
+ * The bucket holds at most [capacity] tokens and is refilled with [permitsPerSecond] tokens
+ * every second; every [acquire] consumes one token, waiting if the bucket is empty.
+ * It allows short bursts (up to the capacity) while keeping the average rate bounded.
+ *
+ * @author Daniel Gyorffy
+ */
+class TokenBucket @JvmOverloads constructor(
+    val permitsPerSecond: Double,
+    val capacity: Int = permitsPerSecond.toInt().coerceAtLeast(1),
+    private val nanoClock: () -> Long = System::nanoTime
+) {
+
+    private val lock = ReentrantLock()
+    private var tokens: Double = capacity.toDouble()
+    private var lastRefill: Long = nanoClock()
+
+    init {
+        require(permitsPerSecond > 0) { "The rate must be positive!" }
+        require(capacity > 0) { "The capacity must be positive!" }
+    }
+
+    /**
+     * Takes a token from the bucket, waiting until one is available.
+     *
+     * @throws InterruptedException if the thread is interrupted while waiting
+     */
+    @Throws(InterruptedException::class)
+    fun acquire() {
+        while (true) {
+            val wait = lock.withLock {
+                refill()
+                if (tokens >= 1) {
+                    tokens -= 1
+                    return
+                }
+                ((1 - tokens) / permitsPerSecond * NANOS_PER_SECOND).toLong()
+            }
+            TimeUnit.NANOSECONDS.sleep(wait)
+        }
+    }
+
+    /**
+     * Takes a token from the bucket if one is available right now.
+     *
+     * @return `true` if a token was taken
+     */
+    fun tryAcquire(): Boolean = lock.withLock {
+        refill()
+        (tokens >= 1).also { if (it) tokens -= 1 }
+    }
+
+    /**
+     * Drains the bucket and delays the next refill with the given duration;
+     * useful when the server asks the client to slow down.
+     */
+    fun pause(duration: Duration) {
+        lock.withLock {
+            refill()
+            tokens = min(tokens, 0.0) - duration.toNanos() * permitsPerSecond / NANOS_PER_SECOND
+        }
+    }
+
+    private fun refill() {
+        val now = nanoClock()
+        tokens = min(capacity.toDouble(), tokens + (now - lastRefill) * permitsPerSecond / NANOS_PER_SECOND)
+        lastRefill = now
+    }
+
+    private companion object {
+        const val NANOS_PER_SECOND = 1_000_000_000.0
+    }
+}
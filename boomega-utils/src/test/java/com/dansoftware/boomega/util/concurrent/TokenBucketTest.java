@@ -0,0 +1,119 @@
+/*
+ * Boomega - A modern book explorer & catalog application
+ * Copyright (C) 2020-2022  Daniel Gyoerffy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.dansoftware.boomega.util.concurrent;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TokenBucketTest {
+
+    private static final double PERMITS_PER_SECOND = 2.0;
+    private static final int CAPACITY = 5;
+
+    private final AtomicLong nanoTime = new AtomicLong();
+    private TokenBucket tokenBucket;
+
+    @BeforeEach
+    void init() {
+        tokenBucket = new TokenBucket(PERMITS_PER_SECOND, CAPACITY, nanoTime::get);
+    }
+
+    @Test
+    void itShouldAllowABurstUpToTheCapacity() {
+        // when
+        int acquired = drain();
+
+        // then
+        assertThat(acquired).isEqualTo(CAPACITY);
+    }
+
+    @Test
+    void itShouldRefillWithTheGivenRate() {
+        // given
+        drain();
+
+        // when
+        elapse(Duration.ofMillis(500));
+        int acquiredAfterHalfSecond = drain();
+        elapse(Duration.ofMillis(1500));
+        int acquiredAfterOneAndHalfSeconds = drain();
+
+        // then
+        assertThat(acquiredAfterHalfSecond).isEqualTo(1);
+        assertThat(acquiredAfterOneAndHalfSeconds).isEqualTo(3);
+    }
+
+    @Test
+    void itShouldNotRefillBeyondTheCapacity() {
+        // given
+        drain();
+
+        // when
+        elapse(Duration.ofHours(1));
+
+        // then
+        assertThat(drain()).isEqualTo(CAPACITY);
+    }
+
+    @Test
+    void itShouldNotGiveTokensDuringAPause() {
+        // when
+        tokenBucket.pause(Duration.ofSeconds(1));
+        boolean acquiredImmediately = tokenBucket.tryAcquire();
+        elapse(Duration.ofSeconds(1));
+        boolean acquiredAfterThePause = tokenBucket.tryAcquire();
+        elapse(Duration.ofMillis(500));
+        boolean acquiredAfterARefill = tokenBucket.tryAcquire();
+
+        // then
+        assertThat(acquiredImmediately).isFalse();
+        assertThat(acquiredAfterThePause).isFalse();
+        assertThat(acquiredAfterARefill).isTrue();
+    }
+
+    @Test
+    void itShouldAcquireWithoutWaitingIfATokenIsAvailable() throws InterruptedException {
+        // when
+        tokenBucket.acquire();
+
+        // then
+        assertThat(drain()).isEqualTo(CAPACITY - 1);
+    }
+
+    /**
+     * Takes all the available tokens
+     *
+     * @return the number of taken tokens
+     */
+    private int drain() {
+        int acquired = 0;
+        while (tokenBucket.tryAcquire())
+            acquired++;
+        return acquired;
+    }
+
+    private void elapse(Duration duration) {
+        nanoTime.addAndGet(duration.toNanos());
+    }
+}